@@ -0,0 +1,78 @@
+package com.github.falsepattern.jblotter.benchmarks;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary serialization and deserialization, both in memory and through files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BinaryBenchmark {
+    @Benchmark
+    public byte[] serialize(SaveState state) throws IOException {
+        var out = new ByteArrayOutputStream(state.bytes.length);
+        var data = new EndianOutputStream(out, true);
+        state.file.serialize(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public BlotterFile deserialize(SaveState state) throws IOException {
+        return BlotterFile.deserialize(new EndianInputStream(new ByteArrayInputStream(state.bytes), true));
+    }
+
+    @Benchmark
+    public long serializeFile(SaveState state) throws IOException {
+        try (var data = new EndianOutputStream(Files.newOutputStream(state.path), true)) {
+            state.file.serialize(data);
+        }
+        return Files.size(state.path);
+    }
+
+    @Benchmark
+    public long serializeFileParallel(SaveState state) throws IOException {
+        try (var channel = FileChannel.open(state.path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            state.file.serializeParallel(channel, ForkJoinPool.commonPool());
+            return channel.size();
+        }
+    }
+
+    @Benchmark
+    public BlotterFile deserializeFile(SaveState state) throws IOException {
+        try (var data = new EndianInputStream(Files.newInputStream(state.path), true)) {
+            return BlotterFile.deserialize(data);
+        }
+    }
+
+    @Benchmark
+    public BlotterFile deserializeMapped(SaveState state) throws IOException {
+        return BlotterFile.open(state.path);
+    }
+
+    @Benchmark
+    public BlotterFile deserializeMappedParallel(SaveState state) throws IOException {
+        return BlotterFile.openParallel(state.path);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.falsepattern.jblotter.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion between the object model and the json tree formats, and streaming the json straight to an output or from
+ * json text. Parsing and printing json trees is left out, as that's all Jackson.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JsonBenchmark {
+    @Benchmark
+    public ObjectNode toJson(SaveState state) {
+        return state.file.toJson();
+    }
+
+    @Benchmark
+    public BlotterFile fromJson(SaveState state) throws JsonParseException {
+        return BlotterFile.fromJson(state.json);
+    }
+
+    @Benchmark
+    public ObjectNode toEditableJson(SaveState state) {
+        return state.file.toEditableJson();
+    }
+
+    /**
+     * Includes solving the circuit states, see {@link SolverBenchmark} for the solver on its own.
+     */
+    @Benchmark
+    public BlotterFile fromEditableJson(SaveState state) throws JsonParseException {
+        return BlotterFile.fromJson(state.editableJson);
+    }
+
+    @Benchmark
+    public void writeJson(SaveState state) throws IOException {
+        state.file.writeJson(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeEditableJson(SaveState state) throws IOException {
+        state.file.writeEditableJson(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public BlotterFile readJson(SaveState state) throws IOException, JsonParseException {
+        return BlotterFile.readJson(new ByteArrayInputStream(state.jsonText));
+    }
+
+    /**
+     * Includes solving the circuit states.
+     */
+    @Benchmark
+    public BlotterFile readEditableJson(SaveState state) throws IOException, JsonParseException {
+        return BlotterFile.readJson(new ByteArrayInputStream(state.editableJsonText));
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.falsepattern.jblotter.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The save every benchmark works on, generated from a fixed seed by {@link SaveGenerator}, in all the representations
+ * the benchmarks start from. The parameters can be overridden from the command line with {@code -p}, for example
+ * {@code -p componentCount=1000,10000,100000} to get a scaling curve.
+ */
+@State(Scope.Benchmark)
+public class SaveState {
+    public static final long SEED = 0x5EED_B10_7E4L;
+
+    @Param({"1000", "10000", "100000"})
+    public int componentCount;
+
+    /**
+     * The maximum amount of lines on a bus, and of buffers driven by a fan-out. See {@link SaveGenerator}.
+     */
+    @Param({"4", "16"})
+    public int maxFanOut;
+
+    /**
+     * The amount of wires to aim for per component, so the wire count can be varied independently of the component
+     * count. See {@link SaveGenerator}.
+     */
+    @Param({"0.5", "2"})
+    public double wiresPerComponent;
+
+    @Param({"true", "false"})
+    public boolean world;
+
+    public BlotterFile file;
+    public byte[] bytes;
+    public Path path;
+    public ObjectNode json;
+    public ObjectNode editableJson;
+    public byte[] jsonText;
+    public byte[] editableJsonText;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = new SaveGenerator(SEED, componentCount, world, maxFanOut, wiresPerComponent).generate();
+        var out = new ByteArrayOutputStream();
+        var data = new EndianOutputStream(out, true);
+        file.serialize(data);
+        data.flush();
+        bytes = out.toByteArray();
+        path = Files.createTempFile("jblotter-benchmark", ".blotter");
+        Files.write(path, bytes);
+        json = file.toJson();
+        editableJson = file.toEditableJson();
+        out.reset();
+        file.writeJson(out);
+        jsonText = out.toByteArray();
+        out.reset();
+        file.writeEditableJson(out);
+        editableJsonText = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.falsepattern.jblotter.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.CircuitStateSolver;
+import com.github.falsepattern.jblotter.util.SignalGraphSolver;
+import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit state solving, on the editable json tree and on the object model.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SolverBenchmark {
+    /**
+     * The json solver modifies the tree in place, so every invocation needs a fresh copy. Copying takes long enough
+     * compared to a single invocation that the per-invocation setup doesn't skew the results.
+     */
+    @State(Scope.Thread)
+    public static class EditableCopy {
+        public ObjectNode node;
+
+        @Setup(Level.Invocation)
+        public void setup(SaveState state) {
+            node = state.editableJson.deepCopy();
+        }
+    }
+
+    @Benchmark
+    public ObjectNode signalGraphSolver(SaveState state, EditableCopy copy) throws JsonParseException {
+        var solver = new SignalGraphSolver();
+        solver.addComponents((ArrayNode) copy.node.get("components"));
+        solver.addWires((ArrayNode) copy.node.get("wires"));
+        solver.solve(copy.node, state.world);
+        return copy.node;
+    }
+
+    @Benchmark
+    public BlotterFile circuitStateSolver(SaveState state) {
+        return CircuitStateSolver.solve(state.file);
+    }
+}
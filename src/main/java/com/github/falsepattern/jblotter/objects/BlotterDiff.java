@@ -0,0 +1,468 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferOutput;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary patches between two versions of a save.<br>
+ * Components are matched by address, and wires by their pair of peg addresses, through primitive hash tables, so
+ * computing a patch takes time linear in the size of the saves. The patch only holds what changed:
+ * <ul>
+ *     <li>The header, the mods and the changed entries of the component ID map.</li>
+ *     <li>The addresses of removed components, and the full modified and added components.</li>
+ *     <li>The base indices of removed wires, and the full modified and added wires.</li>
+ *     <li>The order of the components and wires, as runs over the base order, which is a single run unless something
+ *     was moved.</li>
+ *     <li>The XOR of the powered circuit states, as the nonzero 64-bit words only.</li>
+ * </ul>
+ * Applying the patch to the file it was computed from gives a file that's equal to the target, and that serializes to
+ * the same bytes. The patch records the component, wire and circuit state counts of its base, and applying it to a
+ * file with different counts fails, but beyond that, it's up to the caller to apply it to the right base.
+ */
+public final class BlotterDiff {
+    private static final int MAGIC = 0x46464442; // "BDFF"
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte STATES_XOR = 0;
+    private static final byte STATES_FULL = 1;
+
+    private BlotterDiff() {
+    }
+
+    /**
+     * Open-addressing index of wires by their two points. Every slot packs the hash of a wire with its index, so probing
+     * only has to look at the wire itself when the hashes match. Wires with the same points are told apart by their
+     * occurrence, which is how many wires with the same points come before them. Since nothing is ever removed, linear
+     * probing finds wires with the same points in the order they were added, so the occurrence is just the amount of
+     * matches passed along the probe.
+     */
+    private static final class WireIndex {
+        private final Wire[] wires;
+        /**
+         * The hash in the upper half, and the wire index + 1 in the lower half, or 0 for a free slot.
+         */
+        private final long[] slots;
+        private final int mask;
+
+        WireIndex(Wire[] wires) {
+            this.wires = wires;
+            int capacity = Integer.highestOneBit(Math.max(4, wires.length * 2 - 1)) << 1;
+            slots = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        private static int hash(PegAddress point) {
+            long h = ((long) point.componentAddress() << 32 | point.pegIndex() & 0xFFFFFFFFL) ^ (point.input() ? 0x9E3779B97F4A7C15L : 0);
+            h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+            return (int) (h ^ (h >>> 33));
+        }
+
+        private static int hash(Wire wire) {
+            int h = hash(wire.firstPoint()) * 0x9E3779B9 + hash(wire.secondPoint());
+            return h ^ (h >>> 16);
+        }
+
+        private boolean matches(long slot, int hash, Wire wire) {
+            if ((int) (slot >>> 32) != hash) return false;
+            var other = wires[(int) slot - 1];
+            return other.firstPoint().equals(wire.firstPoint()) && other.secondPoint().equals(wire.secondPoint());
+        }
+
+        /**
+         * Adds the wire at the index.
+         * @return The occurrence of the wire.
+         */
+        int add(int index) {
+            var wire = wires[index];
+            int hash = hash(wire);
+            int occurrence = 0;
+            int i = hash & mask;
+            for (long slot; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+                if (matches(slot, hash, wire)) occurrence++;
+            }
+            slots[i] = (long) hash << 32 | index + 1;
+            return occurrence;
+        }
+
+        /**
+         * @return The index of the wire with the same points as the given one, and the given occurrence, or -1 if there
+         * isn't one.
+         */
+        int find(Wire wire, int occurrence) {
+            int hash = hash(wire);
+            int i = hash & mask;
+            for (long slot; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+                if (matches(slot, hash, wire) && occurrence-- == 0) return (int) slot - 1;
+            }
+            return -1;
+        }
+    }
+
+    private static ComponentTable table(BlotterFile file) {
+        return file.components() instanceof ComponentTable table ? table : new ComponentTable(file.components());
+    }
+
+    /**
+     * The powered circuit states of a file as a bitset, whichever way the file stores them. Negative subassembly
+     * circuit state IDs are left out, which is fine, since those are only ever stored in full.
+     */
+    private static BitSet poweredStates(BlotterFile file) {
+        if (file.isWorld()) return file.worldCircuitStates();
+        var result = new BitSet();
+        for (int state: file.subassemblyCircuitStates()) {
+            if (state >= 0) result.set(state);
+        }
+        return result;
+    }
+
+    private static boolean isStrictlyAscending(int[] states) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] < 0 || i > 0 && states[i] <= states[i - 1]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the patch that turns {@code base} into {@code target}.
+     */
+    public static byte[] compute(BlotterFile base, BlotterFile target) {
+        var output = new ByteBufferOutput(4096);
+        try {
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(base.getComponentCount());
+            output.writeInt(base.wires().length);
+            output.writeInt(base.circuitStateCount());
+            writeHeader(output, target);
+            writeComponentIDs(output, base.componentIDs(), target.componentIDs());
+            writeComponents(output, table(base), table(target));
+            writeWires(output, base.wires(), target.wires());
+            writeCircuitStates(output, base, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var buffer = output.toByteBuffer();
+        var result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
+    private static void writeHeader(DataOutput output, BlotterFile target) throws IOException {
+        output.writeByte(target.saveFormatVersion());
+        target.gameVersion().serialize(output);
+        output.writeBoolean(target.isWorld());
+        output.writeInt(target.mods().size());
+        for (var mod: target.mods().entrySet()) {
+            SerializationUtil.serializeString(output, mod.getKey());
+            mod.getValue().serialize(output);
+        }
+    }
+
+    private static void writeComponentIDs(DataOutput output, String[] base, String[] target) throws IOException {
+        int changed = 0;
+        for (int i = 0; i < target.length; i++) {
+            if (i >= base.length || !target[i].equals(base[i])) changed++;
+        }
+        output.writeInt(target.length);
+        output.writeInt(changed);
+        for (int i = 0; i < target.length; i++) {
+            if (i >= base.length || !target[i].equals(base[i])) {
+                output.writeInt(i);
+                SerializationUtil.serializeString(output, target[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the order of the target as runs over the base order with the removed entries left out and the added ones
+     * appended.
+     * @param indices The index of every target entry in that order.
+     */
+    private static void writeOrder(DataOutput output, int[] indices) throws IOException {
+        var runs = new ArrayList<int[]>();
+        for (int i = 0; i < indices.length; ) {
+            int start = i;
+            while (i + 1 < indices.length && indices[i + 1] == indices[i] + 1) i++;
+            i++;
+            runs.add(new int[]{indices[start], i - start});
+        }
+        output.writeInt(runs.size());
+        for (var run: runs) {
+            output.writeInt(run[0]);
+            output.writeInt(run[1]);
+        }
+    }
+
+    private static void writeComponents(DataOutput output, ComponentTable base, ComponentTable target) throws IOException {
+        var basePositions = new IntLongHashMap(base.size());
+        int position = 0;
+        for (var component: base.values()) {
+            basePositions.put(component.address(), position++, -1);
+        }
+        var kept = new BitSet(base.size());
+        var modified = new ArrayList<Component>();
+        var added = new ArrayList<Component>();
+        for (var component: target.values()) {
+            int basePosition = (int) basePositions.get(component.address(), -1);
+            if (basePosition == -1) {
+                added.add(component);
+                continue;
+            }
+            kept.set(basePosition);
+            if (!component.equals(base.get(component.address()))) modified.add(component);
+        }
+        var survivorIndices = new int[base.size()];
+        int survivors = 0;
+        output.writeInt(base.size() - kept.cardinality());
+        position = 0;
+        for (var component: base.values()) {
+            if (kept.get(position)) {
+                survivorIndices[position] = survivors++;
+            } else {
+                output.writeInt(component.address());
+            }
+            position++;
+        }
+        output.writeInt(modified.size());
+        for (var component: modified) {
+            component.serialize(output);
+        }
+        output.writeInt(added.size());
+        for (var component: added) {
+            component.serialize(output);
+        }
+        var order = new int[target.size()];
+        int next = survivors;
+        int i = 0;
+        for (var component: target.values()) {
+            int basePosition = (int) basePositions.get(component.address(), -1);
+            order[i++] = basePosition == -1 ? next++ : survivorIndices[basePosition];
+        }
+        writeOrder(output, order);
+    }
+
+    private static void writeWires(DataOutput output, Wire[] base, Wire[] target) throws IOException {
+        var baseIndex = new WireIndex(base);
+        for (int i = 0; i < base.length; i++) {
+            baseIndex.add(i);
+        }
+        var targetIndex = new WireIndex(target);
+        var kept = new BitSet(base.length);
+        var targetPositions = new int[target.length];
+        int modified = 0;
+        int added = 0;
+        for (int i = 0; i < target.length; i++) {
+            int basePosition = baseIndex.find(target[i], targetIndex.add(i));
+            targetPositions[i] = basePosition;
+            if (basePosition == -1) {
+                added++;
+            } else {
+                kept.set(basePosition);
+                if (!target[i].equals(base[basePosition])) modified++;
+            }
+        }
+        output.writeInt(base.length - kept.cardinality());
+        var survivorIndices = new int[base.length];
+        int survivors = 0;
+        for (int i = 0; i < base.length; i++) {
+            if (kept.get(i)) {
+                survivorIndices[i] = survivors++;
+            } else {
+                output.writeInt(i);
+            }
+        }
+        output.writeInt(modified);
+        for (int i = 0; i < target.length; i++) {
+            int basePosition = targetPositions[i];
+            if (basePosition != -1 && !target[i].equals(base[basePosition])) {
+                output.writeInt(basePosition);
+                target[i].serialize(output);
+            }
+        }
+        output.writeInt(added);
+        for (int i = 0; i < target.length; i++) {
+            if (targetPositions[i] == -1) target[i].serialize(output);
+        }
+        var order = new int[target.length];
+        int next = survivors;
+        for (int i = 0; i < target.length; i++) {
+            order[i] = targetPositions[i] == -1 ? next++ : survivorIndices[targetPositions[i]];
+        }
+        writeOrder(output, order);
+    }
+
+    private static void writeCircuitStates(DataOutput output, BlotterFile base, BlotterFile target) throws IOException {
+        output.writeInt(target.circuitStateCount());
+        if (!target.isWorld() && !isStrictlyAscending(target.subassemblyCircuitStates())) {
+            output.writeByte(STATES_FULL);
+            var states = target.subassemblyCircuitStates();
+            output.writeInt(states.length);
+            SerializationUtil.writeInts(output, states, 0, states.length);
+            return;
+        }
+        output.writeByte(STATES_XOR);
+        var xor = (BitSet) poweredStates(target).clone();
+        xor.xor(poweredStates(base));
+        var words = xor.toLongArray();
+        int nonzero = 0;
+        for (long word: words) {
+            if (word != 0) nonzero++;
+        }
+        output.writeInt(nonzero);
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                output.writeInt(i);
+                output.writeLong(words[i]);
+            }
+        }
+    }
+
+    /**
+     * Applies a patch from {@link #compute} to the file it was computed from.
+     * @throws IllegalArgumentException If the patch is corrupted, or doesn't fit the base.
+     */
+    public static BlotterFile apply(BlotterFile base, byte[] patch) throws IOException {
+        var input = new ByteBufferInput(ByteBuffer.wrap(patch).order(ByteOrder.LITTLE_ENDIAN));
+        if (input.readInt() != MAGIC) throw new IllegalArgumentException("Not a save patch!");
+        int formatVersion = input.readByte();
+        if (formatVersion != FORMAT_VERSION) throw new IllegalArgumentException("Unsupported save patch version " + formatVersion + "!");
+        if (input.readInt() != base.getComponentCount() || input.readInt() != base.wires().length || input.readInt() != base.circuitStateCount()) {
+            throw new IllegalArgumentException("Save patch does not match the base file!");
+        }
+        byte saveFormatVersion = input.readByte();
+        var gameVersion = Version.deserialize(input);
+        boolean isWorld = input.readBoolean();
+        Map<String, Version> mods = BlotterFile.readModVersions(input);
+        var componentIDs = readComponentIDs(input, base.componentIDs());
+        var components = readComponents(input, table(base));
+        var wires = readWires(input, base.wires());
+        int circuitStateCount = input.readInt();
+        BitSet worldCircuitStates = null;
+        int[] subassemblyCircuitStates = null;
+        if (input.readByte() == STATES_FULL) {
+            subassemblyCircuitStates = new int[input.readInt()];
+            SerializationUtil.readInts(input, subassemblyCircuitStates, 0, subassemblyCircuitStates.length);
+        } else {
+            var words = poweredStates(base).toLongArray();
+            int nonzero = input.readInt();
+            for (int i = 0; i < nonzero; i++) {
+                int index = input.readInt();
+                if (index < 0) throw new IllegalArgumentException("Corrupted save patch!");
+                if (index >= words.length) words = Arrays.copyOf(words, index + 1);
+                words[index] ^= input.readLong();
+            }
+            var states = BitSet.valueOf(words);
+            if (isWorld) {
+                worldCircuitStates = states;
+            } else {
+                subassemblyCircuitStates = states.stream().toArray();
+            }
+        }
+        if (input.remaining() != 0) throw new IllegalArgumentException("Trailing data after the save patch!");
+        return new BlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, components, wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+    }
+
+    private static String[] readComponentIDs(DataInput input, String[] base) throws IOException {
+        var result = Arrays.copyOf(base, input.readInt());
+        int changed = input.readInt();
+        for (int i = 0; i < changed; i++) {
+            result[input.readInt()] = SerializationUtil.deserializeString(input);
+        }
+        for (var id: result) {
+            if (id == null) throw new IllegalArgumentException("Corrupted save patch!");
+        }
+        return result;
+    }
+
+    /**
+     * Reorders the entries by the runs written by {@link #writeOrder}.
+     */
+    private static <T> List<T> readOrder(DataInput input, List<T> entries) throws IOException {
+        var result = new ArrayList<T>(entries.size());
+        int runs = input.readInt();
+        for (int i = 0; i < runs; i++) {
+            int start = input.readInt();
+            int length = input.readInt();
+            if (start < 0 || length < 0 || start > entries.size() - length) throw new IllegalArgumentException("Corrupted save patch!");
+            result.addAll(entries.subList(start, start + length));
+        }
+        if (result.size() != entries.size()) throw new IllegalArgumentException("Corrupted save patch!");
+        return result;
+    }
+
+    private static ComponentTable readComponents(DataInput input, ComponentTable base) throws IOException {
+        int removedCount = input.readInt();
+        var removed = new IntLongHashMap(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            int address = input.readInt();
+            if (!base.containsKey(address)) throw new IllegalArgumentException("Save patch does not match the base file!");
+            removed.put(address, 0, -1);
+        }
+        int modifiedCount = input.readInt();
+        var modified = new ComponentTable(modifiedCount);
+        for (int i = 0; i < modifiedCount; i++) {
+            var component = Component.deserialize(input);
+            if (!base.containsKey(component.address())) throw new IllegalArgumentException("Save patch does not match the base file!");
+            modified.put(component);
+        }
+        var entries = new ArrayList<Component>(base.size());
+        for (var component: base.values()) {
+            if (removed.containsKey(component.address())) continue;
+            var replacement = modified.get(component.address());
+            entries.add(replacement != null ? replacement : component);
+        }
+        int addedCount = input.readInt();
+        for (int i = 0; i < addedCount; i++) {
+            entries.add(Component.deserialize(input));
+        }
+        var result = new ComponentTable(entries.size());
+        for (var component: readOrder(input, entries)) {
+            int parentAddress = component.parentAddress();
+            if (parentAddress != 0 && !result.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (result.put(component) != null) throw new IllegalArgumentException("Corrupted save patch!");
+        }
+        return result;
+    }
+
+    private static Wire[] readWires(DataInput input, Wire[] base) throws IOException {
+        var current = base.clone();
+        int removedCount = input.readInt();
+        for (int i = 0; i < removedCount; i++) {
+            int index = input.readInt();
+            if (index < 0 || index >= base.length || current[index] == null) throw new IllegalArgumentException("Save patch does not match the base file!");
+            current[index] = null;
+        }
+        int modifiedCount = input.readInt();
+        for (int i = 0; i < modifiedCount; i++) {
+            int index = input.readInt();
+            if (index < 0 || index >= base.length || current[index] == null) throw new IllegalArgumentException("Save patch does not match the base file!");
+            current[index] = Wire.deserialize(input);
+        }
+        var entries = new ArrayList<Wire>(base.length - removedCount);
+        for (var wire: current) {
+            if (wire != null) entries.add(wire);
+        }
+        int addedCount = input.readInt();
+        for (int i = 0; i < addedCount; i++) {
+            entries.add(Wire.deserialize(input));
+        }
+        return readOrder(input, entries).toArray(new Wire[0]);
+    }
+}
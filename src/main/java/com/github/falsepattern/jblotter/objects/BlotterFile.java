@@ -1,12 +1,20 @@
 package com.github.falsepattern.jblotter.objects;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.falsepattern.jblotter.stream.BlotterReader;
+import com.github.falsepattern.jblotter.stream.BlotterVisitor;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.stream.ComponentView;
 import com.github.falsepattern.jblotter.util.Serializable;
 import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
 import com.github.falsepattern.jblotter.objects.component.Wire;
 import com.github.falsepattern.jblotter.util.SignalGraphSolver;
 import com.github.falsepattern.jblotter.util.json.JsonParseException;
@@ -17,35 +25,45 @@ import com.github.falsepattern.jblotter.util.json.rule.ObjectRule;
 import com.github.falsepattern.jblotter.util.json.rule.primitives.BooleanRule;
 import com.github.falsepattern.jblotter.util.json.rule.primitives.IntegerRule;
 import com.github.falsepattern.jblotter.util.json.rule.primitives.TextRule;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
 import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+import com.github.falsepattern.jblotter.util.serialization.StringPool;
 import org.w3c.dom.Node;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The deserialized version of the Blotter File Format<br>
- * Note that the {@link #components} array's first element is always null, and it's 1 element larger than the component
- * count. This is so that component addresses can be used to directly address the array without the need of lookup logic.
+ * Deserialized files store their components in a {@link ComponentTable}, which indexes an array directly by component
+ * address while the addresses are dense, so that lookups don't need any hashing or boxing.
  */
 public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<String, Version> mods, boolean isWorld, String[] componentIDs, Map<Integer, Component> components, Wire[] wires, int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) implements Serializable {
-    private static final byte[] DESIRED_HEADER = new byte[]{0x4C, 0x6F, 0x67, 0x69, 0x63, 0x20, 0x57, 0x6F, 0x72, 0x6C, 0x64, 0x20, 0x73, 0x61, 0x76, 0x65};
-    private static final byte[] DESIRED_FOOTER = new byte[]{0x72, 0x65, 0x64, 0x73, 0x74, 0x6F, 0x6E, 0x65, 0x20, 0x73, 0x75, 0x78, 0x20, 0x6C, 0x6F, 0x6C};
+    static final byte[] DESIRED_HEADER = new byte[]{0x4C, 0x6F, 0x67, 0x69, 0x63, 0x20, 0x57, 0x6F, 0x72, 0x6C, 0x64, 0x20, 0x73, 0x61, 0x76, 0x65};
+    static final byte[] DESIRED_FOOTER = new byte[]{0x72, 0x65, 0x64, 0x73, 0x74, 0x6F, 0x6E, 0x65, 0x20, 0x73, 0x75, 0x78, 0x20, 0x6C, 0x6F, 0x6C};
     private static final ObjectRule COMMON_RULE = new ObjectRule(new String[]{"saveFormatVersion", "gameVersion", "mods", "saveType"}, new NodeRule[]{IntegerRule.UNSIGNED_BYTE, Version.RULE, new DynamicArrayRule(new ObjectRule(new String[]{"name", "version"}, new NodeRule[]{TextRule.INSTANCE, Version.RULE}, true)), IntegerRule.UNSIGNED_BYTE}, false);
-    public static final NodeRule RULE_BASE = ObjectRule.join(COMMON_RULE, new ObjectRule(new String[]{"componentIDs", "components", "wires"}, new NodeRule[]{new DynamicArrayRule(TextRule.INSTANCE), new DynamicArrayRule(Component.RULE), new DynamicArrayRule(Wire.RULE)}, false), false);
-    public static final NodeRule RULE_WORLD = new ObjectRule(new String[]{"circuitStates"}, new NodeRule[]{new DynamicArrayRule(BooleanRule.INSTANCE)}, false);
-    public static final NodeRule RULE_SUBASSEMBLY = new ObjectRule(new String[]{"circuitStates"}, new NodeRule[]{new DynamicArrayRule(IntegerRule.POSITIVE_SIGNED_INT)}, false);
-    public static final NodeRule EDITABLE_RULE = ObjectRule.join(COMMON_RULE, new ObjectRule(new String[]{"components", "wires", "editFriendly"}, new NodeRule[]{new DynamicArrayRule(Component.EDITABLE_RULE), new DynamicArrayRule(Wire.EDITABLE_RULE), BooleanRule.INSTANCE}, false), true);
+    private static final NodeRule COMMON_CHECK = COMMON_RULE.compile();
+    public static final NodeRule RULE_BASE = ObjectRule.join(COMMON_RULE, new ObjectRule(new String[]{"componentIDs", "components", "wires"}, new NodeRule[]{new DynamicArrayRule(TextRule.INSTANCE), new DynamicArrayRule(Component.RULE), new DynamicArrayRule(Wire.RULE)}, false), false).compile();
+    public static final NodeRule RULE_WORLD = new ObjectRule(new String[]{"circuitStates"}, new NodeRule[]{new DynamicArrayRule(BooleanRule.INSTANCE)}, false).compile();
+    public static final NodeRule RULE_SUBASSEMBLY = new ObjectRule(new String[]{"circuitStates"}, new NodeRule[]{new DynamicArrayRule(IntegerRule.POSITIVE_SIGNED_INT)}, false).compile();
+    public static final NodeRule EDITABLE_RULE = ObjectRule.join(COMMON_RULE, new ObjectRule(new String[]{"components", "wires", "editFriendly"}, new NodeRule[]{new DynamicArrayRule(Component.EDITABLE_RULE), new DynamicArrayRule(Wire.EDITABLE_RULE), BooleanRule.INSTANCE}, false), true).compile();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
 
     public Component getComponentByID(int id) {
-        return components.get(id);
+        return components instanceof ComponentTable table ? table.get(id) : components.get(id);
     }
 
     public int getComponentCount() {
@@ -53,47 +71,41 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
     }
 
     public static BlotterFile deserialize(DataInput input) throws IOException {
-        if (input == null) throw new NullPointerException("Cannot deserialize from null stream!");
-        {
-            var header = new byte[DESIRED_HEADER.length];
-            input.readFully(header);
-            if (!Arrays.equals(DESIRED_HEADER, header)) {
-                throw new IllegalArgumentException("Save file header mismatch!");
-            }
-        }
+        var builder = new Builder();
+        BlotterReader.read(input, builder);
+        return builder.build();
+    }
 
-        var saveFormatVersion = input.readByte();
-        var gameVersion = Version.deserialize(input);
-        var isWorld = readWorldBoolean(input);
-        var componentCount = input.readInt();
-        var wireCount = input.readInt();
-        var mods = readModVersions(input);
-        var componentIDs = readComponentIDMap(input);
-        var components = readComponents(input, componentCount);
-        var wires = readWires(input, wireCount);
-        BitSet worldCircuitStates = null;
-        int[] subassemblyCircuitStates = null;
-        int circuitStateCount;
-        if (isWorld) {
-            var rawState = new byte[input.readInt()];
-            circuitStateCount = rawState.length * 8;
-            input.readFully(rawState);
-            worldCircuitStates = BitSet.valueOf(rawState);
-        } else {
-            subassemblyCircuitStates = new int[input.readInt()];
-            circuitStateCount = subassemblyCircuitStates.length;
-            for (int i = 0; i < subassemblyCircuitStates.length; i++) {
-                subassemblyCircuitStates[i] = input.readInt();
-            }
-        }
-        {
-            var footer = new byte[DESIRED_FOOTER.length];
-            input.readFully(footer);
-            if (!Arrays.equals(DESIRED_FOOTER, footer)) {
-                throw new IllegalArgumentException("Save file footer mismatch!");
-            }
-        }
-        return new BlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, components, wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+    /**
+     * Memory-maps the given file and indexes its components without decoding them. See {@link LazyBlotterFile}.
+     * @param cacheSize The maximum amount of decoded components to keep around, or 0 to disable caching.
+     */
+    public static LazyBlotterFile openLazy(Path path, int cacheSize) throws IOException {
+        return LazyBlotterFile.open(path, cacheSize);
+    }
+
+    /**
+     * Memory-maps the given file and deserializes it directly from the mapping, without any stream layers.
+     */
+    public static BlotterFile open(Path path) throws IOException {
+        return deserialize(new ByteBufferInput(SerializationUtil.mapFile(path)));
+    }
+
+    /**
+     * Memory-maps the given file and decodes it on the common fork-join pool. See {@link #deserializeParallel}.
+     */
+    public static BlotterFile openParallel(Path path) throws IOException {
+        return deserializeParallel(SerializationUtil.mapFile(path), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Deserializes a whole file held in a buffer, decoding the components and wires on multiple threads. The result
+     * and the errors are the same as with {@link #deserialize}.
+     * @param buffer The serialized file, starting at the current position of the buffer. The buffer itself is not
+     *               modified.
+     */
+    public static BlotterFile deserializeParallel(ByteBuffer buffer, ForkJoinPool pool) throws IOException {
+        return ParallelDecoder.decode(buffer, pool);
     }
 
     private static BlotterFile fromStandardJson(JsonNode node) throws JsonParseException {
@@ -101,33 +113,33 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         var gameVersion = Version.fromJson(node.get("gameVersion"), true);
         var mods = new HashMap<String, Version>();
         for (JsonNode entry : node.get("mods")) {
-            mods.put(entry.get("name").textValue(), Version.fromJson(entry.get("version"), true));
+            mods.put(StringPool.SHARED.intern(entry.get("name").textValue()), Version.fromJson(entry.get("version"), true));
         }
         var isWorld = switch (node.get("saveType").intValue()) {
             default -> throw new JsonParseException("Unknown/corrupted save type!");
             case 0x01 -> true;
             case 0x02 -> false;
         };
-        var componentIDs = JsonUtil.parseArrayNoVerify(node.get("componentIDs"), 0, 0, String[]::new, JsonNode::textValue);
-        var components = new HashMap<Integer, Component>();
-        for (var componentNode: node.get("components")) {
-            var component = Component.fromJson(componentNode, false);
+        var componentIDs = JsonUtil.parseArrayNoVerify(node.get("componentIDs"), 0, 0, String[]::new, (id) -> StringPool.SHARED.intern(id.textValue()));
+        var componentNodes = node.get("components");
+        var components = new ComponentTable(componentNodes.size());
+        for (var componentNode: componentNodes) {
+            var component = Component.fromJson(componentNode, true);
             if (components.containsKey(component.address())) throw new IllegalArgumentException("Component address conflict: " + component.address());
-            components.put(component.address(), component);
+            components.put(component);
         }
         var wires = JsonUtil.parseArrayNoVerify(node.get("wires"), 0, 0, Wire[]::new, (wire) -> Wire.fromJson(wire, true));
+        (isWorld ? RULE_WORLD : RULE_SUBASSEMBLY).verify(node);
         var stateArray = node.get("circuitStates");
         int stateArraySize = stateArray.size();
         BitSet worldStates = null;
         int[] subassemblyStates = null;
         if (isWorld) {
-            RULE_WORLD.verify(node);
             worldStates = new BitSet(stateArraySize);
             for (int i = 0; i < stateArraySize; i++) {
                 worldStates.set(i, stateArray.get(i).asBoolean());
             }
         } else {
-            RULE_SUBASSEMBLY.verify(node);
             subassemblyStates = new int[stateArraySize];
             for (int i = 0; i < stateArraySize; i++) {
                 subassemblyStates[i] = stateArray.get(i).intValue();
@@ -137,7 +149,7 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
     }
 
     public static BlotterFile fromJson(JsonNode node) throws JsonParseException {
-        COMMON_RULE.verify(node);
+        COMMON_CHECK.verify(node);
         var saveFormatVersion = node.get("saveFormatVersion").intValue();
         if (saveFormatVersion != 0x05) {
             throw new JsonParseException("Unsupported save format version " + saveFormatVersion);
@@ -160,17 +172,17 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
             solver.addComponents((ArrayNode) node.get("components"));
             solver.addWires((ArrayNode) node.get("wires"));
             solver.solve((ObjectNode) node, isWorld);
-            var componentIDs = new ArrayList<String>();
+            var componentIDs = new HashMap<String, Integer>();
+            var compIdArr = new ArrayNode(JsonNodeFactory.instance);
             for (var component: node.get("components")) {
                 var name = component.get("componentID").textValue();
-                if (!componentIDs.contains(name)) {
-                    componentIDs.add(name);
+                var id = componentIDs.get(name);
+                if (id == null) {
+                    id = componentIDs.size();
+                    componentIDs.put(name, id);
+                    compIdArr.add(name);
                 }
-                ((ObjectNode)component).put("componentID", componentIDs.indexOf(name));
-            }
-            var compIdArr = new ArrayNode(JsonNodeFactory.instance);
-            for (var id: componentIDs) {
-                compIdArr.add(id);
+                ((ObjectNode)component).put("componentID", id);
             }
             ((ObjectNode) node).set("componentIDs", compIdArr);
         }
@@ -179,40 +191,50 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
 
     }
 
-    public void serialize(DataOutput output) throws IOException {
-        output.write(DESIRED_HEADER);
-        output.writeByte(saveFormatVersion);
-        gameVersion.serialize(output);
-        output.writeByte(isWorld ? 0x01 : 0x02);
-        output.writeInt(components.size());
-        output.writeInt(wires.length);
-        output.writeInt(mods.size());
-        for (var mod: mods.entrySet()) {
-            SerializationUtil.serializeString(output, mod.getKey());
-            mod.getValue().serialize(output);
+    /**
+     * Reads a json save, either standard or edit-friendly, straight from the token stream. The save is validated and
+     * built in a single pass, without reading the document into a node tree first, so the memory use is about the same
+     * as for the resulting file. The result is the same as with {@link #fromJson}, and so are the errors, although with
+     * more than one fault in a document, a different one may be reported.
+     * @param parser A parser positioned at the start of the save object, or one that wasn't advanced yet. It's left at
+     *               the end of the save object.
+     */
+    public static BlotterFile readJson(JsonParser parser) throws IOException, JsonParseException {
+        return JsonSaveReader.read(parser);
+    }
+
+    /**
+     * Reads a json save from the stream, see {@link #readJson(JsonParser)}. The stream is not closed.
+     */
+    public static BlotterFile readJson(InputStream input) throws IOException, JsonParseException {
+        try (var parser = JSON_FACTORY.createParser(input)) {
+            return readJson(parser);
         }
-        writeComponentIDMap(output);
+    }
+
+    public void serialize(DataOutput output) throws IOException {
+        var writer = new BlotterWriter(output, components.size(), wires.length);
+        writer.writeHeader(saveFormatVersion, gameVersion, isWorld, mods, componentIDs);
         for (var component: components.values()) {
-            component.serialize(output);
+            writer.writeComponent(component);
         }
         for (Wire wire : wires) {
-            wire.serialize(output);
+            writer.writeWire(wire);
         }
         if (isWorld) {
-            int stateByteCount = (int)Math.ceil(circuitStateCount / 8d);
-            output.writeInt(stateByteCount);
-            var states = worldCircuitStates.toByteArray();
-            output.write(states);
-            for (int i = states.length; i < stateByteCount; i++) {
-                output.writeByte(0);
-            }
+            writer.writeCircuitStates(circuitStateCount, worldCircuitStates);
         } else {
-            output.writeInt(subassemblyCircuitStates.length);
-            for (int state: subassemblyCircuitStates) {
-                output.writeInt(state);
-            }
+            writer.writeCircuitStates(subassemblyCircuitStates);
         }
-        output.write(DESIRED_FOOTER);
+        writer.finish();
+    }
+
+    /**
+     * Serializes this file with the components and wires encoded concurrently on the executor, then writes everything
+     * to the channel in order. The output is byte-identical to {@link #serialize}. The channel is not closed.
+     */
+    public void serializeParallel(WritableByteChannel channel, Executor executor) throws IOException {
+        ParallelEncoder.encode(this, channel, executor);
     }
 
     private ObjectNode toJsonPrelude() {
@@ -259,18 +281,24 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return result;
     }
 
+    /**
+     * @return The powered circuit states as a bitset, regardless of the save type.
+     */
+    private BitSet poweredCircuitStates() {
+        if (isWorld) {
+            return worldCircuitStates;
+        }
+        var circuitStates = new BitSet();
+        for (int subassemblyCircuitState : subassemblyCircuitStates) {
+            circuitStates.set(subassemblyCircuitState);
+        }
+        return circuitStates;
+    }
+
     @Override
     public ObjectNode toEditableJson() {
         var result = toJsonPrelude();
-        BitSet circuitStates;
-        if (isWorld) {
-            circuitStates = worldCircuitStates;
-        } else {
-            circuitStates = new BitSet();
-            for (int subassemblyCircuitState : subassemblyCircuitStates) {
-                circuitStates.set(subassemblyCircuitState);
-            }
-        }
+        var circuitStates = poweredCircuitStates();
         var comps = new ArrayNode(JsonNodeFactory.instance);
         for (var component: components.values()) {
             var comp = component.toEditableJson(circuitStates, componentIDs);
@@ -282,6 +310,99 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return result;
     }
 
+    private void writeJsonPrelude(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("saveFormatVersion", saveFormatVersion);
+        generator.writeFieldName("gameVersion");
+        gameVersion.writeJson(generator);
+        generator.writeNumberField("saveType", isWorld ? 1 : 2);
+        generator.writeArrayFieldStart("mods");
+        for (var mod: mods.entrySet()) {
+            generator.writeStartObject();
+            generator.writeStringField("name", mod.getKey());
+            generator.writeFieldName("version");
+            mod.getValue().writeJson(generator);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Streams the same JSON as {@link #toJson()}, one token at a time. Components, circuit states and custom data are
+     * written straight from this file, so no node tree is built, and the memory use doesn't depend on the size of the
+     * save.
+     */
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        writeJsonPrelude(generator);
+        generator.writeArrayFieldStart("componentIDs");
+        for (var id: componentIDs) {
+            generator.writeString(id);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("components");
+        for (var component: components.values()) {
+            component.writeJson(generator);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("wires");
+        for (var wire: wires) {
+            wire.writeJson(generator);
+        }
+        generator.writeEndArray();
+        generator.writeFieldName("circuitStates");
+        if (isWorld) {
+            generator.writeStartArray();
+            for (int i = 0; i < circuitStateCount; i++) {
+                generator.writeBoolean(worldCircuitStates.get(i));
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeArray(subassemblyCircuitStates, 0, circuitStateCount);
+        }
+        generator.writeBooleanField("editFriendly", false);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Streams the same JSON as {@link #toEditableJson()}, one token at a time, without building a node tree.
+     */
+    @Override
+    public void writeEditableJson(JsonGenerator generator) throws IOException {
+        writeJsonPrelude(generator);
+        var circuitStates = poweredCircuitStates();
+        generator.writeArrayFieldStart("components");
+        for (var component: components.values()) {
+            component.writeEditableJson(generator, circuitStates, componentIDs);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("wires");
+        for (var wire: wires) {
+            wire.writeEditableJson(generator);
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("editFriendly", true);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the same JSON as {@link #toJson()} to the stream as UTF-8. The stream is flushed, but not closed.
+     */
+    public void writeJson(OutputStream output) throws IOException {
+        try (var generator = JSON_FACTORY.createGenerator(output)) {
+            writeJson(generator);
+        }
+    }
+
+    /**
+     * Writes the same JSON as {@link #toEditableJson()} to the stream as UTF-8. The stream is flushed, but not closed.
+     */
+    public void writeEditableJson(OutputStream output) throws IOException {
+        try (var generator = JSON_FACTORY.createGenerator(output)) {
+            writeEditableJson(generator);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -299,7 +420,94 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return result;
     }
 
-    private static Map<String, Version> readModVersions(DataInput input) throws IOException {
+    /**
+     * Collects the parts of a streamed file back into a {@link BlotterFile}, checking that every component's parent
+     * appeared before it. Feed it to {@link BlotterReader#read} or any other source of visitor callbacks, then call
+     * {@link #build()}.
+     */
+    public static class Builder implements BlotterVisitor {
+        private byte saveFormatVersion;
+        private Version gameVersion;
+        private boolean isWorld;
+        private final Map<String, Version> mods = new HashMap<>();
+        private String[] componentIDs = new String[0];
+        private ComponentTable components;
+        private Wire[] wires;
+        private int wireIndex;
+        private int circuitStateCount;
+        private BitSet worldCircuitStates;
+        private int[] subassemblyCircuitStates;
+
+        @Override
+        public void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) {
+            this.saveFormatVersion = saveFormatVersion;
+            this.gameVersion = gameVersion;
+            this.isWorld = isWorld;
+            components = new ComponentTable(componentCount);
+            wires = new Wire[wireCount];
+        }
+
+        @Override
+        public void onMod(String name, Version version) {
+            mods.put(name, version);
+        }
+
+        @Override
+        public void onComponentId(int id, String name) {
+            if (id >= componentIDs.length) componentIDs = Arrays.copyOf(componentIDs, id + 1);
+            componentIDs[id] = name;
+        }
+
+        @Override
+        public void onComponent(ComponentView view) {
+            int parentAddress = view.parentAddress();
+            if (parentAddress != 0 && !components.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (components.containsKey(view.address())) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            components.put(view.toComponent());
+        }
+
+        @Override
+        public void onWire(Wire wire) {
+            wires[wireIndex++] = wire;
+        }
+
+        @Override
+        public void onCircuitStates(int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) {
+            this.circuitStateCount = circuitStateCount;
+            this.worldCircuitStates = worldCircuitStates;
+            this.subassemblyCircuitStates = subassemblyCircuitStates;
+        }
+
+        public BlotterFile build() {
+            return new BlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, components, wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+        }
+    }
+
+    public static void readHeader(DataInput input) throws IOException {
+        var header = new byte[DESIRED_HEADER.length];
+        input.readFully(header);
+        if (!Arrays.equals(DESIRED_HEADER, header)) {
+            throw new IllegalArgumentException("Save file header mismatch!");
+        }
+    }
+
+    public static void writeHeader(DataOutput output) throws IOException {
+        output.write(DESIRED_HEADER);
+    }
+
+    public static void writeFooter(DataOutput output) throws IOException {
+        output.write(DESIRED_FOOTER);
+    }
+
+    public static void readFooter(DataInput input) throws IOException {
+        var footer = new byte[DESIRED_FOOTER.length];
+        input.readFully(footer);
+        if (!Arrays.equals(DESIRED_FOOTER, footer)) {
+            throw new IllegalArgumentException("Save file footer mismatch!");
+        }
+    }
+
+    static Map<String, Version> readModVersions(DataInput input) throws IOException {
         int modCount = input.readInt();
         var modMap = new HashMap<String, Version>();
         for (int i = 0; i < modCount; i++) {
@@ -310,7 +518,7 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return modMap;
     }
 
-    private static boolean readWorldBoolean(DataInput input) throws IOException {
+    public static boolean readWorldBoolean(DataInput input) throws IOException {
         return switch (input.readByte()) {
             default -> throw new IllegalArgumentException("Unknown/corrupted save type!");
             case 0x01 -> true;
@@ -318,7 +526,7 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         };
     }
 
-    private static String[] readComponentIDMap(DataInput input) throws IOException {
+    static String[] readComponentIDMap(DataInput input) throws IOException {
         String[] componentIDMap = new String[input.readInt()];
         for (int i = 0; i < componentIDMap.length; i++) {
             var componentID = input.readUnsignedShort();
@@ -329,17 +537,17 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return componentIDMap;
     }
 
-    private static Map<Integer, Component> readComponents(DataInput input, int componentCount) throws IOException {
-        var components = new HashMap<Integer, Component>();
+    static ComponentTable readComponents(DataInput input, int componentCount) throws IOException {
+        var components = new ComponentTable(componentCount);
         for (int i = 1; i < componentCount + 1; i++) {
             var component = Component.deserialize(input, components);
             if (components.containsKey(component.address())) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
-            components.put(component.address(), component);
+            components.put(component);
         }
         return components;
     }
 
-    private static Wire[] readWires(DataInput input, int wireCount) throws IOException {
+    static Wire[] readWires(DataInput input, int wireCount) throws IOException {
         var wires = new Wire[wireCount];
         for (int i = 0; i < wireCount; i++) {
             wires[i] = Wire.deserialize(input);
@@ -347,13 +555,4 @@ public record BlotterFile(byte saveFormatVersion, Version gameVersion, Map<Strin
         return wires;
     }
 
-    private void writeComponentIDMap(DataOutput output) throws IOException {
-        output.writeInt(componentIDs.length);
-        for (int i = 0; i < componentIDs.length; i++) {
-            if (componentIDs[i] == null) throw new IllegalStateException("Component id " + i + " is a null string.");
-            output.writeShort(i);
-            SerializationUtil.serializeString(output, componentIDs[i]);
-        }
-    }
-
 }
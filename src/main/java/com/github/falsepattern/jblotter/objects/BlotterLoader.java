@@ -0,0 +1,278 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads many binary saves concurrently, on a shared, bounded pool of workers.<br>
+ * Every file is read into a recycled heap buffer with a single read, and decoded straight out of it, so loading a small
+ * file doesn't allocate any stream or buffer of its own, nor does it map the file. Component IDs and mod names are
+ * pooled across all loaded files by {@link com.github.falsepattern.jblotter.util.serialization.StringPool#SHARED}.<br>
+ * Loads run on virtual threads when the runtime has them, and on a fixed pool of daemon threads otherwise. Either way,
+ * at most {@code parallelism} files are being read at once, across everything loaded through the same loader.
+ */
+public class BlotterLoader implements AutoCloseable {
+    /**
+     * Buffers larger than this are dropped after use, instead of being kept for the next file.
+     */
+    private static final int MAX_RECYCLED_BUFFER = 1 << 24;
+
+    /**
+     * The outcome of loading a single file. Failing to load a file doesn't stop the others from loading.
+     * @param index The index of the path in the collection that was passed in.
+     * @param file The loaded file, or null if loading failed.
+     * @param error The reason loading failed, or null if it didn't.
+     */
+    public record Result(int index, Path path, BlotterFile file, Exception error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public BlotterLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism The maximum amount of files being loaded at once.
+     */
+    public BlotterLoader(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1!");
+        this.parallelism = parallelism;
+        this.executor = newExecutor(parallelism);
+        this.permits = new Semaphore(parallelism);
+    }
+
+    /**
+     * Virtual threads are only public API from Java 21 on, so they're looked up reflectively. On older runtimes, and on
+     * runtimes that have them as a disabled preview, this falls back to platform threads.
+     */
+    private static ExecutorService newExecutor(int parallelism) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(parallelism, (task) -> {
+                var thread = new Thread(task, "BlotterLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Loads a single file on the calling thread, using a recycled buffer. This doesn't count towards the parallelism.
+     */
+    public BlotterFile load(Path path) throws IOException {
+        var buffer = buffers.poll();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("File " + path + " is too large to be loaded (" + size + " bytes)!");
+            if (buffer == null || buffer.capacity() < size) {
+                int capacity = size > 1 << 30 ? (int) size : Math.max(4096, Integer.highestOneBit((int) Math.max(1, size - 1)) << 1);
+                buffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.clear().limit((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new EOFException("File " + path + " ended while it was being read!");
+            }
+            return BlotterFile.deserialize(new ByteBufferInput(buffer.flip()));
+        } finally {
+            if (buffer != null && buffer.capacity() <= MAX_RECYCLED_BUFFER && buffers.size() < parallelism) buffers.offer(buffer);
+        }
+    }
+
+    private Result loadResult(int index, Path path) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(index, path, null, new InterruptedIOException("Interrupted while waiting to load " + path));
+        }
+        try {
+            return new Result(index, path, load(path), null);
+        } catch (Exception e) {
+            return new Result(index, path, null, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns a publisher that loads the files once it's subscribed to, and publishes the results in the order the
+     * loads finish. Files are only loaded as fast as results are requested: at no point are more files loading or
+     * loaded but not yet delivered than the subscriber has requested, and no more than {@code parallelism} of them are
+     * loading at once for a single subscriber. Every subscriber gets its own, independent loads.
+     */
+    public Flow.Publisher<Result> publish(Collection<Path> paths) {
+        var list = List.copyOf(paths);
+        return (subscriber) -> {
+            var subscription = new LoadSubscription(list, subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.drain();
+        };
+    }
+
+    /**
+     * Loads the files, and hands every result to the callback, as soon as it's loaded. The callback is called from the
+     * workers, but never concurrently. Blocks until every file has been handed to the callback.
+     * @throws RuntimeException If the callback throws, the remaining files aren't loaded, and the exception is rethrown.
+     */
+    public void load(Collection<Path> paths, Consumer<Result> callback) throws InterruptedException {
+        var done = new CountDownLatch(1);
+        var failure = new AtomicReference<Throwable>();
+        publish(paths).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Result item) {
+                try {
+                    callback.accept(item);
+                } catch (Throwable t) {
+                    subscription.cancel();
+                    onError(t);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable);
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        done.await();
+        var t = failure.get();
+        if (t instanceof RuntimeException e) throw e;
+        if (t instanceof Error e) throw e;
+        if (t != null) throw new IllegalStateException(t);
+    }
+
+    /**
+     * Stops accepting new loads. Loads that already started still finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Delivers the results through a queue drained by one thread at a time, so that the subscriber is never called
+     * concurrently, no matter which worker finishes a load.
+     */
+    private final class LoadSubscription implements Flow.Subscription {
+        private final List<Path> paths;
+        private final Flow.Subscriber<? super Result> subscriber;
+        private final ConcurrentLinkedQueue<Result> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile long invalidRequest;
+        /**
+         * Only accessed while draining.
+         */
+        private int started;
+        private int delivered;
+
+        LoadSubscription(List<Path> paths, Flow.Subscriber<? super Result> subscriber) {
+            this.paths = paths;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                requested.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void start(int index) {
+            var path = paths.get(index);
+            try {
+                executor.execute(() -> {
+                    ready.offer(loadResult(index, path));
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                ready.offer(new Result(index, path, null, e));
+                drain();
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                if (cancelled) return;
+                if (invalidRequest != 0) {
+                    cancelled = true;
+                    subscriber.onError(new IllegalArgumentException("Requested a non-positive amount of results: " + invalidRequest));
+                    return;
+                }
+                Result result;
+                while (requested.get() > 0 && (result = ready.poll()) != null) {
+                    if (requested.get() != Long.MAX_VALUE) requested.decrementAndGet();
+                    delivered++;
+                    subscriber.onNext(result);
+                    if (cancelled) return;
+                }
+                if (delivered == paths.size()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                while (started < paths.size() && started - delivered < Math.min(requested.get(), parallelism)) {
+                    start(started++);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
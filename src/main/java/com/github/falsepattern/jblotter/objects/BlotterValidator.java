@@ -0,0 +1,359 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks whether a binary save is well-formed, without deserializing it.<br>
+ * The file is streamed through a small fixed buffer, and nothing but the length fields, addresses, peg counts and
+ * circuit state IDs is decoded. The only thing kept around is a primitive map from each component address to its peg
+ * counts, which is needed for the parent and wire checks, so memory use grows with the component count alone, and not
+ * with pegs, custom data, wires or circuit states.<br>
+ * Faults that leave the rest of the file readable, like a missing parent or a wire to a peg that doesn't exist, are
+ * recorded and validation goes on. Faults that make the rest of the file unreadable, like a negative length or a
+ * truncated file, end the validation. Every fault carries the byte offset of the value it's about.
+ */
+public class BlotterValidator {
+    public static final int MAX_FAULTS = 256;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public enum FaultType {
+        /**
+         * The file can't be read any further, because it ends early, or because a length field is impossible.
+         */
+        STRUCTURE,
+        HEADER,
+        FOOTER,
+        SAVE_FORMAT_VERSION,
+        SAVE_TYPE,
+        /**
+         * Duplicate or out-of-bounds entries in the component ID map.
+         */
+        COMPONENT_ID_MAP,
+        /**
+         * A component with an ID that's not in the component ID map.
+         */
+        COMPONENT_ID,
+        ADDRESS_CONFLICT,
+        /**
+         * A component whose parent doesn't appear before it.
+         */
+        PARENT,
+        /**
+         * A wire connected to a peg that doesn't exist.
+         */
+        PEG_REFERENCE,
+        CIRCUIT_STATE
+    }
+
+    public record Fault(long offset, FaultType type, String message) {
+        @Override
+        public String toString() {
+            return "@" + offset + " " + type + ": " + message;
+        }
+    }
+
+    /**
+     * @param bytesRead The amount of bytes read before the validation ended.
+     * @param faults The faults found, in file order, at most {@link #MAX_FAULTS} of them.
+     * @param omittedFaults The amount of faults found after the limit was reached.
+     */
+    public record Report(long bytesRead, List<Fault> faults, int omittedFaults) {
+        public boolean isValid() {
+            return faults.isEmpty();
+        }
+    }
+
+    private final Input input;
+    private final List<Fault> faults = new ArrayList<>();
+    private int omittedFaults;
+    private final IntLongHashMap pegCounts = new IntLongHashMap();
+    private BitSet componentIDs;
+    private boolean world;
+    private int maxCircuitStateID = -1;
+    private long maxCircuitStateIDOffset;
+
+    private BlotterValidator(ReadableByteChannel channel) {
+        input = new Input(channel);
+    }
+
+    /**
+     * Validates the save read from the channel. The channel is read up to its end, but not closed.
+     * @throws IOException If reading the channel fails. Running out of data is reported as a fault instead.
+     */
+    public static Report validate(ReadableByteChannel channel) throws IOException {
+        var validator = new BlotterValidator(channel);
+        try {
+            validator.validate();
+        } catch (EOFException e) {
+            validator.fault(validator.input.position(), FaultType.STRUCTURE, "Unexpected end of file!");
+        }
+        return new Report(validator.input.position(), Collections.unmodifiableList(validator.faults), validator.omittedFaults);
+    }
+
+    public static Report validate(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return validate(channel);
+        }
+    }
+
+    private void fault(long offset, FaultType type, String message) {
+        if (faults.size() < MAX_FAULTS) {
+            faults.add(new Fault(offset, type, message));
+        } else {
+            omittedFaults++;
+        }
+    }
+
+    private void validate() throws IOException {
+        var magic = new byte[BlotterFile.DESIRED_HEADER.length];
+        input.readFully(magic);
+        if (!Arrays.equals(BlotterFile.DESIRED_HEADER, magic)) {
+            fault(0, FaultType.HEADER, "Save file header mismatch!");
+            return;
+        }
+        long offset = input.position();
+        int saveFormatVersion = input.readByte();
+        if (saveFormatVersion != 0x05) fault(offset, FaultType.SAVE_FORMAT_VERSION, "Unsupported save format version " + saveFormatVersion);
+        input.skip(4 * Integer.BYTES);
+        offset = input.position();
+        switch (input.readByte()) {
+            case 0x01 -> world = true;
+            case 0x02 -> world = false;
+            default -> {
+                fault(offset, FaultType.SAVE_TYPE, "Unknown/corrupted save type!");
+                return;
+            }
+        }
+        int componentCount = readCount("component count");
+        int wireCount = readCount("wire count");
+        if (componentCount < 0 || wireCount < 0) return;
+        int modCount = readCount("mod count");
+        if (modCount < 0) return;
+        for (int i = 0; i < modCount; i++) {
+            if (!skipString("mod name")) return;
+            input.skip(4 * Integer.BYTES);
+        }
+        if (!validateComponentIDMap()) return;
+        for (int i = 0; i < componentCount; i++) {
+            if (!validateComponent()) return;
+        }
+        for (int i = 0; i < wireCount; i++) {
+            validateWire(i);
+        }
+        if (!validateCircuitStates()) return;
+        offset = input.position();
+        input.readFully(magic);
+        if (!Arrays.equals(BlotterFile.DESIRED_FOOTER, magic)) {
+            fault(offset, FaultType.FOOTER, "Save file footer mismatch!");
+        } else if (!input.atEnd()) {
+            fault(input.position(), FaultType.STRUCTURE, "Trailing data after the footer!");
+        }
+    }
+
+    /**
+     * @return The count, or -1 if it's negative, which ends the validation.
+     */
+    private int readCount(String name) throws IOException {
+        long offset = input.position();
+        int count = input.readInt();
+        if (count < 0) {
+            fault(offset, FaultType.STRUCTURE, "Negative " + name + " " + count + "!");
+            return -1;
+        }
+        return count;
+    }
+
+    private boolean skipString(String name) throws IOException {
+        int length = readCount(name + " length");
+        if (length < 0) return false;
+        input.skip(length);
+        return true;
+    }
+
+    private boolean validateComponentIDMap() throws IOException {
+        int count = readCount("component id count");
+        if (count < 0) return false;
+        componentIDs = new BitSet(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            long offset = input.position();
+            int componentID = input.readUnsignedShort();
+            if (componentID >= count) {
+                fault(offset, FaultType.COMPONENT_ID_MAP, "Component id " + componentID + " is out of bounds for component id count " + count + "!");
+            } else if (componentIDs.get(componentID)) {
+                fault(offset, FaultType.COMPONENT_ID_MAP, "Component id conflict for id " + componentID + "!");
+            }
+            componentIDs.set(componentID);
+            if (!skipString("component name")) return false;
+        }
+        return true;
+    }
+
+    private void checkCircuitStateID(long offset, int circuitStateID) {
+        if (circuitStateID < 0) {
+            fault(offset, FaultType.CIRCUIT_STATE, "Negative circuit state ID " + circuitStateID + "!");
+        } else if (circuitStateID > maxCircuitStateID) {
+            maxCircuitStateID = circuitStateID;
+            maxCircuitStateIDOffset = offset;
+        }
+    }
+
+    private boolean validateComponent() throws IOException {
+        long offset = input.position();
+        int address = input.readInt();
+        int parentAddress = input.readInt();
+        long idOffset = input.position();
+        int componentID = input.readUnsignedShort();
+        input.skip(Component.FIXED_HEADER_BYTES - 2 * Integer.BYTES - Short.BYTES);
+        if (!componentIDs.get(componentID)) fault(idOffset, FaultType.COMPONENT_ID, "Component id " + componentID + " is not in the component id map!");
+        if (parentAddress != 0 && !pegCounts.containsKey(parentAddress)) fault(offset + Integer.BYTES, FaultType.PARENT, "Parent component with ID " + Integer.toUnsignedString(parentAddress) + " not found!");
+        int inputCount = readCount("input count");
+        if (inputCount < 0) return false;
+        for (int i = 0; i < inputCount; i++) {
+            checkCircuitStateID(input.position(), input.readInt());
+        }
+        int outputCount = readCount("output count");
+        if (outputCount < 0) return false;
+        for (int i = 0; i < outputCount; i++) {
+            checkCircuitStateID(input.position(), input.readInt());
+        }
+        long dataOffset = input.position();
+        int customDataLength = input.readInt();
+        if (customDataLength < -1) {
+            fault(dataOffset, FaultType.STRUCTURE, "Negative custom data length " + customDataLength + "!");
+            return false;
+        }
+        if (customDataLength > 0) input.skip(customDataLength);
+        if (pegCounts.put(address, (long) inputCount << 32 | outputCount, -1) != -1) {
+            fault(offset, FaultType.ADDRESS_CONFLICT, "Component address conflict for address " + Integer.toUnsignedString(address) + "!");
+        }
+        return true;
+    }
+
+    private void validateWire(int wire) throws IOException {
+        for (int end = 0; end < 2; end++) {
+            long offset = input.position();
+            boolean isInput = input.readByte() != 0;
+            int address = input.readInt();
+            int peg = input.readInt();
+            long counts = pegCounts.get(address, -1);
+            int count = counts == -1 ? 0 : isInput ? (int) (counts >>> 32) : (int) counts;
+            if (peg < 0 || peg >= count) {
+                fault(offset, FaultType.PEG_REFERENCE, "Wire " + wire + " is connected to " + (isInput ? "input " : "output ") + peg + " of component " + Integer.toUnsignedString(address) + ", which does not exist!");
+            }
+        }
+        checkCircuitStateID(input.position(), input.readInt());
+        input.skip(Float.BYTES);
+    }
+
+    private boolean validateCircuitStates() throws IOException {
+        if (world) {
+            int byteCount = readCount("circuit state byte count");
+            if (byteCount < 0) return false;
+            input.skip(byteCount);
+            long stateCount = (long) byteCount * 8;
+            if (maxCircuitStateID >= stateCount) {
+                fault(maxCircuitStateIDOffset, FaultType.CIRCUIT_STATE, "Circuit state ID " + maxCircuitStateID + " is out of bounds for circuit state count " + stateCount + "!");
+            }
+        } else {
+            int count = readCount("circuit state count");
+            if (count < 0) return false;
+            for (int i = 0; i < count; i++) {
+                long offset = input.position();
+                int circuitStateID = input.readInt();
+                if (circuitStateID < 0) fault(offset, FaultType.CIRCUIT_STATE, "Negative circuit state ID " + circuitStateID + "!");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Little-endian reader over a channel that keeps track of its offset in the file.
+     */
+    private static final class Input {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        /**
+         * Offset of the start of the buffer in the file.
+         */
+        private long bufferOffset;
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        long position() {
+            return bufferOffset + buffer.position();
+        }
+
+        /**
+         * Makes sure that at least {@code n} bytes are buffered.
+         * @throws EOFException If the channel ends first. The position stays where it was.
+         */
+        private void require(int n) throws IOException {
+            if (buffer.remaining() >= n) return;
+            bufferOffset += buffer.position();
+            buffer.compact();
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip();
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+        }
+
+        boolean atEnd() throws IOException {
+            try {
+                require(1);
+                return false;
+            } catch (EOFException e) {
+                return true;
+            }
+        }
+
+        int readByte() throws IOException {
+            require(Byte.BYTES);
+            return buffer.get();
+        }
+
+        int readUnsignedShort() throws IOException {
+            require(Short.BYTES);
+            return Short.toUnsignedInt(buffer.getShort());
+        }
+
+        int readInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        void readFully(byte[] b) throws IOException {
+            require(b.length);
+            buffer.get(b);
+        }
+
+        void skip(long n) throws IOException {
+            while (n > 0) {
+                require(1);
+                int step = (int) Math.min(n, buffer.remaining());
+                buffer.position(buffer.position() + step);
+                n -= step;
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.stream.BlotterReader;
+import com.github.falsepattern.jblotter.stream.BlotterVisitor;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.stream.ComponentView;
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Struct-of-arrays version of {@link BlotterFile}.<br>
+ * Instead of a {@link Component} record per component (each with its own vector, quaternion, peg arrays, peg records and
+ * custom data array), every component field is stored in a parallel primitive array, indexed by the component's position
+ * in the file. Positions and rotations are packed as 3 and 4 consecutive floats. Pegs and custom data use CSR-style
+ * layout: the values of component {@code i} live in {@code [offsets[i], offsets[i + 1])} of one shared array.<br>
+ * Conversion to and from {@link BlotterFile} is lossless, and keeps the component order.
+ */
+public class ColumnarBlotterFile {
+    private final byte saveFormatVersion;
+    private final Version gameVersion;
+    private final Map<String, Version> mods;
+    private final boolean isWorld;
+    private final String[] componentIDs;
+    private final int componentCount;
+    private final int[] addresses;
+    private final int[] parentAddresses;
+    private final short[] ids;
+    private final float[] positions;
+    private final float[] rotations;
+    private final int[] inputOffsets;
+    private final int[] inputStates;
+    private final int[] outputOffsets;
+    private final int[] outputStates;
+    private final int[] customDataOffsets;
+    private final byte[] customData;
+    private final Wire[] wires;
+    private final int circuitStateCount;
+    private final BitSet worldCircuitStates;
+    private final int[] subassemblyCircuitStates;
+    private IntLongHashMap addressIndex;
+
+    public ColumnarBlotterFile(byte saveFormatVersion, Version gameVersion, Map<String, Version> mods, boolean isWorld, String[] componentIDs,
+                               int componentCount, int[] addresses, int[] parentAddresses, short[] ids, float[] positions, float[] rotations,
+                               int[] inputOffsets, int[] inputStates, int[] outputOffsets, int[] outputStates, int[] customDataOffsets, byte[] customData,
+                               Wire[] wires, int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) {
+        if (addresses.length < componentCount || parentAddresses.length < componentCount || ids.length < componentCount
+                || positions.length < componentCount * 3 || rotations.length < componentCount * 4
+                || inputOffsets.length < componentCount + 1 || outputOffsets.length < componentCount + 1 || customDataOffsets.length < componentCount + 1) {
+            throw new IllegalArgumentException("Component columns are shorter than the component count!");
+        }
+        this.saveFormatVersion = saveFormatVersion;
+        this.gameVersion = gameVersion;
+        this.mods = mods;
+        this.isWorld = isWorld;
+        this.componentIDs = componentIDs;
+        this.componentCount = componentCount;
+        this.addresses = addresses;
+        this.parentAddresses = parentAddresses;
+        this.ids = ids;
+        this.positions = positions;
+        this.rotations = rotations;
+        this.inputOffsets = inputOffsets;
+        this.inputStates = inputStates;
+        this.outputOffsets = outputOffsets;
+        this.outputStates = outputStates;
+        this.customDataOffsets = customDataOffsets;
+        this.customData = customData;
+        this.wires = wires;
+        this.circuitStateCount = circuitStateCount;
+        this.worldCircuitStates = worldCircuitStates;
+        this.subassemblyCircuitStates = subassemblyCircuitStates;
+    }
+
+    public static ColumnarBlotterFile fromBlotterFile(BlotterFile file) {
+        var builder = new Builder();
+        builder.onHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.getComponentCount(), file.wires().length);
+        int inputCount = 0;
+        int outputCount = 0;
+        int customDataSize = 0;
+        for (var component: file.components().values()) {
+            inputCount += component.inputs().length;
+            outputCount += component.outputs().length;
+            customDataSize += component.customData().length;
+        }
+        builder.reserve(inputCount, outputCount, customDataSize);
+        var view = new ComponentView();
+        for (var component: file.components().values()) {
+            view.set(component);
+            builder.onComponent(view);
+        }
+        return builder.build(new HashMap<>(file.mods()), file.componentIDs().clone(), file.wires().clone(), file.circuitStateCount(),
+                file.worldCircuitStates() == null ? null : (BitSet) file.worldCircuitStates().clone(),
+                file.subassemblyCircuitStates() == null ? null : file.subassemblyCircuitStates().clone());
+    }
+
+    /**
+     * Reads a serialized Blotter file straight into columns, without creating intermediate {@link Component} objects.
+     */
+    public static ColumnarBlotterFile deserialize(DataInput input) throws IOException {
+        var builder = new Builder();
+        BlotterReader.read(input, builder);
+        return builder.build();
+    }
+
+    public BlotterFile toBlotterFile() {
+        var components = new ComponentTable(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            components.put(getComponent(i));
+        }
+        return new BlotterFile(saveFormatVersion, gameVersion, new HashMap<>(mods), isWorld, componentIDs.clone(), components, wires.clone(), circuitStateCount,
+                worldCircuitStates == null ? null : (BitSet) worldCircuitStates.clone(),
+                subassemblyCircuitStates == null ? null : subassemblyCircuitStates.clone());
+    }
+
+    public void serialize(DataOutput output) throws IOException {
+        var writer = new BlotterWriter(output, componentCount, wires.length);
+        writer.writeHeader(saveFormatVersion, gameVersion, isWorld, mods, componentIDs);
+        var view = new ComponentView();
+        for (int i = 0; i < componentCount; i++) {
+            getComponent(i, view);
+            writer.writeComponent(view);
+        }
+        for (var wire: wires) {
+            writer.writeWire(wire);
+        }
+        if (isWorld) {
+            writer.writeCircuitStates(circuitStateCount, worldCircuitStates);
+        } else {
+            writer.writeCircuitStates(subassemblyCircuitStates);
+        }
+        writer.finish();
+    }
+
+    /**
+     * Materializes the component at the given index as a standalone {@link Component}.
+     */
+    public Component getComponent(int index) {
+        var inputs = new Input[inputCount(index)];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new Input(inputStates[inputOffsets[index] + i]);
+        }
+        var outputs = new Output[outputCount(index)];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = new Output(outputStates[outputOffsets[index] + i]);
+        }
+        return new Component(addresses[index], parentAddresses[index], ids[index],
+                new Vector3f(positions[index * 3], positions[index * 3 + 1], positions[index * 3 + 2]),
+                new Quaternionf(rotations[index * 4], rotations[index * 4 + 1], rotations[index * 4 + 2], rotations[index * 4 + 3]),
+                inputs, outputs, Arrays.copyOfRange(customData, customDataOffsets[index], customDataOffsets[index + 1]));
+    }
+
+    /**
+     * Loads the component at the given index into a reusable view, without allocating.
+     */
+    public void getComponent(int index, ComponentView view) {
+        view.set(addresses[index], parentAddresses[index], ids[index]);
+        view.localPosition().set(positions[index * 3], positions[index * 3 + 1], positions[index * 3 + 2]);
+        view.localRotation().set(rotations[index * 4], rotations[index * 4 + 1], rotations[index * 4 + 2], rotations[index * 4 + 3]);
+        view.setInputCount(inputCount(index));
+        for (int i = 0; i < view.inputCount(); i++) {
+            view.setInputCircuitStateID(i, inputStates[inputOffsets[index] + i]);
+        }
+        view.setOutputCount(outputCount(index));
+        for (int i = 0; i < view.outputCount(); i++) {
+            view.setOutputCircuitStateID(i, outputStates[outputOffsets[index] + i]);
+        }
+        view.setCustomData(customData, customDataOffsets[index], customDataOffsets[index + 1] - customDataOffsets[index]);
+    }
+
+    /**
+     * @return The index of the component with the given address, or -1 if there's no such component.
+     */
+    public int indexOf(int address) {
+        var index = addressIndex;
+        if (index == null) {
+            index = new IntLongHashMap(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                index.put(addresses[i], i, -1);
+            }
+            addressIndex = index;
+        }
+        return (int) index.get(address, -1);
+    }
+
+    public int inputCount(int index) {
+        return inputOffsets[index + 1] - inputOffsets[index];
+    }
+
+    public int outputCount(int index) {
+        return outputOffsets[index + 1] - outputOffsets[index];
+    }
+
+    public int customDataLength(int index) {
+        return customDataOffsets[index + 1] - customDataOffsets[index];
+    }
+
+    public byte saveFormatVersion() {
+        return saveFormatVersion;
+    }
+
+    public Version gameVersion() {
+        return gameVersion;
+    }
+
+    public Map<String, Version> mods() {
+        return mods;
+    }
+
+    public boolean isWorld() {
+        return isWorld;
+    }
+
+    public String[] componentIDs() {
+        return componentIDs;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int[] addresses() {
+        return addresses;
+    }
+
+    public int[] parentAddresses() {
+        return parentAddresses;
+    }
+
+    public short[] ids() {
+        return ids;
+    }
+
+    /**
+     * @return The local positions of the components, packed as {@code x, y, z} triplets.
+     */
+    public float[] positions() {
+        return positions;
+    }
+
+    /**
+     * @return The local rotations of the components, packed as {@code x, y, z, w} quadruplets.
+     */
+    public float[] rotations() {
+        return rotations;
+    }
+
+    public int[] inputOffsets() {
+        return inputOffsets;
+    }
+
+    public int[] inputStates() {
+        return inputStates;
+    }
+
+    public int[] outputOffsets() {
+        return outputOffsets;
+    }
+
+    public int[] outputStates() {
+        return outputStates;
+    }
+
+    public int[] customDataOffsets() {
+        return customDataOffsets;
+    }
+
+    public byte[] customData() {
+        return customData;
+    }
+
+    public Wire[] wires() {
+        return wires;
+    }
+
+    public int circuitStateCount() {
+        return circuitStateCount;
+    }
+
+    public BitSet worldCircuitStates() {
+        return worldCircuitStates;
+    }
+
+    public int[] subassemblyCircuitStates() {
+        return subassemblyCircuitStates;
+    }
+
+    /**
+     * Appends streamed components to growable columns, checking that every component's parent appeared before it.
+     */
+    private static class Builder implements BlotterVisitor {
+        private byte saveFormatVersion;
+        private Version gameVersion;
+        private boolean isWorld;
+        private final Map<String, Version> mods = new HashMap<>();
+        private String[] componentIDs = new String[0];
+        private int componentCount;
+        private int[] addresses;
+        private int[] parentAddresses;
+        private short[] ids;
+        private float[] positions;
+        private float[] rotations;
+        private int[] inputOffsets;
+        private int[] inputStates = new int[0];
+        private int[] outputOffsets;
+        private int[] outputStates = new int[0];
+        private int[] customDataOffsets;
+        private byte[] customData = new byte[0];
+        private IntLongHashMap seenAddresses;
+        private Wire[] wires;
+        private int wireIndex;
+        private int circuitStateCount;
+        private BitSet worldCircuitStates;
+        private int[] subassemblyCircuitStates;
+
+        @Override
+        public void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) {
+            this.saveFormatVersion = saveFormatVersion;
+            this.gameVersion = gameVersion;
+            this.isWorld = isWorld;
+            addresses = new int[componentCount];
+            parentAddresses = new int[componentCount];
+            ids = new short[componentCount];
+            positions = new float[componentCount * 3];
+            rotations = new float[componentCount * 4];
+            inputOffsets = new int[componentCount + 1];
+            outputOffsets = new int[componentCount + 1];
+            customDataOffsets = new int[componentCount + 1];
+            seenAddresses = new IntLongHashMap(componentCount);
+            wires = new Wire[wireCount];
+        }
+
+        void reserve(int inputCount, int outputCount, int customDataSize) {
+            inputStates = new int[inputCount];
+            outputStates = new int[outputCount];
+            customData = new byte[customDataSize];
+        }
+
+        @Override
+        public void onMod(String name, Version version) {
+            mods.put(name, version);
+        }
+
+        @Override
+        public void onComponentId(int id, String name) {
+            if (id >= componentIDs.length) componentIDs = Arrays.copyOf(componentIDs, id + 1);
+            componentIDs[id] = name;
+        }
+
+        private static int grow(int length, int required) {
+            return Math.max(required, length + (length >> 1) + 16);
+        }
+
+        @Override
+        public void onComponent(ComponentView view) {
+            int i = componentCount;
+            int parentAddress = view.parentAddress();
+            if (parentAddress != 0 && !seenAddresses.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (seenAddresses.put(view.address(), i, -1) != -1) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            addresses[i] = view.address();
+            parentAddresses[i] = parentAddress;
+            ids[i] = view.componentID();
+            var position = view.localPosition();
+            positions[i * 3] = position.x;
+            positions[i * 3 + 1] = position.y;
+            positions[i * 3 + 2] = position.z;
+            var rotation = view.localRotation();
+            rotations[i * 4] = rotation.x;
+            rotations[i * 4 + 1] = rotation.y;
+            rotations[i * 4 + 2] = rotation.z;
+            rotations[i * 4 + 3] = rotation.w;
+            int inputStart = inputOffsets[i];
+            int inputEnd = inputStart + view.inputCount();
+            if (inputEnd > inputStates.length) inputStates = Arrays.copyOf(inputStates, grow(inputStates.length, inputEnd));
+            for (int j = 0; j < view.inputCount(); j++) {
+                inputStates[inputStart + j] = view.inputCircuitStateID(j);
+            }
+            inputOffsets[i + 1] = inputEnd;
+            int outputStart = outputOffsets[i];
+            int outputEnd = outputStart + view.outputCount();
+            if (outputEnd > outputStates.length) outputStates = Arrays.copyOf(outputStates, grow(outputStates.length, outputEnd));
+            for (int j = 0; j < view.outputCount(); j++) {
+                outputStates[outputStart + j] = view.outputCircuitStateID(j);
+            }
+            outputOffsets[i + 1] = outputEnd;
+            int customDataStart = customDataOffsets[i];
+            int customDataEnd = customDataStart + view.customDataLength();
+            if (customDataEnd > customData.length) customData = Arrays.copyOf(customData, grow(customData.length, customDataEnd));
+            System.arraycopy(view.customData(), 0, customData, customDataStart, view.customDataLength());
+            customDataOffsets[i + 1] = customDataEnd;
+            componentCount++;
+        }
+
+        @Override
+        public void onWire(Wire wire) {
+            wires[wireIndex++] = wire;
+        }
+
+        @Override
+        public void onCircuitStates(int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) {
+            this.circuitStateCount = circuitStateCount;
+            this.worldCircuitStates = worldCircuitStates;
+            this.subassemblyCircuitStates = subassemblyCircuitStates;
+        }
+
+        private static int[] trim(int[] array, int length) {
+            return array.length == length ? array : Arrays.copyOf(array, length);
+        }
+
+        private static byte[] trim(byte[] array, int length) {
+            return array.length == length ? array : Arrays.copyOf(array, length);
+        }
+
+        ColumnarBlotterFile build() {
+            return build(mods, componentIDs, wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+        }
+
+        ColumnarBlotterFile build(Map<String, Version> mods, String[] componentIDs, Wire[] wires, int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) {
+            var file = new ColumnarBlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, componentCount, addresses, parentAddresses, ids, positions, rotations,
+                    inputOffsets, trim(inputStates, inputOffsets[componentCount]), outputOffsets, trim(outputStates, outputOffsets[componentCount]),
+                    customDataOffsets, trim(customData, customDataOffsets[componentCount]), wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+            file.addressIndex = seenAddresses;
+            return file;
+        }
+    }
+}
@@ -0,0 +1,695 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferOutput;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * A save that's edited through an append-only journal, instead of being rewritten after every edit.<br>
+ * The save is kept in memory, and every edit is applied to it and appended to a journal file next to the base save
+ * ({@code <base>.journal}), so the cost of an edit doesn't depend on the size of the save. Appends are made durable in
+ * batches: the journal is synced at most every {@code syncIntervalMillis} by a background thread, or after every edit
+ * if that's 0, or whenever {@link #sync()} is called. Opening the save reads the base and replays the journal over it.
+ * A torn record at the end of the journal, left over by a crash in the middle of an append, is dropped.<br>
+ * Once the journal grows past {@code compactionThreshold} bytes, the background thread folds it into a fresh base save.
+ * Edits are only blocked while the state is copied and while the files are swapped, not while the new base is written.
+ * The journal starts with the length and CRC32C of the base it belongs to, so a journal whose base was already replaced
+ * by a compaction is recognized and discarded.<br>
+ * Wires are identified by their two points, so adding a wire between two points that are already connected replaces
+ * the existing wire. Components can only be removed once they have no children and no wires left.
+ */
+public class JournaledBlotterFile implements AutoCloseable {
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+    private static final int MAGIC = 0x4C4E4A42; // "BJNL"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 4;
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+
+    private static final byte ADD_COMPONENT_ID = 1;
+    private static final byte ADD_COMPONENT = 2;
+    private static final byte REMOVE_COMPONENT = 3;
+    private static final byte MOVE_COMPONENT = 4;
+    private static final byte ADD_WIRE = 5;
+    private static final byte REMOVE_WIRE = 6;
+    private static final byte SET_CIRCUIT_STATE = 7;
+
+    private record WirePoints(PegAddress firstPoint, PegAddress secondPoint) {
+    }
+
+    private final Path basePath;
+    private final Path journalPath;
+    private final long syncIntervalMillis;
+    private final long compactionThreshold;
+    private final ScheduledExecutorService background;
+
+    private final byte saveFormatVersion;
+    private final Version gameVersion;
+    private final Map<String, Version> mods;
+    private final boolean isWorld;
+    private final List<String> componentIDs;
+    private final Map<String, Integer> componentIDIndices = new HashMap<>();
+    private final ComponentTable components;
+    private final IntLongHashMap childCounts;
+    private final IntLongHashMap wireEndCounts;
+    private final LinkedHashMap<WirePoints, Wire> wires;
+    private final BitSet circuitStates;
+    private int circuitStateCount;
+
+    private ByteBufferOutput record;
+    private FileChannel journal;
+    private long journalSize;
+    private boolean dirty;
+    /**
+     * The records appended while a compaction is writing the new base, which go into the journal of the new base.
+     */
+    private ByteBufferOutput pending;
+    /**
+     * A failed sync, compaction or append, after which the journal can't be trusted to hold every edit anymore.
+     */
+    private IOException backgroundFailure;
+    private boolean closed;
+
+    private JournaledBlotterFile(Path basePath, long syncIntervalMillis, long compactionThreshold, BlotterFile base) {
+        this.basePath = basePath;
+        this.journalPath = journalPath(basePath);
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.compactionThreshold = compactionThreshold;
+        saveFormatVersion = base.saveFormatVersion();
+        gameVersion = base.gameVersion();
+        mods = new HashMap<>(base.mods());
+        isWorld = base.isWorld();
+        componentIDs = new ArrayList<>(Arrays.asList(base.componentIDs()));
+        for (int i = 0; i < componentIDs.size(); i++) {
+            componentIDIndices.putIfAbsent(componentIDs.get(i), i);
+        }
+        components = new ComponentTable(base.components());
+        childCounts = new IntLongHashMap(components.size());
+        for (var component: components.values()) {
+            if (component.parentAddress() != 0) childCounts.put(component.parentAddress(), childCounts.get(component.parentAddress(), 0) + 1, 0);
+        }
+        wireEndCounts = new IntLongHashMap(components.size());
+        wires = new LinkedHashMap<>(base.wires().length * 2);
+        for (var wire: base.wires()) {
+            putWire(wire);
+        }
+        if (isWorld) {
+            circuitStates = (BitSet) base.worldCircuitStates().clone();
+            circuitStateCount = base.circuitStateCount();
+        } else {
+            circuitStates = new BitSet();
+            for (int state: base.subassemblyCircuitStates()) {
+                circuitStates.set(state);
+            }
+        }
+        background = Executors.newSingleThreadScheduledExecutor((task) -> {
+            var thread = new Thread(task, "JournaledBlotterFile " + basePath.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Path journalPath(Path basePath) {
+        return basePath.resolveSibling(basePath.getFileName() + ".journal");
+    }
+
+    private static Path siblingPath(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    public static JournaledBlotterFile open(Path basePath) throws IOException {
+        return open(basePath, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the save at the path, replaying its journal if it has one, and creating one if it doesn't.
+     * @param syncIntervalMillis The longest time an appended edit can go without being synced to disk, or 0 to sync
+     *                           after every edit.
+     * @param compactionThreshold The journal size in bytes past which it's folded into the base.
+     */
+    public static JournaledBlotterFile open(Path basePath, long syncIntervalMillis, long compactionThreshold) throws IOException {
+        if (syncIntervalMillis < 0) throw new IllegalArgumentException("Sync interval cannot be negative!");
+        var baseBuffer = SerializationUtil.mapFile(basePath);
+        long baseLength = baseBuffer.remaining();
+        var crc = new CRC32C();
+        crc.update(baseBuffer.duplicate());
+        int baseCrc = (int) crc.getValue();
+        var file = new JournaledBlotterFile(basePath, syncIntervalMillis, compactionThreshold, BlotterFile.deserialize(new ByteBufferInput(baseBuffer)));
+        // The background thread is already running, and the caller never gets a handle to close it if opening fails
+        try {
+            var journalPath = file.journalPath;
+            // A compaction that crashed after replacing the base leaves the journal of the new base next to the old journal
+            var nextJournalPath = siblingPath(journalPath, ".next");
+            if (Files.exists(nextJournalPath)) {
+                if (matchesBase(nextJournalPath, baseLength, baseCrc)) {
+                    Files.move(nextJournalPath, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(nextJournalPath);
+                }
+            }
+            Files.deleteIfExists(siblingPath(basePath, ".compacting"));
+            if (Files.exists(journalPath) && matchesBase(journalPath, baseLength, baseCrc)) {
+                file.journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                file.journalSize = file.replay();
+            } else {
+                writeJournal(journalPath, baseLength, baseCrc, null);
+                file.journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                file.journalSize = HEADER_BYTES;
+            }
+            file.journal.position(file.journalSize);
+            if (syncIntervalMillis > 0) {
+                file.background.scheduleWithFixedDelay(file::backgroundSync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.discard(e);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Releases the journal and the background thread of a file that failed to open.
+     */
+    private void discard(Exception failure) {
+        background.shutdownNow();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static boolean matchesBase(Path journalPath, long baseLength, int baseCrc) throws IOException {
+        try (var channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) return false;
+            }
+            header.flip();
+            return header.getInt() == MAGIC && header.get() == FORMAT_VERSION && header.getLong() == baseLength && header.getInt() == baseCrc;
+        }
+    }
+
+    /**
+     * Writes a journal header, followed by the records, syncing it before returning.
+     */
+    private static void writeJournal(Path path, long baseLength, int baseCrc, ByteBuffer records) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).put(FORMAT_VERSION).putLong(baseLength).putInt(baseCrc).flip();
+            writeFully(channel, header);
+            if (records != null) writeFully(channel, records);
+            channel.force(true);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Applies every intact record of the journal, and cuts off a torn record at the end, if there is one.
+     * @return The size of the intact part of the journal.
+     */
+    private long replay() throws IOException {
+        long size = journal.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("Journal " + journalPath + " is too large to be replayed (" + size + " bytes)!");
+        var buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        journal.position(0);
+        while (buffer.hasRemaining()) {
+            if (journal.read(buffer) < 0) break;
+        }
+        buffer.flip().position(HEADER_BYTES);
+        var crc = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 1 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            var payload = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            apply(new ByteBufferInput(payload));
+            buffer.position(buffer.position() + length);
+        }
+        if (buffer.position() < size) {
+            journal.truncate(buffer.position());
+            journal.force(true);
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Applies a single record, without journaling it.
+     */
+    private void apply(ByteBufferInput input) throws IOException {
+        switch (input.readByte()) {
+            case ADD_COMPONENT_ID -> applyAddComponentID(SerializationUtil.deserializeString(input));
+            case ADD_COMPONENT -> applyAddComponent(Component.deserialize(input));
+            case REMOVE_COMPONENT -> applyRemoveComponent(input.readInt());
+            case MOVE_COMPONENT -> applyMoveComponent(input.readInt(), input.readInt(), SerializationUtil.deserializeVector3f(input), SerializationUtil.deserializeQuaternionf(input));
+            case ADD_WIRE -> applyAddWire(Wire.deserialize(input));
+            case REMOVE_WIRE -> applyRemoveWire(PegAddress.deserialize(input), PegAddress.deserialize(input));
+            case SET_CIRCUIT_STATE -> applySetCircuitState(input.readInt(), input.readBoolean());
+            default -> throw new IllegalArgumentException("Unknown/corrupted journal record!");
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) throw new IOException("Journaled save " + basePath + " is closed!");
+        if (backgroundFailure != null) throw new IOException("Journaled save " + basePath + " can no longer be journaled!", backgroundFailure);
+    }
+
+    /**
+     * Starts a record. The operation is checked and applied before the record is started, so a failed edit doesn't
+     * leave anything in the journal.
+     */
+    private ByteBufferOutput startRecord(byte operation) {
+        record = new ByteBufferOutput(128);
+        record.writeLong(0);
+        record.writeByte(operation);
+        return record;
+    }
+
+    private void commitRecord() throws IOException {
+        var framed = record.toByteBuffer();
+        record = null;
+        int length = framed.limit() - RECORD_HEADER_BYTES;
+        var crc = new CRC32C();
+        crc.update(framed.slice(RECORD_HEADER_BYTES, length));
+        framed.putInt(0, length).putInt(4, (int) crc.getValue());
+        if (pending != null) pending.write(framed.array(), 0, framed.limit());
+        try {
+            writeFully(journal, framed);
+            journalSize += framed.limit();
+            if (syncIntervalMillis == 0) {
+                journal.force(false);
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            // The edit was already applied in memory, so the journal no longer matches it
+            backgroundFailure = e;
+            throw e;
+        }
+        if (journalSize > compactionThreshold && pending == null && !background.isShutdown()) {
+            pending = new ByteBufferOutput(4096);
+            var snapshot = snapshot();
+            background.execute(() -> {
+                try {
+                    compact(snapshot);
+                } catch (IOException e) {
+                    synchronized (this) {
+                        if (backgroundFailure == null) backgroundFailure = e;
+                    }
+                }
+            });
+        }
+    }
+
+    private void backgroundSync() {
+        FileChannel channel;
+        synchronized (this) {
+            if (!dirty || closed) return;
+            dirty = false;
+            channel = journal;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Replaced by a compaction, which synced everything it carried over
+        } catch (IOException e) {
+            synchronized (this) {
+                if (backgroundFailure == null) backgroundFailure = e;
+            }
+        }
+    }
+
+    /**
+     * @return The index of the component ID, adding it to the component ID map if it's not there yet.
+     */
+    public synchronized int componentID(String name) throws IOException {
+        checkOpen();
+        var index = componentIDIndices.get(name);
+        if (index != null) return index;
+        index = applyAddComponentID(name);
+        SerializationUtil.serializeString(startRecord(ADD_COMPONENT_ID), name);
+        commitRecord();
+        return index;
+    }
+
+    private int applyAddComponentID(String name) {
+        if (componentIDs.size() > 0xFFFF) throw new IllegalStateException("Component ID map is full!");
+        int index = componentIDs.size();
+        componentIDs.add(name);
+        componentIDIndices.putIfAbsent(name, index);
+        return index;
+    }
+
+    public synchronized void addComponent(Component component) throws IOException {
+        checkOpen();
+        applyAddComponent(component);
+        component.serialize(startRecord(ADD_COMPONENT));
+        commitRecord();
+    }
+
+    private void applyAddComponent(Component component) {
+        int address = component.address();
+        int parentAddress = component.parentAddress();
+        if (address == 0) throw new IllegalArgumentException("Component address 0 is reserved for the root!");
+        if (components.containsKey(address)) throw new IllegalArgumentException("Component address conflict for address " + Integer.toUnsignedString(address) + "!");
+        if (parentAddress != 0 && !components.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + Integer.toUnsignedString(parentAddress) + " not found!");
+        if (Short.toUnsignedInt(component.componentID()) >= componentIDs.size()) throw new IllegalArgumentException("Component id " + Short.toUnsignedInt(component.componentID()) + " is not in the component id map!");
+        components.put(component);
+        if (parentAddress != 0) childCounts.put(parentAddress, childCounts.get(parentAddress, 0) + 1, 0);
+    }
+
+    public synchronized void removeComponent(int address) throws IOException {
+        checkOpen();
+        applyRemoveComponent(address);
+        startRecord(REMOVE_COMPONENT).writeInt(address);
+        commitRecord();
+    }
+
+    private void applyRemoveComponent(int address) {
+        var component = components.get(address);
+        if (component == null) throw new IllegalArgumentException("Component with ID " + Integer.toUnsignedString(address) + " not found!");
+        if (childCounts.get(address, 0) != 0) throw new IllegalStateException("Component with ID " + Integer.toUnsignedString(address) + " still has children!");
+        if (wireEndCounts.get(address, 0) != 0) throw new IllegalStateException("Component with ID " + Integer.toUnsignedString(address) + " still has wires!");
+        components.remove(address);
+        childCounts.remove(address, 0);
+        wireEndCounts.remove(address, 0);
+        int parentAddress = component.parentAddress();
+        if (parentAddress != 0) {
+            long children = childCounts.get(parentAddress, 0) - 1;
+            if (children == 0) {
+                childCounts.remove(parentAddress, 0);
+            } else {
+                childCounts.put(parentAddress, children, 0);
+            }
+        }
+    }
+
+    /**
+     * Moves the component to a new parent and transform. The parent can be the same as the current one.
+     */
+    public synchronized void moveComponent(int address, int parentAddress, Vector3f localPosition, Quaternionf localRotation) throws IOException {
+        checkOpen();
+        applyMoveComponent(address, parentAddress, localPosition, localRotation);
+        var output = startRecord(MOVE_COMPONENT);
+        output.writeInt(address);
+        output.writeInt(parentAddress);
+        SerializationUtil.serializeVector3f(output, localPosition);
+        SerializationUtil.serializeQuaternionf(output, localRotation);
+        commitRecord();
+    }
+
+    private void applyMoveComponent(int address, int parentAddress, Vector3f localPosition, Quaternionf localRotation) {
+        var component = components.get(address);
+        if (component == null) throw new IllegalArgumentException("Component with ID " + Integer.toUnsignedString(address) + " not found!");
+        for (int ancestor = parentAddress; ancestor != 0; ancestor = components.get(ancestor).parentAddress()) {
+            if (!components.containsKey(ancestor)) throw new IllegalArgumentException("Parent component with ID " + Integer.toUnsignedString(ancestor) + " not found!");
+            if (ancestor == address) throw new IllegalArgumentException("Component with ID " + Integer.toUnsignedString(address) + " cannot be moved into itself!");
+        }
+        int oldParent = component.parentAddress();
+        if (oldParent != parentAddress) {
+            if (oldParent != 0) {
+                long children = childCounts.get(oldParent, 0) - 1;
+                if (children == 0) {
+                    childCounts.remove(oldParent, 0);
+                } else {
+                    childCounts.put(oldParent, children, 0);
+                }
+            }
+            if (parentAddress != 0) childCounts.put(parentAddress, childCounts.get(parentAddress, 0) + 1, 0);
+        }
+        components.put(new Component(address, parentAddress, component.componentID(), new Vector3f(localPosition), new Quaternionf(localRotation), component.inputs(), component.outputs(), component.customData()));
+    }
+
+    /**
+     * Connects two pegs, replacing the wire between them if there already is one.
+     */
+    public synchronized void addWire(Wire wire) throws IOException {
+        checkOpen();
+        applyAddWire(wire);
+        wire.serialize(startRecord(ADD_WIRE));
+        commitRecord();
+    }
+
+    private void checkPeg(PegAddress point) {
+        var component = components.get(point.componentAddress());
+        int pegCount = component == null ? 0 : point.input() ? component.inputs().length : component.outputs().length;
+        if (point.pegIndex() < 0 || point.pegIndex() >= pegCount) {
+            throw new IllegalArgumentException((point.input() ? "Input " : "Output ") + point.pegIndex() + " of component " + Integer.toUnsignedString(point.componentAddress()) + " does not exist!");
+        }
+    }
+
+    private void applyAddWire(Wire wire) {
+        checkPeg(wire.firstPoint());
+        checkPeg(wire.secondPoint());
+        if (wire.circuitStateID() < 0) throw new IllegalArgumentException("Negative circuit state ID " + wire.circuitStateID() + "!");
+        putWire(wire);
+    }
+
+    private void putWire(Wire wire) {
+        if (wires.put(new WirePoints(wire.firstPoint(), wire.secondPoint()), wire) == null) {
+            countWireEnd(wire.firstPoint().componentAddress(), 1);
+            countWireEnd(wire.secondPoint().componentAddress(), 1);
+        }
+    }
+
+    private void countWireEnd(int address, int delta) {
+        long count = wireEndCounts.get(address, 0) + delta;
+        if (count == 0) {
+            wireEndCounts.remove(address, 0);
+        } else {
+            wireEndCounts.put(address, count, 0);
+        }
+    }
+
+    public synchronized void removeWire(PegAddress firstPoint, PegAddress secondPoint) throws IOException {
+        checkOpen();
+        applyRemoveWire(firstPoint, secondPoint);
+        var output = startRecord(REMOVE_WIRE);
+        firstPoint.serialize(output);
+        secondPoint.serialize(output);
+        commitRecord();
+    }
+
+    private void applyRemoveWire(PegAddress firstPoint, PegAddress secondPoint) {
+        if (wires.remove(new WirePoints(firstPoint, secondPoint)) == null) throw new IllegalArgumentException("Wire between " + firstPoint + " and " + secondPoint + " not found!");
+        countWireEnd(firstPoint.componentAddress(), -1);
+        countWireEnd(secondPoint.componentAddress(), -1);
+    }
+
+    public synchronized void setCircuitState(int circuitStateID, boolean powered) throws IOException {
+        checkOpen();
+        applySetCircuitState(circuitStateID, powered);
+        var output = startRecord(SET_CIRCUIT_STATE);
+        output.writeInt(circuitStateID);
+        output.writeBoolean(powered);
+        commitRecord();
+    }
+
+    private void applySetCircuitState(int circuitStateID, boolean powered) {
+        if (circuitStateID < 0) throw new IllegalArgumentException("Negative circuit state ID " + circuitStateID + "!");
+        circuitStates.set(circuitStateID, powered);
+        if (isWorld && circuitStateID >= circuitStateCount) circuitStateCount = circuitStateID + 1;
+    }
+
+    /**
+     * @return A copy of the current state of the save. Components are ordered parents first, even if a component was
+     * moved under a parent that was added after it.
+     */
+    public synchronized BlotterFile snapshot() {
+        var ordered = new ComponentTable(components.size());
+        var waiting = new HashMap<Integer, List<Component>>();
+        for (var component: components.values()) {
+            int parentAddress = component.parentAddress();
+            if (parentAddress != 0 && !ordered.containsKey(parentAddress)) {
+                waiting.computeIfAbsent(parentAddress, (key) -> new ArrayList<>()).add(component);
+                continue;
+            }
+            ordered.put(component);
+            if (waiting.isEmpty()) continue;
+            var ready = new ArrayList<Component>();
+            ready.add(component);
+            while (!ready.isEmpty()) {
+                var children = waiting.remove(ready.remove(ready.size() - 1).address());
+                if (children == null) continue;
+                for (var child: children) {
+                    ordered.put(child);
+                    ready.add(child);
+                }
+            }
+        }
+        var wireArray = wires.values().toArray(new Wire[0]);
+        var idArray = componentIDs.toArray(new String[0]);
+        if (isWorld) {
+            return new BlotterFile(saveFormatVersion, gameVersion, new HashMap<>(mods), true, idArray, ordered, wireArray, circuitStateCount, (BitSet) circuitStates.clone(), null);
+        } else {
+            var states = circuitStates.stream().toArray();
+            return new BlotterFile(saveFormatVersion, gameVersion, new HashMap<>(mods), false, idArray, ordered, wireArray, states.length, null, states);
+        }
+    }
+
+    public synchronized long journalSize() {
+        return journalSize;
+    }
+
+    /**
+     * Syncs every edit made so far to disk.
+     */
+    public void sync() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            checkOpen();
+            dirty = false;
+            channel = journal;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Replaced by a compaction, which synced everything it carried over
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh base right away, and waits for it to finish.
+     */
+    public void compact() throws IOException {
+        BlotterFile snapshot;
+        synchronized (this) {
+            checkOpen();
+            if (pending != null) throw new IllegalStateException("A compaction is already running!");
+            pending = new ByteBufferOutput(4096);
+            snapshot = snapshot();
+        }
+        compact(snapshot);
+    }
+
+    /**
+     * Waits for a running compaction, started in the background or by another thread, to finish.
+     * @throws IOException If the compaction failed, or the file was closed.
+     */
+    public synchronized void awaitCompaction() throws IOException {
+        while (pending != null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the compaction of " + basePath);
+            }
+        }
+        checkOpen();
+    }
+
+    /**
+     * Writes the snapshot as the new base, then swaps in a journal holding the edits made since the snapshot.
+     */
+    private void compact(BlotterFile snapshot) throws IOException {
+        var temporaryBase = siblingPath(basePath, ".compacting");
+        try {
+            try (var channel = FileChannel.open(temporaryBase, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var output = new EndianOutputStream(Channels.newOutputStream(channel), true);
+                snapshot.serialize(output);
+                output.flush();
+                channel.force(true);
+            }
+            var baseBuffer = SerializationUtil.mapFile(temporaryBase);
+            long baseLength = baseBuffer.remaining();
+            var crc = new CRC32C();
+            crc.update(baseBuffer);
+            int baseCrc = (int) crc.getValue();
+            synchronized (this) {
+                if (closed) return;
+                var nextJournal = siblingPath(journalPath, ".next");
+                var records = pending.toByteBuffer();
+                writeJournal(nextJournal, baseLength, baseCrc, records);
+                Files.move(temporaryBase, basePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(nextJournal, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                journal.close();
+                journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                journalSize = HEADER_BYTES + records.limit();
+                journal.position(journalSize);
+                dirty = false;
+            }
+        } finally {
+            synchronized (this) {
+                pending = null;
+                notifyAll();
+            }
+            Files.deleteIfExists(temporaryBase);
+        }
+    }
+
+    /**
+     * Lets a running background compaction finish, then syncs the journal and stops the background thread. No new
+     * compaction is started.
+     * @throws InterruptedIOException If interrupted while waiting for the compaction. The file is left open, so closing
+     * it can be retried.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+        }
+        // The compaction drops its work if the file is already closed, and writes to the journal, so it has to finish
+        // before the journal is closed, however long it takes
+        background.shutdown();
+        try {
+            background.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compaction of " + basePath);
+        }
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            journal.force(false);
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,755 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+import com.github.falsepattern.jblotter.util.SignalGraph;
+import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import com.github.falsepattern.jblotter.util.serialization.StringPool;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a json save straight from a token stream, validating and building the model in a single pass, without a node
+ * tree in between.<br>
+ * Whether the save is edit-friendly, and whether it's a world, is only known once the whole object was read, as the
+ * fields can come in any order. The parts that differ between the formats are therefore checked against every format
+ * at once, only remembering the first fault of each, and the one matching the actual format is thrown at the end.
+ * Component IDs given as names are numbered in order of first appearance, and output power is kept in a bitset until
+ * the circuit states are solved, exactly like the tree-based path.<br>
+ * The error messages, including the chain of causes, are the same as the ones produced by the {@link
+ * com.github.falsepattern.jblotter.util.json.rule.NodeRule} checks. If a document has more than one fault, the one
+ * reported may differ, as the rules check the fields in a different order.
+ */
+final class JsonSaveReader {
+    private static final long UNSIGNED_BYTE = 0xff;
+    private static final long UNSIGNED_SHORT = 0xffff;
+    private static final long UNSIGNED_INT = 0xffffffffL;
+    private static final long POSITIVE_SIGNED_INT = Integer.MAX_VALUE;
+
+    private final JsonParser parser;
+    private int saveFormatVersion = -1;
+    private Version gameVersion;
+    private Map<String, Version> mods;
+    private int saveType = -1;
+    private JsonToken editFriendly;
+    /**
+     * The first top-level field that is not allowed in edit-friendly saves.
+     */
+    private String extraneousField;
+    private String[] componentIDs;
+    private List<Component> components;
+    private List<Wire> wires;
+    private int circuitStateCount = -1;
+    private BitSet worldStates;
+    private int[] subassemblyStates;
+
+    private final Map<String, Integer> componentNames = new HashMap<>();
+    private final BitSet poweredOutputs = new BitSet();
+    private int outputCount;
+    private int[] pegScratch = new int[16];
+    private byte[] byteScratch = new byte[64];
+
+    private JsonParseException standardFault;
+    private JsonParseException editableFault;
+    private JsonParseException worldFault;
+    private JsonParseException subassemblyFault;
+
+    private JsonSaveReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    static BlotterFile read(JsonParser parser) throws IOException, JsonParseException {
+        if (parser.currentToken() == null) parser.nextToken();
+        return new JsonSaveReader(parser).readFile();
+    }
+
+    private static String typeName(JsonToken token) {
+        if (token == null) return "MISSING";
+        return switch (token) {
+            case START_OBJECT -> "OBJECT";
+            case START_ARRAY -> "ARRAY";
+            case VALUE_STRING -> "STRING";
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> "NUMBER";
+            case VALUE_TRUE, VALUE_FALSE -> "BOOLEAN";
+            case VALUE_NULL -> "NULL";
+            default -> "POJO";
+        };
+    }
+
+    private static JsonParseException field(String name, JsonParseException cause) {
+        return new JsonParseException("Field " + name + " of object!", cause);
+    }
+
+    private static JsonParseException element(int index, JsonParseException cause) {
+        return new JsonParseException("Element #" + index + " of dynamic array:", cause);
+    }
+
+    private static JsonParseException missing(String name) {
+        return new JsonParseException("Missing field " + name + " from object!");
+    }
+
+    private static JsonParseException extraneous(String name) {
+        return new JsonParseException("Extraneous field " + name + " in object with strict checking!");
+    }
+
+    private static JsonParseException expected(String type, JsonToken token) {
+        return new JsonParseException("Expected " + type + ", got " + typeName(token) + "!");
+    }
+
+    private void startObject() throws JsonParseException {
+        var token = parser.currentToken();
+        if (token != JsonToken.START_OBJECT) throw new JsonParseException("Expected OBJECT, got " + typeName(token));
+    }
+
+    private void startArray() throws JsonParseException {
+        var token = parser.currentToken();
+        if (token != JsonToken.START_ARRAY) throw expected("ARRAY", token);
+    }
+
+    /**
+     * Skips ahead until the parser is back in the given context, after a fault in one of its values was recorded
+     * instead of thrown.
+     */
+    private void skipTo(JsonStreamContext context) throws IOException {
+        while (parser.getParsingContext() != context && parser.nextToken() != null) {
+            parser.skipChildren();
+        }
+    }
+
+    private long readInteger(long max) throws IOException, JsonParseException {
+        var token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) throw new JsonParseException("Expected integer, got decimal!");
+        if (token != JsonToken.VALUE_NUMBER_INT) throw expected("NUMBER", token);
+        if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            throw new JsonParseException("Expected integer between <0, " + max + ">, got " + parser.getBigIntegerValue() + "!");
+        }
+        long value = parser.getLongValue();
+        if (value < 0 || value > max) throw new JsonParseException("Expected integer between <0, " + max + ">, got " + value + "!");
+        return value;
+    }
+
+    private float readDecimal() throws IOException, JsonParseException {
+        var token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) return (float) parser.getDoubleValue();
+        if (token != JsonToken.VALUE_NUMBER_INT) throw expected("NUMBER", token);
+        return switch (parser.getNumberType()) {
+            case BIG_INTEGER -> parser.getBigIntegerValue().floatValue();
+            case LONG -> (float) parser.getLongValue();
+            default -> (float) parser.getIntValue();
+        };
+    }
+
+    private boolean readBoolean() throws JsonParseException {
+        var token = parser.currentToken();
+        if (token != JsonToken.VALUE_TRUE && token != JsonToken.VALUE_FALSE) throw expected("BOOLEAN", token);
+        return token == JsonToken.VALUE_TRUE;
+    }
+
+    private String readText() throws IOException, JsonParseException {
+        var token = parser.currentToken();
+        if (token != JsonToken.VALUE_STRING) throw expected("STRING", token);
+        return parser.getText();
+    }
+
+    private BlotterFile readFile() throws IOException, JsonParseException {
+        startObject();
+        var context = parser.getParsingContext();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (name) {
+                    case "saveFormatVersion" -> saveFormatVersion = (int) readInteger(UNSIGNED_BYTE);
+                    case "gameVersion" -> gameVersion = readVersion();
+                    case "mods" -> mods = readMods();
+                    case "saveType" -> saveType = (int) readInteger(UNSIGNED_BYTE);
+                    case "editFriendly" -> {
+                        editFriendly = parser.currentToken();
+                        parser.skipChildren();
+                    }
+                    case "components" -> readComponents();
+                    case "wires" -> readWires();
+                    default -> {
+                        if (extraneousField == null) extraneousField = name;
+                        switch (name) {
+                            case "componentIDs" -> readComponentIDs(context);
+                            case "circuitStates" -> readCircuitStates(context);
+                            default -> parser.skipChildren();
+                        }
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw field(name, e);
+            }
+        }
+        return finish();
+    }
+
+    private BlotterFile finish() throws JsonParseException {
+        if (saveFormatVersion == -1) throw missing("saveFormatVersion");
+        if (gameVersion == null) throw missing("gameVersion");
+        if (mods == null) throw missing("mods");
+        if (saveType == -1) throw missing("saveType");
+        if (saveFormatVersion != 0x05) throw new JsonParseException("Unsupported save format version " + saveFormatVersion);
+        var isWorld = switch (saveType) {
+            default -> throw new JsonParseException("Unknown/corrupted save type!");
+            case 0x01 -> true;
+            case 0x02 -> false;
+        };
+        if (editFriendly != null && editFriendly != JsonToken.VALUE_TRUE && editFriendly != JsonToken.VALUE_FALSE) throw expected("BOOLEAN", editFriendly);
+        if (editFriendly == JsonToken.VALUE_TRUE) {
+            if (extraneousField != null) throw extraneous(extraneousField);
+            if (components == null) throw missing("components");
+            if (wires == null) throw missing("wires");
+            if (editableFault != null) throw editableFault;
+            return solve(isWorld);
+        }
+        if (componentIDs == null) throw missing("componentIDs");
+        if (components == null) throw missing("components");
+        if (wires == null) throw missing("wires");
+        if (standardFault != null) throw standardFault;
+        var table = buildTable();
+        if (circuitStateCount == -1) throw missing("circuitStates");
+        if (isWorld && worldFault != null) throw worldFault;
+        if (!isWorld && subassemblyFault != null) throw subassemblyFault;
+        return new BlotterFile((byte) saveFormatVersion, gameVersion, mods, isWorld, componentIDs, table, wires.toArray(new Wire[0]), circuitStateCount,
+                isWorld ? worldStates : null, isWorld ? null : Arrays.copyOf(subassemblyStates, circuitStateCount));
+    }
+
+    private ComponentTable buildTable() {
+        var table = new ComponentTable(components.size());
+        for (var component: components) {
+            if (table.containsKey(component.address())) throw new IllegalArgumentException("Component address conflict: " + component.address());
+            table.put(component);
+        }
+        return table;
+    }
+
+    /**
+     * Assigns the circuit state IDs of an edit-friendly save, the same way
+     * {@link com.github.falsepattern.jblotter.util.SignalGraphSolver} does for json trees.
+     */
+    private BlotterFile solve(boolean isWorld) throws JsonParseException {
+        var graph = new SignalGraph(components.size(), wires.size());
+        int output = 0;
+        for (var component: components) {
+            var outputs = component.outputs();
+            int index = graph.addComponent(component.address(), component.inputs().length, outputs.length);
+            for (int i = 0; i < outputs.length; i++) {
+                graph.setPowered(index, i, poweredOutputs.get(output++));
+            }
+        }
+        for (var wire: wires) {
+            graph.addWire(wire.firstPoint(), wire.secondPoint());
+        }
+        try {
+            graph.solve();
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+        for (int c = 0; c < components.size(); c++) {
+            var component = components.get(c);
+            var inputs = component.inputs();
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = new Input(graph.inputCircuitStateID(c, i));
+            }
+            var outputs = component.outputs();
+            for (int i = 0; i < outputs.length; i++) {
+                outputs[i] = new Output(graph.outputCircuitStateID(c, i));
+            }
+        }
+        var solvedWires = new Wire[wires.size()];
+        for (int i = 0; i < solvedWires.length; i++) {
+            var wire = wires.get(i);
+            solvedWires[i] = new Wire(wire.firstPoint(), wire.secondPoint(), graph.wireCircuitStateID(i), wire.rotation());
+        }
+        var names = new String[componentNames.size()];
+        for (var entry: componentNames.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+        var table = buildTable();
+        if (isWorld) {
+            return new BlotterFile((byte) saveFormatVersion, gameVersion, mods, true, names, table, solvedWires, graph.circuitStateCount(), graph.poweredStates(), null);
+        }
+        var states = graph.poweredStateIDs();
+        return new BlotterFile((byte) saveFormatVersion, gameVersion, mods, false, names, table, solvedWires, states.length, null, states);
+    }
+
+    private Version readVersion() throws IOException, JsonParseException {
+        startArray();
+        var parts = new int[4];
+        JsonParseException fault = null;
+        int length = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (length < parts.length && fault == null) {
+                try {
+                    parts[length] = (int) readInteger(POSITIVE_SIGNED_INT);
+                } catch (JsonParseException e) {
+                    fault = new JsonParseException("Element #" + length + " of static array!", e);
+                }
+            }
+            parser.skipChildren();
+            length++;
+        }
+        if (length != parts.length) throw new JsonParseException("Expected array with " + parts.length + " elements, got one with " + length + " elements!");
+        if (fault != null) throw fault;
+        return new Version(parts[0], parts[1], parts[2], parts[3]);
+    }
+
+    private Map<String, Version> readMods() throws IOException, JsonParseException {
+        startArray();
+        var result = new HashMap<String, Version>();
+        for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+            try {
+                startObject();
+                String name = null;
+                Version version = null;
+                String extra = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var field = parser.getCurrentName();
+                    parser.nextToken();
+                    try {
+                        switch (field) {
+                            case "name" -> name = readText();
+                            case "version" -> version = readVersion();
+                            default -> {
+                                if (extra == null) extra = field;
+                                parser.skipChildren();
+                            }
+                        }
+                    } catch (JsonParseException e) {
+                        throw field(field, e);
+                    }
+                }
+                if (extra != null) throw extraneous(extra);
+                if (name == null) throw missing("name");
+                if (version == null) throw missing("version");
+                result.put(StringPool.SHARED.intern(name), version);
+            } catch (JsonParseException e) {
+                throw element(i, e);
+            }
+        }
+        return result;
+    }
+
+    private void readComponentIDs(JsonStreamContext context) throws IOException {
+        var ids = new ArrayList<String>();
+        try {
+            startArray();
+            for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                try {
+                    ids.add(StringPool.SHARED.intern(readText()));
+                } catch (JsonParseException e) {
+                    throw element(i, e);
+                }
+            }
+        } catch (JsonParseException e) {
+            if (standardFault == null) standardFault = field("componentIDs", e);
+            skipTo(context);
+        }
+        componentIDs = ids.toArray(new String[0]);
+    }
+
+    private void readCircuitStates(JsonStreamContext context) throws IOException {
+        var world = new BitSet();
+        var subassembly = new int[16];
+        int count = 0;
+        var token = parser.currentToken();
+        if (token != JsonToken.START_ARRAY) {
+            if (worldFault == null) worldFault = field("circuitStates", expected("ARRAY", token));
+            if (subassemblyFault == null) subassemblyFault = field("circuitStates", expected("ARRAY", token));
+            skipTo(context);
+        } else {
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+                    world.set(count, token == JsonToken.VALUE_TRUE);
+                } else if (worldFault == null) {
+                    worldFault = field("circuitStates", element(count, expected("BOOLEAN", token)));
+                }
+                try {
+                    if (count == subassembly.length) subassembly = Arrays.copyOf(subassembly, count * 2);
+                    subassembly[count] = (int) readInteger(POSITIVE_SIGNED_INT);
+                } catch (JsonParseException e) {
+                    if (subassemblyFault == null) subassemblyFault = field("circuitStates", element(count, e));
+                }
+                parser.skipChildren();
+                count++;
+            }
+        }
+        circuitStateCount = count;
+        worldStates = world;
+        subassemblyStates = subassembly;
+    }
+
+    private void readComponents() throws IOException, JsonParseException {
+        startArray();
+        components = new ArrayList<>();
+        componentNames.clear();
+        poweredOutputs.clear();
+        outputCount = 0;
+        for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+            try {
+                components.add(readComponent(i));
+            } catch (JsonParseException e) {
+                throw element(i, e);
+            }
+        }
+    }
+
+    /**
+     * Wraps a fault in one of the fields of a component into the full path from the root of the save.
+     */
+    private static JsonParseException componentFault(int index, String field, JsonParseException cause) {
+        return field("components", element(index, field(field, cause)));
+    }
+
+    private Component readComponent(int index) throws IOException, JsonParseException {
+        startObject();
+        long address = -1;
+        long parentAddress = -1;
+        int componentID = -1;
+        Vector3f position = null;
+        Quaternionf rotation = null;
+        Input[] inputs = null;
+        Output[] outputs = null;
+        byte[] customData = null;
+        String extra = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (field) {
+                    case "componentAddress" -> address = readInteger(UNSIGNED_INT);
+                    case "parentAddress" -> parentAddress = readInteger(UNSIGNED_INT);
+                    case "componentID" -> componentID = readComponentID(index);
+                    case "localPosition" -> position = readVector();
+                    case "localRotation" -> rotation = readQuaternion();
+                    case "inputs" -> inputs = readInputs(index);
+                    case "outputs" -> outputs = readOutputs(index);
+                    case "customData" -> customData = readBytes();
+                    default -> {
+                        if (extra == null) extra = field;
+                        parser.skipChildren();
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw field(field, e);
+            }
+        }
+        if (extra != null) throw extraneous(extra);
+        if (address == -1) throw missing("componentAddress");
+        if (parentAddress == -1) throw missing("parentAddress");
+        if (componentID == -1) throw missing("componentID");
+        if (position == null) throw missing("localPosition");
+        if (rotation == null) throw missing("localRotation");
+        if (inputs == null) throw missing("inputs");
+        if (outputs == null) throw missing("outputs");
+        if (customData == null) throw missing("customData");
+        return new Component((int) address, (int) parentAddress, (short) componentID, position, rotation, inputs, outputs, customData);
+    }
+
+    /**
+     * Component IDs are indices into the component ID map in standard saves, and names in edit-friendly ones.
+     * @return The component ID, or the index of the name in order of first appearance.
+     */
+    private int readComponentID(int index) throws IOException {
+        var token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            var name = parser.getText();
+            var known = componentNames.get(name);
+            int id = known != null ? known : componentNames.size();
+            if (known == null) componentNames.put(StringPool.SHARED.intern(name), id);
+            if (standardFault == null) standardFault = componentFault(index, "componentID", expected("NUMBER", token));
+            if (id > UNSIGNED_SHORT && editableFault == null) {
+                editableFault = componentFault(index, "componentID", new JsonParseException("Expected integer between <0, " + UNSIGNED_SHORT + ">, got " + id + "!"));
+            }
+            return id;
+        }
+        if (editableFault == null) editableFault = componentFault(index, "componentID", expected("STRING", token));
+        try {
+            return (int) readInteger(UNSIGNED_SHORT);
+        } catch (JsonParseException e) {
+            if (standardFault == null) standardFault = componentFault(index, "componentID", e);
+            parser.skipChildren();
+            return 0;
+        }
+    }
+
+    private Vector3f readVector() throws IOException, JsonParseException {
+        startObject();
+        float x = 0, y = 0, z = 0;
+        int found = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (field) {
+                    case "x" -> { x = readDecimal(); found |= 1; }
+                    case "y" -> { y = readDecimal(); found |= 2; }
+                    case "z" -> { z = readDecimal(); found |= 4; }
+                    default -> parser.skipChildren();
+                }
+            } catch (JsonParseException e) {
+                throw field(field, e);
+            }
+        }
+        if ((found & 1) == 0) throw missing("x");
+        if ((found & 2) == 0) throw missing("y");
+        if ((found & 4) == 0) throw missing("z");
+        return new Vector3f(x, y, z);
+    }
+
+    private Quaternionf readQuaternion() throws IOException, JsonParseException {
+        startObject();
+        float x = 0, y = 0, z = 0, w = 0;
+        int found = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (field) {
+                    case "x" -> { x = readDecimal(); found |= 1; }
+                    case "y" -> { y = readDecimal(); found |= 2; }
+                    case "z" -> { z = readDecimal(); found |= 4; }
+                    case "w" -> { w = readDecimal(); found |= 8; }
+                    default -> parser.skipChildren();
+                }
+            } catch (JsonParseException e) {
+                throw field(field, e);
+            }
+        }
+        if ((found & 1) == 0) throw missing("x");
+        if ((found & 2) == 0) throw missing("y");
+        if ((found & 4) == 0) throw missing("z");
+        if ((found & 8) == 0) throw missing("w");
+        return new Quaternionf(x, y, z, w);
+    }
+
+    private byte[] readBytes() throws IOException, JsonParseException {
+        startArray();
+        int length = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (length == byteScratch.length) byteScratch = Arrays.copyOf(byteScratch, length * 2);
+            try {
+                byteScratch[length] = (byte) readInteger(UNSIGNED_BYTE);
+            } catch (JsonParseException e) {
+                throw element(length, e);
+            }
+            length++;
+        }
+        return Arrays.copyOf(byteScratch, length);
+    }
+
+    /**
+     * Inputs hold their circuit state ID in standard saves, and are empty objects in edit-friendly ones.
+     */
+    private Input[] readInputs(int index) throws IOException, JsonParseException {
+        startArray();
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int circuitStateID = -1;
+            String extra = null;
+            String first = null;
+            try {
+                startObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (first == null) first = field;
+                    if (field.equals("circuitStateID")) {
+                        try {
+                            circuitStateID = (int) readInteger(POSITIVE_SIGNED_INT);
+                        } catch (JsonParseException e) {
+                            if (standardFault == null) standardFault = componentFault(index, "inputs", element(count, field(field, e)));
+                            circuitStateID = 0;
+                        }
+                    } else if (extra == null) {
+                        extra = field;
+                    }
+                    parser.skipChildren();
+                }
+            } catch (JsonParseException e) {
+                throw element(count, e);
+            }
+            if (first != null && editableFault == null) editableFault = componentFault(index, "inputs", element(count, extraneous(first)));
+            if (standardFault == null && (extra != null || circuitStateID == -1)) {
+                standardFault = componentFault(index, "inputs", element(count, extra != null ? extraneous(extra) : missing("circuitStateID")));
+            }
+            if (count == pegScratch.length) pegScratch = Arrays.copyOf(pegScratch, count * 2);
+            pegScratch[count++] = Math.max(circuitStateID, 0);
+        }
+        var inputs = new Input[count];
+        for (int i = 0; i < count; i++) {
+            inputs[i] = new Input(pegScratch[i]);
+        }
+        return inputs;
+    }
+
+    /**
+     * Outputs hold their circuit state ID in standard saves, and whether they're powered in edit-friendly ones.
+     */
+    private Output[] readOutputs(int index) throws IOException, JsonParseException {
+        startArray();
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int circuitStateID = -1;
+            boolean hasPowered = false;
+            String standardExtra = null;
+            String editableExtra = null;
+            try {
+                startObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "circuitStateID" -> {
+                            if (editableExtra == null) editableExtra = field;
+                            try {
+                                circuitStateID = (int) readInteger(POSITIVE_SIGNED_INT);
+                            } catch (JsonParseException e) {
+                                if (standardFault == null) standardFault = componentFault(index, "outputs", element(count, field(field, e)));
+                                circuitStateID = 0;
+                            }
+                        }
+                        case "powered" -> {
+                            if (standardExtra == null) standardExtra = field;
+                            hasPowered = true;
+                            try {
+                                poweredOutputs.set(outputCount, readBoolean());
+                            } catch (JsonParseException e) {
+                                if (editableFault == null) editableFault = componentFault(index, "outputs", element(count, field(field, e)));
+                            }
+                        }
+                        default -> {
+                            if (standardExtra == null) standardExtra = field;
+                            if (editableExtra == null) editableExtra = field;
+                        }
+                    }
+                    parser.skipChildren();
+                }
+            } catch (JsonParseException e) {
+                throw element(count, e);
+            }
+            if (standardFault == null && (standardExtra != null || circuitStateID == -1)) {
+                standardFault = componentFault(index, "outputs", element(count, standardExtra != null ? extraneous(standardExtra) : missing("circuitStateID")));
+            }
+            if (editableFault == null && (editableExtra != null || !hasPowered)) {
+                editableFault = componentFault(index, "outputs", element(count, editableExtra != null ? extraneous(editableExtra) : missing("powered")));
+            }
+            if (count == pegScratch.length) pegScratch = Arrays.copyOf(pegScratch, count * 2);
+            pegScratch[count++] = Math.max(circuitStateID, 0);
+            outputCount++;
+        }
+        var outputs = new Output[count];
+        for (int i = 0; i < count; i++) {
+            outputs[i] = new Output(pegScratch[i]);
+        }
+        return outputs;
+    }
+
+    private void readWires() throws IOException, JsonParseException {
+        startArray();
+        wires = new ArrayList<>();
+        for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+            try {
+                wires.add(readWire(i));
+            } catch (JsonParseException e) {
+                throw element(i, e);
+            }
+        }
+    }
+
+    /**
+     * Wires hold their circuit state ID only in standard saves.
+     */
+    private Wire readWire(int index) throws IOException, JsonParseException {
+        startObject();
+        PegAddress firstPoint = null;
+        PegAddress secondPoint = null;
+        int circuitStateID = -1;
+        boolean hasRotation = false;
+        float rotation = 0;
+        String extra = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (field) {
+                    case "firstPoint" -> firstPoint = readPegAddress();
+                    case "secondPoint" -> secondPoint = readPegAddress();
+                    case "rotation" -> {
+                        rotation = readDecimal();
+                        hasRotation = true;
+                    }
+                    case "circuitStateID" -> {
+                        if (editableFault == null) editableFault = field("wires", element(index, extraneous(field)));
+                        try {
+                            circuitStateID = (int) readInteger(POSITIVE_SIGNED_INT);
+                        } catch (JsonParseException e) {
+                            if (standardFault == null) standardFault = field("wires", element(index, field(field, e)));
+                            circuitStateID = 0;
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> {
+                        if (extra == null) extra = field;
+                        parser.skipChildren();
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw field(field, e);
+            }
+        }
+        if (extra != null) throw extraneous(extra);
+        if (firstPoint == null) throw missing("firstPoint");
+        if (secondPoint == null) throw missing("secondPoint");
+        if (!hasRotation) throw missing("rotation");
+        if (circuitStateID == -1 && standardFault == null) standardFault = field("wires", element(index, missing("circuitStateID")));
+        return new Wire(firstPoint, secondPoint, Math.max(circuitStateID, 0), rotation);
+    }
+
+    private PegAddress readPegAddress() throws IOException, JsonParseException {
+        startObject();
+        int input = -1;
+        long componentAddress = -1;
+        long pegIndex = -1;
+        String extra = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            try {
+                switch (field) {
+                    case "input" -> input = readBoolean() ? 1 : 0;
+                    case "componentAddress" -> componentAddress = readInteger(UNSIGNED_INT);
+                    case "pegIndex" -> pegIndex = readInteger(POSITIVE_SIGNED_INT);
+                    default -> {
+                        if (extra == null) extra = field;
+                        parser.skipChildren();
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw field(field, e);
+            }
+        }
+        if (extra != null) throw extraneous(extra);
+        if (input == -1) throw missing("input");
+        if (componentAddress == -1) throw missing("componentAddress");
+        if (pegIndex == -1) throw missing("pegIndex");
+        return new PegAddress(input == 1, (int) componentAddress, (int) pegIndex);
+    }
+}
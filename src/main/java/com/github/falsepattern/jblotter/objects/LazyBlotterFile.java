@@ -0,0 +1,205 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a serialized Blotter file that only decodes components when they're requested.<br>
+ * Opening the file does a single skip-scan over the component section, recording the byte offset of every component
+ * keyed by its address. Wires have a fixed size, so they're located directly by their index. The header, the component
+ * ID map and the circuit states are decoded eagerly, as they're small compared to the rest of the file.<br>
+ * Instances are safe for concurrent reads.
+ */
+public class LazyBlotterFile {
+    private final ByteBuffer buffer;
+    private final byte saveFormatVersion;
+    private final Version gameVersion;
+    private final Map<String, Version> mods;
+    private final boolean isWorld;
+    private final String[] componentIDs;
+    private final int componentCount;
+    private final int componentsOffset;
+    private final IntLongHashMap componentOffsets;
+    private final int wireCount;
+    private final int wiresOffset;
+    private final int circuitStateCount;
+    private final BitSet worldCircuitStates;
+    private final int[] subassemblyCircuitStates;
+    private final Map<Integer, Component> cache;
+
+    public static LazyBlotterFile open(Path path) throws IOException {
+        return open(path, 0);
+    }
+
+    /**
+     * @param cacheSize The maximum amount of decoded components to keep around, or 0 to disable caching.
+     */
+    public static LazyBlotterFile open(Path path, int cacheSize) throws IOException {
+        return new LazyBlotterFile(SerializationUtil.mapFile(path), cacheSize);
+    }
+
+    /**
+     * @param buffer The serialized file. Its contents must not change while this object is in use.
+     * @param cacheSize The maximum amount of decoded components to keep around, or 0 to disable caching.
+     */
+    public LazyBlotterFile(ByteBuffer buffer, int cacheSize) throws IOException {
+        if (cacheSize < 0) throw new IllegalArgumentException("Cache size cannot be negative!");
+        this.buffer = buffer;
+        var input = input();
+        BlotterFile.readHeader(input);
+        saveFormatVersion = input.readByte();
+        gameVersion = Version.deserialize(input);
+        isWorld = BlotterFile.readWorldBoolean(input);
+        componentCount = input.readInt();
+        wireCount = input.readInt();
+        mods = BlotterFile.readModVersions(input);
+        componentIDs = BlotterFile.readComponentIDMap(input);
+        componentsOffset = input.position();
+        componentOffsets = new IntLongHashMap(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            int offset = input.position();
+            int address = input.readInt();
+            int parentAddress = input.readInt();
+            if (parentAddress != 0 && !componentOffsets.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (componentOffsets.put(address, offset, -1) != -1) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            input.position(offset);
+            Component.skip(input);
+        }
+        wiresOffset = input.position();
+        SerializationUtil.skipFully(input, Math.multiplyExact(wireCount, Wire.BYTES));
+        if (isWorld) {
+            int stateByteCount = input.readInt();
+            circuitStateCount = stateByteCount * 8;
+            worldCircuitStates = SerializationUtil.readBitSet(input, stateByteCount);
+            subassemblyCircuitStates = null;
+        } else {
+            subassemblyCircuitStates = new int[input.readInt()];
+            circuitStateCount = subassemblyCircuitStates.length;
+            SerializationUtil.readInts(input, subassemblyCircuitStates, 0, subassemblyCircuitStates.length);
+            worldCircuitStates = null;
+        }
+        BlotterFile.readFooter(input);
+        cache = cacheSize == 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Component> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Every reader gets its own duplicate of the buffer, so that concurrent reads don't fight over the position.
+     */
+    private ByteBufferInput input() {
+        return new ByteBufferInput(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public byte saveFormatVersion() {
+        return saveFormatVersion;
+    }
+
+    public Version gameVersion() {
+        return gameVersion;
+    }
+
+    public Map<String, Version> mods() {
+        return mods;
+    }
+
+    public boolean isWorld() {
+        return isWorld;
+    }
+
+    public String[] componentIDs() {
+        return componentIDs;
+    }
+
+    public int circuitStateCount() {
+        return circuitStateCount;
+    }
+
+    public BitSet worldCircuitStates() {
+        return worldCircuitStates;
+    }
+
+    public int[] subassemblyCircuitStates() {
+        return subassemblyCircuitStates;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getWireCount() {
+        return wireCount;
+    }
+
+    public boolean hasComponent(int address) {
+        return componentOffsets.containsKey(address);
+    }
+
+    /**
+     * Decodes the component with the given address, or returns it from the cache if it was decoded recently.
+     * @return The component, or null if there's no component with the given address.
+     */
+    public Component getComponentByID(int address) {
+        if (cache != null) {
+            synchronized (cache) {
+                var cached = cache.get(address);
+                if (cached != null) return cached;
+            }
+        }
+        long offset = componentOffsets.get(address, -1);
+        if (offset == -1) return null;
+        var input = input();
+        input.position((int) offset);
+        Component component;
+        try {
+            component = Component.deserialize(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (cache != null) {
+            synchronized (cache) {
+                cache.put(address, component);
+            }
+        }
+        return component;
+    }
+
+    public Wire getWire(int index) {
+        if (index < 0 || index >= wireCount) throw new IndexOutOfBoundsException("Wire index " + index + " out of bounds for wire count " + wireCount);
+        var input = input();
+        input.position(wiresOffset + index * Wire.BYTES);
+        try {
+            return Wire.deserialize(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes every component and wire, producing the same result as {@link BlotterFile#deserialize}.
+     */
+    public BlotterFile toBlotterFile() throws IOException {
+        var input = input();
+        input.position(componentsOffset);
+        var components = BlotterFile.readComponents(input, componentCount);
+        var wires = BlotterFile.readWires(input, wireCount);
+        return new BlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, components, wires, circuitStateCount,
+                worldCircuitStates == null ? null : (BitSet) worldCircuitStates.clone(),
+                subassemblyCircuitStates == null ? null : subassemblyCircuitStates.clone());
+    }
+}
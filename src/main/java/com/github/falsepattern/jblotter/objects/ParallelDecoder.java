@@ -0,0 +1,153 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decodes a serialized Blotter file on multiple threads.<br>
+ * Component records have a variable size, so a first, sequential pass skip-scans the component section using only the
+ * length fields, recording where every record starts. The components and wires are then decoded in chunks on a
+ * {@link ForkJoinPool}, each chunk reading from its own duplicate of the buffer. Finally, the decoded components are put
+ * into a {@link ComponentTable} in file order, which is where the parent and address conflict checks happen, with the
+ * same errors as the sequential deserializer.
+ */
+final class ParallelDecoder {
+    /**
+     * Smallest possible component record: the fixed part, plus the input, output and custom data lengths.
+     */
+    private static final int MIN_COMPONENT_BYTES = Component.FIXED_HEADER_BYTES + 3 * Integer.BYTES;
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    private final ByteBuffer buffer;
+    private final int chunkSize;
+    private int[] componentOffsets;
+    private Component[] components;
+    private int wiresOffset;
+    private Wire[] wires;
+
+    private ParallelDecoder(ByteBuffer buffer, int chunkSize) {
+        this.buffer = buffer;
+        this.chunkSize = chunkSize;
+    }
+
+    static BlotterFile decode(ByteBuffer buffer, ForkJoinPool pool) throws IOException {
+        var input = new ByteBufferInput(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        BlotterFile.readHeader(input);
+        var saveFormatVersion = input.readByte();
+        var gameVersion = Version.deserialize(input);
+        var isWorld = BlotterFile.readWorldBoolean(input);
+        int componentCount = input.readInt();
+        int wireCount = input.readInt();
+        var mods = BlotterFile.readModVersions(input);
+        var componentIDs = BlotterFile.readComponentIDMap(input);
+        if (componentCount < 0 || componentCount > input.remaining() / MIN_COMPONENT_BYTES) throw new IllegalArgumentException("Component count " + componentCount + " does not fit in the file!");
+        if (wireCount < 0 || wireCount > input.remaining() / Wire.BYTES) throw new IllegalArgumentException("Wire count " + wireCount + " does not fit in the file!");
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, Math.max(componentCount, wireCount) / (pool.getParallelism() * 8));
+        var decoder = new ParallelDecoder(buffer, chunkSize);
+        decoder.scan(input, componentCount);
+        SerializationUtil.skipFully(input, wireCount * Wire.BYTES);
+        int circuitStateCount;
+        BitSet worldCircuitStates = null;
+        int[] subassemblyCircuitStates = null;
+        if (isWorld) {
+            int stateByteCount = input.readInt();
+            circuitStateCount = stateByteCount * 8;
+            worldCircuitStates = SerializationUtil.readBitSet(input, stateByteCount);
+        } else {
+            subassemblyCircuitStates = new int[input.readInt()];
+            circuitStateCount = subassemblyCircuitStates.length;
+            SerializationUtil.readInts(input, subassemblyCircuitStates, 0, subassemblyCircuitStates.length);
+        }
+        BlotterFile.readFooter(input);
+        decoder.decode(pool, wireCount);
+        var table = new ComponentTable(componentCount);
+        for (var component: decoder.components) {
+            int parentAddress = component.parentAddress();
+            if (parentAddress != 0 && !table.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (table.containsKey(component.address())) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            table.put(component);
+        }
+        return new BlotterFile(saveFormatVersion, gameVersion, mods, isWorld, componentIDs, table, decoder.wires, circuitStateCount, worldCircuitStates, subassemblyCircuitStates);
+    }
+
+    /**
+     * Records the offset of every component, and leaves the input at the start of the wires.
+     */
+    private void scan(ByteBufferInput input, int componentCount) throws IOException {
+        componentOffsets = new int[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            componentOffsets[i] = input.position();
+            Component.skip(input);
+        }
+        wiresOffset = input.position();
+    }
+
+    private void decode(ForkJoinPool pool, int wireCount) throws IOException {
+        components = new Component[componentOffsets.length];
+        wires = new Wire[wireCount];
+        try {
+            pool.invoke(new DecodeTask(0, Math.max(componentOffsets.length, wireCount)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void decodeRange(int from, int to) throws IOException {
+        var input = new ByteBufferInput(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        int componentEnd = Math.min(to, components.length);
+        if (from < componentEnd) {
+            input.position(componentOffsets[from]);
+            for (int i = from; i < componentEnd; i++) {
+                components[i] = Component.deserialize(input);
+            }
+        }
+        int wireEnd = Math.min(to, wires.length);
+        if (from < wireEnd) {
+            input.position(wiresOffset + from * Wire.BYTES);
+            for (int i = from; i < wireEnd; i++) {
+                wires[i] = Wire.deserialize(input);
+            }
+        }
+    }
+
+    /**
+     * Decodes the components and the wires with indices in the given range, splitting it in halves until it's small
+     * enough.
+     */
+    private class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        DecodeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                try {
+                    decodeRange(from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecodeTask(from, middle), new DecodeTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.falsepattern.jblotter.objects;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Serializes a {@link BlotterFile} on multiple threads.<br>
+ * The components and wires are split into a few ranges per thread of the executor, and every range is encoded on the
+ * executor into its own little-endian buffer. Component sizes are known up front, so every buffer is allocated with its
+ * exact size. The header and the circuit states are encoded by a {@link BlotterWriter}. The header, the buffers and the
+ * circuit states are then written to the channel in order, with a single gathering write where the channel supports
+ * it. The output is byte-identical to {@link BlotterFile#serialize}.
+ */
+final class ParallelEncoder {
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    static void encode(BlotterFile file, WritableByteChannel channel, Executor executor) throws IOException {
+        var components = file.components().values().toArray(new Component[0]);
+        var wires = file.wires();
+        // The header and the tail go through a single writer, with the chunks in between counted but encoded separately
+        var frame = new ByteBufferOutput(1024);
+        var writer = new BlotterWriter(frame, components.length, wires.length);
+        writer.writeHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.mods(), file.componentIDs());
+        int headLength = frame.position();
+        int parallelism = parallelism(executor);
+        int componentChunk = Math.max(MIN_CHUNK_SIZE, components.length / (parallelism * 4) + 1);
+        int wireChunk = Math.max(MIN_CHUNK_SIZE, wires.length / (parallelism * 4) + 1);
+        int componentChunks = (components.length + componentChunk - 1) / componentChunk;
+        int wireChunks = (wires.length + wireChunk - 1) / wireChunk;
+        var buffers = new ByteBuffer[componentChunks + wireChunks + 2];
+        var tasks = new CompletableFuture<?>[componentChunks + wireChunks];
+        for (int i = 0; i < componentChunks; i++) {
+            int chunk = i;
+            int from = i * componentChunk;
+            int to = Math.min(components.length, from + componentChunk);
+            tasks[i] = CompletableFuture.runAsync(() -> buffers[1 + chunk] = encodeComponents(components, from, to), executor);
+        }
+        for (int i = 0; i < wireChunks; i++) {
+            int chunk = componentChunks + i;
+            int from = i * wireChunk;
+            int to = Math.min(wires.length, from + wireChunk);
+            tasks[chunk] = CompletableFuture.runAsync(() -> buffers[1 + chunk] = encodeWires(wires, from, to), executor);
+        }
+        writer.skipComponents(components.length);
+        writer.skipWires(wires.length);
+        if (file.isWorld()) {
+            writer.writeCircuitStates(file.circuitStateCount(), file.worldCircuitStates());
+        } else {
+            writer.writeCircuitStates(file.subassemblyCircuitStates());
+        }
+        writer.finish();
+        var framed = frame.toByteBuffer();
+        buffers[0] = framed.slice(0, headLength);
+        buffers[buffers.length - 1] = framed.slice(headLength, framed.limit() - headLength);
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw e;
+        }
+        write(channel, buffers);
+    }
+
+    private static ByteBuffer encodeComponents(Component[] components, int from, int to) {
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            size += components[i].serializedSize();
+        }
+        var output = new ByteBufferOutput(size);
+        try {
+            for (int i = from; i < to; i++) {
+                components[i].serialize(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteBuffer();
+    }
+
+    private static ByteBuffer encodeWires(Wire[] wires, int from, int to) {
+        var output = new ByteBufferOutput((to - from) * Wire.BYTES);
+        try {
+            for (int i = from; i < to; i++) {
+                wires[i].serialize(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteBuffer();
+    }
+
+    /**
+     * @return The amount of threads the executor runs tasks on, or the amount of processors if it doesn't say.
+     */
+    private static int parallelism(Executor executor) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (executor instanceof ForkJoinPool pool) return pool.getParallelism();
+        if (executor instanceof ThreadPoolExecutor pool) return Math.max(1, Math.min(pool.getMaximumPoolSize(), processors));
+        return Math.max(1, processors);
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel gathering) {
+            int first = 0;
+            while (first < buffers.length) {
+                if (!buffers[first].hasRemaining()) {
+                    first++;
+                    continue;
+                }
+                gathering.write(buffers, first, buffers.length - first);
+            }
+        } else {
+            for (var buffer: buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+}
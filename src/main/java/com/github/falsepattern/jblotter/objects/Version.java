@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -46,6 +47,21 @@ public record Version(int majorVersion, int minorVersion, int patchVersion, int
         return toJson();
     }
 
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        generator.writeNumber(Integer.toUnsignedLong(majorVersion));
+        generator.writeNumber(Integer.toUnsignedLong(minorVersion));
+        generator.writeNumber(Integer.toUnsignedLong(patchVersion));
+        generator.writeNumber(Integer.toUnsignedLong(buildVersion));
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) throws IOException {
+        writeJson(generator);
+    }
+
     public int[] asArray() {
         return new int[]{majorVersion, minorVersion, patchVersion, buildVersion};
     }
@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects.component;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -32,20 +33,41 @@ public record Component(int address, int parentAddress, short componentID, Vecto
             new NodeRule[]{IntegerRule.UNSIGNED_INT, IntegerRule.UNSIGNED_INT, IntegerRule.UNSIGNED_SHORT, ObjectRule.RULE_VEC3, ObjectRule.RULE_QUATERNION, new DynamicArrayRule(Input.RULE), new DynamicArrayRule(Output.RULE), new DynamicArrayRule(IntegerRule.UNSIGNED_BYTE)}, true);
     public static final NodeRule EDITABLE_RULE = new ObjectRule(new String[]{"componentAddress", "parentAddress", "componentID", "localPosition", "localRotation", "inputs", "outputs", "customData"},
             new NodeRule[]{IntegerRule.UNSIGNED_INT, IntegerRule.UNSIGNED_INT, TextRule.INSTANCE, ObjectRule.RULE_VEC3, ObjectRule.RULE_QUATERNION, new DynamicArrayRule(Input.EDITABLE_RULE), new DynamicArrayRule(Output.EDITABLE_RULE), new DynamicArrayRule(IntegerRule.UNSIGNED_BYTE)}, true);
+    /**
+     * Size of the address, parent address, component ID, position and rotation, which precede the variable-length part of
+     * a serialized component.
+     */
+    public static final int FIXED_HEADER_BYTES = 4 + 4 + 2 + 3 * 4 + 4 * 4;
+
     public static Component deserialize(DataInput input, Map<Integer, Component> components) throws IOException {
+        var component = deserialize(input);
+        int parentAddress = component.parentAddress;
+        boolean parentExists = components instanceof ComponentTable table ? table.containsKey(parentAddress) : components.containsKey(parentAddress);
+        if (parentAddress != 0 && !parentExists) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+        return component;
+    }
+
+    /**
+     * Deserializes a component without checking whether its parent exists.
+     */
+    public static Component deserialize(DataInput input) throws IOException {
         var address = input.readInt();
         var parentAddress = input.readInt();
-        if (parentAddress != 0 && !components.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
         var componentID = input.readShort();
         var position = SerializationUtil.deserializeVector3f(input);
         var rotation = SerializationUtil.deserializeQuaternionf(input);
-        var inputs = new Input[input.readInt()];
+        var pegStates = new int[input.readInt()];
+        SerializationUtil.readInts(input, pegStates, 0, pegStates.length);
+        var inputs = new Input[pegStates.length];
         for (int i = 0; i < inputs.length; i++) {
-            inputs[i] = Input.deserialize(input);
+            inputs[i] = new Input(pegStates[i]);
         }
-        var outputs = new Output[input.readInt()];
+        int outputCount = input.readInt();
+        if (outputCount > pegStates.length) pegStates = new int[outputCount];
+        SerializationUtil.readInts(input, pegStates, 0, outputCount);
+        var outputs = new Output[outputCount];
         for (int i = 0; i < outputs.length; i++) {
-            outputs[i] = Output.deserialize(input);
+            outputs[i] = new Output(pegStates[i]);
         }
         int customDataLength = input.readInt();
         byte[] customData;
@@ -58,6 +80,29 @@ public record Component(int address, int parentAddress, short componentID, Vecto
         return new Component(address, parentAddress, componentID, position, rotation, inputs, outputs, customData);
     }
 
+    /**
+     * Skips over a serialized component without decoding or allocating anything. Only the length fields are read.
+     */
+    public static void skip(DataInput input) throws IOException {
+        SerializationUtil.skipFully(input, FIXED_HEADER_BYTES);
+        int inputCount = input.readInt();
+        if (inputCount < 0) throw new IllegalArgumentException("Component has a negative input count!");
+        SerializationUtil.skipFully(input, (long) inputCount * Integer.BYTES);
+        int outputCount = input.readInt();
+        if (outputCount < 0) throw new IllegalArgumentException("Component has a negative output count!");
+        SerializationUtil.skipFully(input, (long) outputCount * Integer.BYTES);
+        int customDataLength = input.readInt();
+        if (customDataLength < -1) throw new IllegalArgumentException("Component has a negative custom data length!");
+        if (customDataLength != -1) SerializationUtil.skipFully(input, customDataLength);
+    }
+
+    /**
+     * @return The exact amount of bytes {@link #serialize} writes for this component.
+     */
+    public int serializedSize() {
+        return FIXED_HEADER_BYTES + Integer.BYTES * (3 + inputs.length + outputs.length) + customData.length;
+    }
+
     public static Component fromJson(JsonNode node, boolean verified) throws JsonParseException {
         if (!verified) RULE.verify(node);
         return new Component((int)node.get("componentAddress").longValue(), (int)node.get("parentAddress").longValue(), (short) node.get("componentID").intValue(),
@@ -74,12 +119,12 @@ public record Component(int address, int parentAddress, short componentID, Vecto
         SerializationUtil.serializeVector3f(output, localPosition);
         SerializationUtil.serializeQuaternionf(output, localRotation);
         output.writeInt(inputs.length);
-        for (var Input: inputs) {
-            Input.serialize(output);
+        for (var inputPeg: inputs) {
+            output.writeInt(inputPeg.circuitStateID());
         }
         output.writeInt(outputs.length);
-        for (var Output: outputs) {
-            Output.serialize(output);
+        for (var outputPeg: outputs) {
+            output.writeInt(outputPeg.circuitStateID());
         }
         if (customData.length == 0) {
             output.writeInt(-1);
@@ -136,4 +181,54 @@ public record Component(int address, int parentAddress, short componentID, Vecto
     public ObjectNode toEditableJson() {
         throw new UnsupportedOperationException("Use toEditableJson(BitSet, String[]) for serializing components! They require context about circuit states and component IDs!");
     }
+
+    private void writeJson(JsonGenerator generator, String[] ids, BitSet circuitStates) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("componentAddress", Integer.toUnsignedLong(address));
+        generator.writeNumberField("parentAddress", Integer.toUnsignedLong(parentAddress));
+        if (ids != null) {
+            generator.writeStringField("componentID", ids[componentID]);
+        } else {
+            generator.writeNumberField("componentID", componentID);
+        }
+        generator.writeFieldName("localPosition");
+        JsonUtil.writeVector3f(generator, localPosition);
+        generator.writeFieldName("localRotation");
+        JsonUtil.writeQuaternionf(generator, localRotation);
+        generator.writeArrayFieldStart("inputs");
+        for (var input: inputs) {
+            if (ids != null) {
+                input.writeEditableJson(generator);
+            } else {
+                input.writeJson(generator);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("outputs");
+        for (var output: outputs) {
+            if (ids != null) {
+                output.writeEditableJson(generator, circuitStates);
+            } else {
+                output.writeJson(generator);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeFieldName("customData");
+        JsonUtil.writeByteArray(generator, customData);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        writeJson(generator, null, null);
+    }
+
+    public void writeEditableJson(JsonGenerator generator, BitSet circuitStates, String[] ids) throws IOException {
+        writeJson(generator, ids, circuitStates);
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) {
+        throw new UnsupportedOperationException("Use writeEditableJson(JsonGenerator, BitSet, String[]) for serializing components! They require context about circuit states and component IDs!");
+    }
 }
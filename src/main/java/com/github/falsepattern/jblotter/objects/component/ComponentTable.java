@@ -0,0 +1,316 @@
+package com.github.falsepattern.jblotter.objects.component;
+
+import com.github.falsepattern.jblotter.util.IntLongHashMap;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map from component address to component, specialized for the address layout of real saves.<br>
+ * Components are stored in insertion order in a flat array of slots, so iteration order matches the order they were
+ * added in (which keeps parents before their children when serializing). Addresses are resolved to slots through an
+ * array indexed directly by address while the addresses stay dense, and through an open-addressing primitive hash map
+ * once they don't. Neither mode boxes addresses or allocates per-entry nodes.<br>
+ * The primitive {@link #get(int)}, {@link #containsKey(int)}, {@link #put(Component)} and {@link #remove(int)} methods
+ * should be preferred over the boxed {@link Map} methods, which are only provided for compatibility.
+ */
+public class ComponentTable extends AbstractMap<Integer, Component> {
+    /**
+     * The direct address index is kept as long as it would be at least this dense.
+     */
+    private static final int MIN_DENSITY_DIVISOR = 4;
+    private static final int MIN_DENSE_SIZE = 64;
+
+    private int[] denseIndex;
+    private IntLongHashMap sparseIndex;
+    /**
+     * Upper bound of the non-negative addresses ever added, used to decide when the addresses are dense enough for direct
+     * indexing.
+     */
+    private int maxAddress;
+    private boolean negativeAddresses;
+    private int[] slotAddresses;
+    private Component[] slots;
+    private int slotCount;
+    private int size;
+    private int modCount;
+    private EntrySet entrySet;
+    private Values values;
+
+    public ComponentTable() {
+        this(16);
+    }
+
+    public ComponentTable(int expectedSize) {
+        expectedSize = Math.max(expectedSize, 1);
+        denseIndex = new int[Math.max(MIN_DENSE_SIZE, expectedSize + 1)];
+        slotAddresses = new int[expectedSize];
+        slots = new Component[expectedSize];
+    }
+
+    public ComponentTable(Map<Integer, Component> components) {
+        this(components.size());
+        putAll(components);
+    }
+
+    public boolean isDense() {
+        return denseIndex != null;
+    }
+
+    private int slotOf(int address) {
+        if (denseIndex != null) {
+            return address >= 0 && address < denseIndex.length ? denseIndex[address] - 1 : -1;
+        }
+        return (int) sparseIndex.get(address, -1);
+    }
+
+    private boolean denseEnough(long maxAddress) {
+        return maxAddress <= (long) MIN_DENSITY_DIVISOR * (size + 1) + MIN_DENSE_SIZE;
+    }
+
+    private void index(int address, int slot) {
+        if (address < 0) {
+            negativeAddresses = true;
+        } else {
+            maxAddress = Math.max(maxAddress, address);
+        }
+        if (denseIndex != null) {
+            if (address >= 0 && address < denseIndex.length) {
+                denseIndex[address] = slot + 1;
+                return;
+            }
+            if (address >= 0 && denseEnough(address)) {
+                denseIndex = Arrays.copyOf(denseIndex, Math.max(address + 1, denseIndex.length + (denseIndex.length >> 1)));
+                denseIndex[address] = slot + 1;
+                return;
+            }
+            sparseIndex = new IntLongHashMap(Math.max(size, 16));
+            for (int i = 0; i < slotCount; i++) {
+                if (slots[i] != null) sparseIndex.put(slotAddresses[i], i, -1);
+            }
+            denseIndex = null;
+        } else if (!negativeAddresses && denseEnough(maxAddress)) {
+            // The addresses filled in enough to switch back to direct indexing
+            denseIndex = new int[maxAddress + 1];
+            for (int i = 0; i < slotCount; i++) {
+                if (slots[i] != null) denseIndex[slotAddresses[i]] = i + 1;
+            }
+            denseIndex[address] = slot + 1;
+            sparseIndex = null;
+            return;
+        }
+        sparseIndex.put(address, slot, -1);
+    }
+
+    private void unindex(int address) {
+        if (denseIndex != null) {
+            denseIndex[address] = 0;
+        } else {
+            sparseIndex.remove(address, -1);
+        }
+    }
+
+    public Component get(int address) {
+        int slot = slotOf(address);
+        return slot == -1 ? null : slots[slot];
+    }
+
+    public boolean containsKey(int address) {
+        return slotOf(address) != -1;
+    }
+
+    /**
+     * Adds the component under its own address.
+     * @return The component previously stored under that address, or null if there was none.
+     */
+    public Component put(Component component) {
+        return put(component.address(), component);
+    }
+
+    public Component put(int address, Component component) {
+        if (component == null) throw new NullPointerException("Component tables cannot contain null components!");
+        int slot = slotOf(address);
+        if (slot != -1) {
+            var previous = slots[slot];
+            slots[slot] = component;
+            return previous;
+        }
+        if (slotCount == slots.length) {
+            if (size < slotCount / 2) {
+                compact();
+            } else {
+                int capacity = slots.length + (slots.length >> 1) + 1;
+                slots = Arrays.copyOf(slots, capacity);
+                slotAddresses = Arrays.copyOf(slotAddresses, capacity);
+            }
+        }
+        slots[slotCount] = component;
+        slotAddresses[slotCount] = address;
+        index(address, slotCount);
+        slotCount++;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    public Component remove(int address) {
+        int slot = slotOf(address);
+        if (slot == -1) return null;
+        return removeSlot(slot);
+    }
+
+    private Component removeSlot(int slot) {
+        var previous = slots[slot];
+        unindex(slotAddresses[slot]);
+        slots[slot] = null;
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Moves the remaining components to the front of the slot array, keeping their order.
+     */
+    private void compact() {
+        int target = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null) {
+                slots[target] = slots[i];
+                slotAddresses[target] = slotAddresses[i];
+                index(slotAddresses[target], target);
+                target++;
+            }
+        }
+        Arrays.fill(slots, target, slotCount, null);
+        slotCount = target;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer address && containsKey((int) address);
+    }
+
+    @Override
+    public Component get(Object key) {
+        return key instanceof Integer address ? get((int) address) : null;
+    }
+
+    @Override
+    public Component put(Integer key, Component value) {
+        return put((int) key, value);
+    }
+
+    @Override
+    public Component remove(Object key) {
+        return key instanceof Integer address ? remove((int) address) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (denseIndex != null) {
+            Arrays.fill(denseIndex, 0);
+        } else {
+            sparseIndex.clear();
+        }
+        Arrays.fill(slots, 0, slotCount, null);
+        slotCount = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Integer, Component>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    /**
+     * Iterates over the values without boxing or allocating entries.
+     */
+    @Override
+    public Collection<Component> values() {
+        if (values == null) values = new Values();
+        return values;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int next = advance(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        private int advance(int from) {
+            while (from < slotCount && slots[from] == null) from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < slotCount;
+        }
+
+        protected int nextSlot() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next >= slotCount) throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            removeSlot(last);
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<Integer, Component>> {
+        @Override
+        public Iterator<Entry<Integer, Component>> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Entry<Integer, Component> next() {
+                    int slot = nextSlot();
+                    return new SimpleImmutableEntry<>(slotAddresses[slot], slots[slot]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class Values extends AbstractCollection<Component> {
+        @Override
+        public Iterator<Component> iterator() {
+            return new SlotIterator<>() {
+                @Override
+                public Component next() {
+                    return slots[nextSlot()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects.component;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
@@ -21,6 +22,8 @@ import java.math.BigInteger;
 public record Wire(PegAddress firstPoint, PegAddress secondPoint, int circuitStateID, float rotation) implements Serializable {
     public static final NodeRule RULE = new ObjectRule(new String[]{"firstPoint", "secondPoint", "circuitStateID", "rotation"}, new NodeRule[]{PegAddress.RULE, PegAddress.RULE, IntegerRule.POSITIVE_SIGNED_INT, DecimalRule.INSTANCE}, true);
     public static final NodeRule EDITABLE_RULE = new ObjectRule(new String[]{"firstPoint", "secondPoint", "rotation"}, new NodeRule[]{PegAddress.RULE, PegAddress.RULE, DecimalRule.INSTANCE}, true);
+    public static final int BYTES = 2 * PegAddress.BYTES + 4 + 4;
+
     public static Wire deserialize(DataInput input) throws IOException {
         return new Wire(PegAddress.deserialize(input), PegAddress.deserialize(input), input.readInt(), input.readFloat());
     }
@@ -52,4 +55,27 @@ public record Wire(PegAddress firstPoint, PegAddress secondPoint, int circuitSta
         result.put("rotation", rotation);
         return result;
     }
+
+    private void writeFields(JsonGenerator generator) throws IOException {
+        generator.writeFieldName("firstPoint");
+        firstPoint.writeJson(generator);
+        generator.writeFieldName("secondPoint");
+        secondPoint.writeJson(generator);
+        generator.writeNumberField("rotation", rotation);
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeFields(generator);
+        generator.writeNumberField("circuitStateID", circuitStateID);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeFields(generator);
+        generator.writeEndObject();
+    }
 }
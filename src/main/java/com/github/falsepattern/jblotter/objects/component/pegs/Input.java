@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects.component.pegs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -40,4 +41,17 @@ public record Input(int circuitStateID) implements Serializable {
     public ObjectNode toEditableJson() {
         return new ObjectNode(JsonNodeFactory.instance);
     }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("circuitStateID", circuitStateID);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeEndObject();
+    }
 }
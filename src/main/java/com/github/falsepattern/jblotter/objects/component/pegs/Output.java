@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects.component.pegs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
@@ -50,4 +51,22 @@ public record Output(int circuitStateID) implements Serializable {
     public JsonNode toEditableJson() {
         throw new UnsupportedOperationException("Use toEditableJson(BitSet) for serializing outputs! They require context about circuit states!");
     }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("circuitStateID", circuitStateID);
+        generator.writeEndObject();
+    }
+
+    public void writeEditableJson(JsonGenerator generator, BitSet circuitStates) throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("powered", circuitStates.get(circuitStateID));
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) {
+        throw new UnsupportedOperationException("Use writeEditableJson(JsonGenerator, BitSet) for serializing outputs! They require context about circuit states!");
+    }
 }
@@ -1,5 +1,6 @@
 package com.github.falsepattern.jblotter.objects.component.pegs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
@@ -19,6 +20,8 @@ import java.math.BigInteger;
 
 public record PegAddress(boolean input, int componentAddress, int pegIndex) implements Serializable, Comparable<PegAddress> {
     public static final NodeRule RULE = new ObjectRule(new String[]{"input", "componentAddress", "pegIndex"}, new NodeRule[]{BooleanRule.INSTANCE, IntegerRule.UNSIGNED_INT, IntegerRule.POSITIVE_SIGNED_INT}, true);
+    public static final int BYTES = 1 + 4 + 4;
+
     public static PegAddress deserialize(DataInput input) throws IOException {
         return new PegAddress(input.readBoolean(), input.readInt(), input.readInt());
     }
@@ -48,6 +51,20 @@ public record PegAddress(boolean input, int componentAddress, int pegIndex) impl
         return toJson();
     }
 
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("input", input);
+        generator.writeNumberField("componentAddress", Integer.toUnsignedLong(componentAddress));
+        generator.writeNumberField("pegIndex", pegIndex);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeEditableJson(JsonGenerator generator) throws IOException {
+        writeJson(generator);
+    }
+
     @Override
     public int compareTo(PegAddress o) {
         if (input == o.input) {
@@ -0,0 +1,79 @@
+package com.github.falsepattern.jblotter.stream;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * Single-pass pull parser for the binary Blotter format. Every part of the file is handed to a {@link BlotterVisitor}
+ * as soon as it's decoded, and components go through a single reused {@link ComponentView}, so the memory needed to
+ * read a file doesn't depend on its size (except for the circuit states, which are handed over in one piece).<br>
+ * The reader only checks the structure of the file itself. Semantic checks, like whether a component's parent exists,
+ * are up to the visitor.
+ */
+public class BlotterReader {
+    public static void read(DataInput input, BlotterVisitor visitor) throws IOException {
+        if (input == null) throw new NullPointerException("Cannot deserialize from null stream!");
+        BlotterFile.readHeader(input);
+        var saveFormatVersion = input.readByte();
+        var gameVersion = Version.deserialize(input);
+        var isWorld = BlotterFile.readWorldBoolean(input);
+        var componentCount = input.readInt();
+        var wireCount = input.readInt();
+        visitor.onHeader(saveFormatVersion, gameVersion, isWorld, componentCount, wireCount);
+        int modCount = input.readInt();
+        for (int i = 0; i < modCount; i++) {
+            var name = SerializationUtil.deserializeString(input);
+            var version = Version.deserialize(input);
+            visitor.onMod(name, version);
+        }
+        int componentIDCount = input.readInt();
+        var seenIDs = new BitSet(componentIDCount);
+        for (int i = 0; i < componentIDCount; i++) {
+            var componentID = input.readUnsignedShort();
+            if (componentID >= componentIDCount) throw new IllegalStateException("Component id " + componentID + " is out of bounds for component id count " + componentIDCount + "!");
+            if (seenIDs.get(componentID)) throw new IllegalStateException("Component id conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            seenIDs.set(componentID);
+            visitor.onComponentId(componentID, SerializationUtil.deserializeString(input));
+        }
+        var view = new ComponentView();
+        for (int i = 0; i < componentCount; i++) {
+            view.read(input);
+            visitor.onComponent(view);
+        }
+        for (int i = 0; i < wireCount; i++) {
+            visitor.onWire(Wire.deserialize(input));
+        }
+        if (isWorld) {
+            int stateByteCount = input.readInt();
+            visitor.onCircuitStates(stateByteCount * 8, SerializationUtil.readBitSet(input, stateByteCount), null);
+        } else {
+            var subassemblyCircuitStates = new int[input.readInt()];
+            SerializationUtil.readInts(input, subassemblyCircuitStates, 0, subassemblyCircuitStates.length);
+            visitor.onCircuitStates(subassemblyCircuitStates.length, null, subassemblyCircuitStates);
+        }
+        BlotterFile.readFooter(input);
+        visitor.onEnd();
+    }
+
+    public static void read(ReadableByteChannel channel, BlotterVisitor visitor) throws IOException {
+        read(new EndianInputStream(Channels.newInputStream(channel), true), visitor);
+    }
+
+    /**
+     * Memory-maps the given file and reads it straight from the mapping.
+     */
+    public static void read(Path path, BlotterVisitor visitor) throws IOException {
+        read(new ByteBufferInput(SerializationUtil.mapFile(path)), visitor);
+    }
+}
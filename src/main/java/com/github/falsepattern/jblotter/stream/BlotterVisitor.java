@@ -0,0 +1,38 @@
+package com.github.falsepattern.jblotter.stream;
+
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Callbacks invoked by {@link BlotterReader} for each part of a Blotter file, in file order:
+ * {@link #onHeader}, {@link #onMod} for every mod, {@link #onComponentId} for every component ID mapping,
+ * {@link #onComponent} for every component, {@link #onWire} for every wire, {@link #onCircuitStates}, and finally
+ * {@link #onEnd} once the footer was verified.<br>
+ * Every callback does nothing by default, so implementations only need to override the parts they're interested in.
+ */
+public interface BlotterVisitor {
+    default void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) throws IOException {}
+
+    default void onMod(String name, Version version) throws IOException {}
+
+    default void onComponentId(int id, String name) throws IOException {}
+
+    /**
+     * @param component A view of the current component. The same instance is reused for every component, so it must not
+     *                  be retained after this method returns. Use {@link ComponentView#toComponent()} to take a copy.
+     */
+    default void onComponent(ComponentView component) throws IOException {}
+
+    default void onWire(Wire wire) throws IOException {}
+
+    /**
+     * @param worldCircuitStates The circuit states of a world, or null for subassemblies.
+     * @param subassemblyCircuitStates The powered circuit state IDs of a subassembly, or null for worlds.
+     */
+    default void onCircuitStates(int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) throws IOException {}
+
+    default void onEnd() throws IOException {}
+}
@@ -0,0 +1,301 @@
+package com.github.falsepattern.jblotter.stream;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Incremental writer for the binary Blotter format. Components and wires are written one at a time, so a file can be
+ * produced without ever holding all of it in memory.<br>
+ * The file header contains the component and wire counts, which are written before any component. When writing to a
+ * {@link SeekableByteChannel}, the counts are back-patched by {@link #finish()} once they're known. Otherwise, they have
+ * to be declared up front, and {@link #finish()} checks that exactly that many components and wires were written.<br>
+ * The parts of the file must be written in order: {@link #writeHeader}, the components, the wires, the circuit states,
+ * and then {@link #finish()}.
+ */
+public class BlotterWriter {
+    /**
+     * Offset of the component count from the start of the file: magic header, save format version, game version and
+     * save type.
+     */
+    private static final int COUNTS_OFFSET = 16 + 1 + 4 * 4 + 1;
+
+    private enum Phase {
+        HEADER, COMPONENTS, WIRES, CIRCUIT_STATES, FINISHED
+    }
+
+    private final DataOutput output;
+    private final SeekableByteChannel channel;
+    private final long startPosition;
+    private final int declaredComponentCount;
+    private final int declaredWireCount;
+    private int componentCount;
+    private int wireCount;
+    private boolean isWorld;
+    private Phase phase = Phase.HEADER;
+
+    /**
+     * Creates a writer for a non-seekable output. The counts are written into the header as-is.
+     */
+    public BlotterWriter(DataOutput output, int componentCount, int wireCount) {
+        if (componentCount < 0 || wireCount < 0) throw new IllegalArgumentException("Component and wire counts cannot be negative!");
+        this.output = output;
+        this.channel = null;
+        this.startPosition = 0;
+        this.declaredComponentCount = componentCount;
+        this.declaredWireCount = wireCount;
+    }
+
+    /**
+     * Creates a writer that starts at the current position of the channel, and back-patches the component and wire counts
+     * once the file is finished. The channel is not closed by the writer.
+     */
+    public BlotterWriter(SeekableByteChannel channel) throws IOException {
+        this.output = new EndianOutputStream(Channels.newOutputStream(channel), true);
+        this.channel = channel;
+        this.startPosition = channel.position();
+        this.declaredComponentCount = -1;
+        this.declaredWireCount = -1;
+    }
+
+    private void checkPhase(Phase expected, String part) {
+        if (phase.ordinal() > expected.ordinal()) throw new IllegalStateException("Cannot write " + part + " after the " + phase.name().toLowerCase().replace('_', ' ') + " were written!");
+    }
+
+    private void enterPhase(Phase target) throws IOException {
+        if (phase.ordinal() < Phase.WIRES.ordinal() && target.ordinal() >= Phase.WIRES.ordinal()) {
+            checkCount("component", declaredComponentCount, componentCount);
+        }
+        if (phase.ordinal() < Phase.CIRCUIT_STATES.ordinal() && target.ordinal() >= Phase.CIRCUIT_STATES.ordinal()) {
+            checkCount("wire", declaredWireCount, wireCount);
+        }
+        phase = target;
+    }
+
+    private static void checkCount(String part, int declared, int written) {
+        if (declared != -1 && declared != written) throw new IllegalStateException("Declared " + declared + " " + part + "s, but " + written + " were written!");
+    }
+
+    public void writeHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, Map<String, Version> mods, String[] componentIDs) throws IOException {
+        if (phase != Phase.HEADER) throw new IllegalStateException("Header was already written!");
+        this.isWorld = isWorld;
+        BlotterFile.writeHeader(output);
+        output.writeByte(saveFormatVersion);
+        gameVersion.serialize(output);
+        output.writeByte(isWorld ? 0x01 : 0x02);
+        output.writeInt(Math.max(declaredComponentCount, 0));
+        output.writeInt(Math.max(declaredWireCount, 0));
+        output.writeInt(mods.size());
+        for (var mod: mods.entrySet()) {
+            SerializationUtil.serializeString(output, mod.getKey());
+            mod.getValue().serialize(output);
+        }
+        output.writeInt(componentIDs.length);
+        for (int i = 0; i < componentIDs.length; i++) {
+            if (componentIDs[i] == null) throw new IllegalStateException("Component id " + i + " is a null string.");
+            output.writeShort(i);
+            SerializationUtil.serializeString(output, componentIDs[i]);
+        }
+        phase = Phase.COMPONENTS;
+    }
+
+    private void beginComponent() {
+        if (phase == Phase.HEADER) throw new IllegalStateException("Header must be written before the components!");
+        checkPhase(Phase.COMPONENTS, "components");
+        if (componentCount == declaredComponentCount) throw new IllegalStateException("Tried to write more than the declared " + declaredComponentCount + " components!");
+        componentCount++;
+    }
+
+    public void writeComponent(Component component) throws IOException {
+        beginComponent();
+        component.serialize(output);
+    }
+
+    public void writeComponent(ComponentView component) throws IOException {
+        beginComponent();
+        component.write(output);
+    }
+
+    public void writeComponents(Iterator<? extends Component> components) throws IOException {
+        while (components.hasNext()) {
+            writeComponent(components.next());
+        }
+    }
+
+    /**
+     * Counts components that the caller writes to the file itself, between the header and the wires, without writing
+     * anything. Used when the components are encoded separately, like by {@link BlotterFile#serializeParallel}.
+     */
+    public void skipComponents(int count) {
+        if (count < 0) throw new IllegalArgumentException("Component count cannot be negative!");
+        if (phase == Phase.HEADER) throw new IllegalStateException("Header must be written before the components!");
+        checkPhase(Phase.COMPONENTS, "components");
+        if (declaredComponentCount != -1 && count > declaredComponentCount - componentCount) throw new IllegalStateException("Tried to write more than the declared " + declaredComponentCount + " components!");
+        componentCount += count;
+    }
+
+    /**
+     * Counts wires that the caller writes to the file itself, between the components and the circuit states, without
+     * writing anything. Used when the wires are encoded separately, like by {@link BlotterFile#serializeParallel}.
+     */
+    public void skipWires(int count) throws IOException {
+        if (count < 0) throw new IllegalArgumentException("Wire count cannot be negative!");
+        if (phase == Phase.HEADER) throw new IllegalStateException("Header must be written before the wires!");
+        checkPhase(Phase.WIRES, "wires");
+        enterPhase(Phase.WIRES);
+        if (declaredWireCount != -1 && count > declaredWireCount - wireCount) throw new IllegalStateException("Tried to write more than the declared " + declaredWireCount + " wires!");
+        wireCount += count;
+    }
+
+    public void writeWire(Wire wire) throws IOException {
+        if (phase == Phase.HEADER) throw new IllegalStateException("Header must be written before the wires!");
+        checkPhase(Phase.WIRES, "wires");
+        enterPhase(Phase.WIRES);
+        if (wireCount == declaredWireCount) throw new IllegalStateException("Tried to write more than the declared " + declaredWireCount + " wires!");
+        wireCount++;
+        wire.serialize(output);
+    }
+
+    public void writeWires(Iterator<? extends Wire> wires) throws IOException {
+        while (wires.hasNext()) {
+            writeWire(wires.next());
+        }
+    }
+
+    /**
+     * Writes the circuit states of a world.
+     */
+    public void writeCircuitStates(int circuitStateCount, BitSet circuitStates) throws IOException {
+        beginCircuitStates(true);
+        int stateByteCount = (int)Math.ceil(circuitStateCount / 8d);
+        output.writeInt(stateByteCount);
+        var states = circuitStates.toByteArray();
+        output.write(states);
+        for (int i = states.length; i < stateByteCount; i++) {
+            output.writeByte(0);
+        }
+    }
+
+    /**
+     * Writes the powered circuit state IDs of a subassembly.
+     */
+    public void writeCircuitStates(int[] circuitStates) throws IOException {
+        beginCircuitStates(false);
+        output.writeInt(circuitStates.length);
+        SerializationUtil.writeInts(output, circuitStates, 0, circuitStates.length);
+    }
+
+    private void beginCircuitStates(boolean world) throws IOException {
+        if (phase == Phase.HEADER) throw new IllegalStateException("Header must be written before the circuit states!");
+        if (phase.ordinal() >= Phase.CIRCUIT_STATES.ordinal()) throw new IllegalStateException("Circuit states were already written!");
+        if (world != isWorld) throw new IllegalStateException(isWorld ? "Worlds must have a world circuit state bitset!" : "Subassemblies must have a list of powered circuit state IDs!");
+        enterPhase(Phase.CIRCUIT_STATES);
+    }
+
+    /**
+     * Writes the footer, and back-patches the counts if writing to a channel.
+     */
+    public void finish() throws IOException {
+        if (phase != Phase.CIRCUIT_STATES) throw new IllegalStateException("Circuit states must be written before finishing the file!");
+        BlotterFile.writeFooter(output);
+        phase = Phase.FINISHED;
+        if (channel != null) {
+            ((EndianOutputStream) output).flush();
+            long end = channel.position();
+            var counts = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(componentCount).putInt(wireCount).flip();
+            channel.position(startPosition + COUNTS_OFFSET);
+            while (counts.hasRemaining()) {
+                channel.write(counts);
+            }
+            channel.position(end);
+        }
+    }
+
+    /**
+     * Returns a visitor that writes every part it receives through this writer, so that a {@link BlotterReader} or a
+     * generator can be piped straight into it. The header is written once the first component, wire or circuit state
+     * arrives, and {@link BlotterVisitor#onEnd()} finishes the file. The counts passed to
+     * {@link BlotterVisitor#onHeader} are ignored, the writer's own declared or back-patched counts are used instead.
+     */
+    public BlotterVisitor visitor() {
+        return new BlotterVisitor() {
+            private byte saveFormatVersion;
+            private Version gameVersion;
+            private boolean isWorld;
+            private final Map<String, Version> mods = new LinkedHashMap<>();
+            private String[] componentIDs = new String[0];
+
+            @Override
+            public void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) {
+                this.saveFormatVersion = saveFormatVersion;
+                this.gameVersion = gameVersion;
+                this.isWorld = isWorld;
+            }
+
+            @Override
+            public void onMod(String name, Version version) {
+                mods.put(name, version);
+            }
+
+            @Override
+            public void onComponentId(int id, String name) {
+                if (id >= componentIDs.length) componentIDs = Arrays.copyOf(componentIDs, id + 1);
+                componentIDs[id] = name;
+            }
+
+            private void ensureHeader() throws IOException {
+                if (phase == Phase.HEADER) writeHeader(saveFormatVersion, gameVersion, isWorld, mods, componentIDs);
+            }
+
+            @Override
+            public void onComponent(ComponentView component) throws IOException {
+                ensureHeader();
+                writeComponent(component);
+            }
+
+            @Override
+            public void onWire(Wire wire) throws IOException {
+                ensureHeader();
+                writeWire(wire);
+            }
+
+            @Override
+            public void onCircuitStates(int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) throws IOException {
+                ensureHeader();
+                if (isWorld) {
+                    writeCircuitStates(circuitStateCount, worldCircuitStates);
+                } else {
+                    writeCircuitStates(subassemblyCircuitStates);
+                }
+            }
+
+            @Override
+            public void onEnd() throws IOException {
+                finish();
+            }
+        };
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getWireCount() {
+        return wireCount;
+    }
+}
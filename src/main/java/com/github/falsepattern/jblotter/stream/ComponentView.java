@@ -0,0 +1,210 @@
+package com.github.falsepattern.jblotter.stream;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mutable, reusable counterpart of {@link Component}. Peg circuit states and custom data are kept in primitive arrays
+ * that only grow, so decoding or encoding a stream of components through a single view allocates nothing once the
+ * arrays are large enough.
+ */
+public class ComponentView {
+    private int address;
+    private int parentAddress;
+    private short componentID;
+    private final Vector3f localPosition = new Vector3f();
+    private final Quaternionf localRotation = new Quaternionf();
+    private final float[] transform = new float[7];
+    private int[] inputs = new int[16];
+    private int inputCount;
+    private int[] outputs = new int[16];
+    private int outputCount;
+    private byte[] customData = new byte[64];
+    private int customDataLength;
+
+    /**
+     * Replaces the contents of this view with the next serialized component from the input.
+     */
+    public void read(DataInput input) throws IOException {
+        address = input.readInt();
+        parentAddress = input.readInt();
+        componentID = input.readShort();
+        SerializationUtil.readFloats(input, transform, 0, transform.length);
+        localPosition.set(transform[0], transform[1], transform[2]);
+        localRotation.set(transform[3], transform[4], transform[5], transform[6]);
+        inputCount = input.readInt();
+        if (inputCount < 0) throw new IllegalArgumentException("Component " + address + " has a negative input count!");
+        if (inputCount > inputs.length) inputs = new int[inputCount];
+        SerializationUtil.readInts(input, inputs, 0, inputCount);
+        outputCount = input.readInt();
+        if (outputCount < 0) throw new IllegalArgumentException("Component " + address + " has a negative output count!");
+        if (outputCount > outputs.length) outputs = new int[outputCount];
+        SerializationUtil.readInts(input, outputs, 0, outputCount);
+        customDataLength = input.readInt();
+        if (customDataLength < -1) throw new IllegalArgumentException("Component " + address + " has a negative custom data length!");
+        // -1 marks a component without custom data
+        if (customDataLength == -1) customDataLength = 0;
+        if (customDataLength > customData.length) customData = new byte[customDataLength];
+        input.readFully(customData, 0, customDataLength);
+    }
+
+    /**
+     * Writes the current contents of this view in the same format as {@link Component#serialize}.
+     */
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(address);
+        output.writeInt(parentAddress);
+        output.writeShort(componentID);
+        SerializationUtil.serializeVector3f(output, localPosition);
+        SerializationUtil.serializeQuaternionf(output, localRotation);
+        output.writeInt(inputCount);
+        SerializationUtil.writeInts(output, inputs, 0, inputCount);
+        output.writeInt(outputCount);
+        SerializationUtil.writeInts(output, outputs, 0, outputCount);
+        if (customDataLength == 0) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(customDataLength);
+            output.write(customData, 0, customDataLength);
+        }
+    }
+
+    /**
+     * Replaces the contents of this view with a copy of the given component.
+     */
+    public void set(Component component) {
+        set(component.address(), component.parentAddress(), component.componentID());
+        localPosition.set(component.localPosition());
+        localRotation.set(component.localRotation());
+        setInputCount(component.inputs().length);
+        for (int i = 0; i < inputCount; i++) {
+            inputs[i] = component.inputs()[i].circuitStateID();
+        }
+        setOutputCount(component.outputs().length);
+        for (int i = 0; i < outputCount; i++) {
+            outputs[i] = component.outputs()[i].circuitStateID();
+        }
+        setCustomData(component.customData(), 0, component.customData().length);
+    }
+
+    public void set(int address, int parentAddress, short componentID) {
+        this.address = address;
+        this.parentAddress = parentAddress;
+        this.componentID = componentID;
+    }
+
+    /**
+     * Resizes the inputs of this view. The circuit state IDs of the inputs are left unspecified, and should be set with
+     * {@link #setInputCircuitStateID}.
+     */
+    public void setInputCount(int count) {
+        if (count < 0) throw new IllegalArgumentException("Input count cannot be negative!");
+        if (count > inputs.length) inputs = new int[count];
+        inputCount = count;
+    }
+
+    public void setInputCircuitStateID(int index, int circuitStateID) {
+        if (index >= inputCount) throw new IndexOutOfBoundsException("Input index " + index + " out of bounds for input count " + inputCount);
+        inputs[index] = circuitStateID;
+    }
+
+    /**
+     * Resizes the outputs of this view. The circuit state IDs of the outputs are left unspecified, and should be set with
+     * {@link #setOutputCircuitStateID}.
+     */
+    public void setOutputCount(int count) {
+        if (count < 0) throw new IllegalArgumentException("Output count cannot be negative!");
+        if (count > outputs.length) outputs = new int[count];
+        outputCount = count;
+    }
+
+    public void setOutputCircuitStateID(int index, int circuitStateID) {
+        if (index >= outputCount) throw new IndexOutOfBoundsException("Output index " + index + " out of bounds for output count " + outputCount);
+        outputs[index] = circuitStateID;
+    }
+
+    public void setCustomData(byte[] data, int off, int len) {
+        if (len > customData.length) customData = new byte[len];
+        System.arraycopy(data, off, customData, 0, len);
+        customDataLength = len;
+    }
+
+    public int address() {
+        return address;
+    }
+
+    public int parentAddress() {
+        return parentAddress;
+    }
+
+    public short componentID() {
+        return componentID;
+    }
+
+    /**
+     * @return The position of this view. It's overwritten by the next component, copy it if you need to keep it.
+     */
+    public Vector3f localPosition() {
+        return localPosition;
+    }
+
+    /**
+     * @return The rotation of this view. It's overwritten by the next component, copy it if you need to keep it.
+     */
+    public Quaternionf localRotation() {
+        return localRotation;
+    }
+
+    public int inputCount() {
+        return inputCount;
+    }
+
+    public int inputCircuitStateID(int index) {
+        if (index >= inputCount) throw new IndexOutOfBoundsException("Input index " + index + " out of bounds for input count " + inputCount);
+        return inputs[index];
+    }
+
+    public int outputCount() {
+        return outputCount;
+    }
+
+    public int outputCircuitStateID(int index) {
+        if (index >= outputCount) throw new IndexOutOfBoundsException("Output index " + index + " out of bounds for output count " + outputCount);
+        return outputs[index];
+    }
+
+    public int customDataLength() {
+        return customDataLength;
+    }
+
+    /**
+     * @return The backing custom data array. Only the first {@link #customDataLength()} bytes are valid.
+     */
+    public byte[] customData() {
+        return customData;
+    }
+
+    /**
+     * Copies the current contents of this view into a new, immutable component.
+     */
+    public Component toComponent() {
+        var inputs = new Input[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            inputs[i] = new Input(this.inputs[i]);
+        }
+        var outputs = new Output[outputCount];
+        for (int i = 0; i < outputCount; i++) {
+            outputs[i] = new Output(this.outputs[i]);
+        }
+        return new Component(address, parentAddress, componentID, new Vector3f(localPosition), new Quaternionf(localRotation), inputs, outputs, Arrays.copyOf(customData, customDataLength));
+    }
+}
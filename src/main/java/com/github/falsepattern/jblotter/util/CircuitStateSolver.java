@@ -0,0 +1,93 @@
+package com.github.falsepattern.jblotter.util;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Recomputes the circuit state IDs of a {@link BlotterFile} directly on the object model, without going through the
+ * editable json format. The circuit state IDs already in the file are only used to look up which outputs are powered,
+ * so circuits can be built with placeholder IDs and solved afterwards.<br>
+ * The result has the same compact numbering as {@link SignalGraphSolver}. See {@link SignalGraph} for the details.
+ */
+public class CircuitStateSolver {
+    /**
+     * Solves the circuit states of the file, keeping the powered state of every output.
+     * @return A new file with the recomputed circuit states. The input file is not modified.
+     * @throws IllegalArgumentException If a wire is connected to a peg that doesn't exist.
+     */
+    public static BlotterFile solve(BlotterFile file) {
+        BitSet powered;
+        if (file.isWorld()) {
+            powered = file.worldCircuitStates();
+        } else {
+            powered = new BitSet();
+            for (int state: file.subassemblyCircuitStates()) {
+                powered.set(state);
+            }
+        }
+        return solve(file, powered, null);
+    }
+
+    /**
+     * Solves the circuit states of the file, with the powered outputs given by a predicate instead of the existing
+     * circuit states.
+     * @param powered Called once for every output of every component.
+     * @return A new file with the recomputed circuit states. The input file is not modified.
+     * @throws IllegalArgumentException If a wire is connected to a peg that doesn't exist.
+     */
+    public static BlotterFile solve(BlotterFile file, Predicate<PegAddress> powered) {
+        return solve(file, null, powered);
+    }
+
+    private static BlotterFile solve(BlotterFile file, BitSet poweredStates, Predicate<PegAddress> powered) {
+        var components = file.components();
+        var wires = file.wires();
+        var graph = new SignalGraph(components.size(), wires.length);
+        for (var component: components.values()) {
+            int index = graph.addComponent(component.address(), component.inputs().length, component.outputs().length);
+            var outputs = component.outputs();
+            for (int i = 0; i < outputs.length; i++) {
+                if (poweredStates != null ? poweredStates.get(outputs[i].circuitStateID()) : powered.test(new PegAddress(false, component.address(), i))) {
+                    graph.setPowered(index, i, true);
+                }
+            }
+        }
+        for (var wire: wires) {
+            graph.addWire(wire.firstPoint(), wire.secondPoint());
+        }
+        graph.solve();
+        var solvedComponents = new ComponentTable(components.size());
+        int index = 0;
+        for (var component: components.values()) {
+            var inputs = new Input[component.inputs().length];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = new Input(graph.inputCircuitStateID(index, i));
+            }
+            var outputs = new Output[component.outputs().length];
+            for (int i = 0; i < outputs.length; i++) {
+                outputs[i] = new Output(graph.outputCircuitStateID(index, i));
+            }
+            solvedComponents.put(new Component(component.address(), component.parentAddress(), component.componentID(), component.localPosition(), component.localRotation(), inputs, outputs, component.customData()));
+            index++;
+        }
+        var solvedWires = new Wire[wires.length];
+        for (int i = 0; i < wires.length; i++) {
+            var wire = wires[i];
+            solvedWires[i] = new Wire(wire.firstPoint(), wire.secondPoint(), graph.wireCircuitStateID(i), wire.rotation());
+        }
+        if (file.isWorld()) {
+            return new BlotterFile(file.saveFormatVersion(), file.gameVersion(), file.mods(), true, file.componentIDs(), solvedComponents, solvedWires, graph.circuitStateCount(), graph.poweredStates(), null);
+        } else {
+            var states = graph.poweredStateIDs();
+            return new BlotterFile(file.saveFormatVersion(), file.gameVersion(), file.mods(), false, file.componentIDs(), solvedComponents, solvedWires, states.length, null, states);
+        }
+    }
+}
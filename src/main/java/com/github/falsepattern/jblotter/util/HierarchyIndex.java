@@ -0,0 +1,268 @@
+package com.github.falsepattern.jblotter.util;
+
+import com.github.falsepattern.jblotter.objects.ColumnarBlotterFile;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.stream.BlotterVisitor;
+import com.github.falsepattern.jblotter.stream.ComponentView;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The parent/child structure of a set of components, for walking down the hierarchy instead of only up.<br>
+ * Components are numbered by their position in the input, like in {@link WorldTransforms}. The children of every
+ * component are stored as CSR lists: the children of component {@code i} are
+ * {@code childIndices()[childOffsets()[i]..childOffsets()[i + 1])}, in input order, and the top level components are
+ * stored as the children of index {@link #size()}.<br>
+ * Components are also numbered in pre-order, which is a parent-first order in which every subtree is a contiguous
+ * range, so checking whether one component is an ancestor of another, or listing a subtree, doesn't walk anything.
+ * Subtree sizes and depths are stored per component.<br>
+ * Everything is built in linear time, and the hierarchy can be collected while a file is streamed with
+ * {@link Builder}, without building the components.
+ */
+public class HierarchyIndex {
+    private final int size;
+    private final int[] addresses;
+    private final IntLongHashMap addressIndex;
+    private final int[] parents;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] preOrder;
+    private final int[] preOrderRanks;
+    private final int[] subtreeSizes;
+    private final int[] depths;
+
+    private HierarchyIndex(int size, int[] addresses, IntLongHashMap addressIndex, int[] parentAddresses) {
+        this.size = size;
+        this.addresses = addresses;
+        this.addressIndex = addressIndex;
+        parents = new int[size];
+        childOffsets = new int[size + 2];
+        for (int i = 0; i < size; i++) {
+            int parentAddress = parentAddresses[i];
+            int parent = parentAddress == 0 ? size : (int) addressIndex.get(parentAddress, -1);
+            if (parent < 0) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            parents[i] = parent;
+            childOffsets[parent + 1]++;
+        }
+        for (int i = 1; i < childOffsets.length; i++) {
+            childOffsets[i] += childOffsets[i - 1];
+        }
+        children = new int[size];
+        var next = Arrays.copyOf(childOffsets, size + 1);
+        for (int i = 0; i < size; i++) {
+            children[next[parents[i]]++] = i;
+        }
+        preOrder = new int[size];
+        preOrderRanks = new int[size];
+        subtreeSizes = new int[size];
+        depths = new int[size];
+        buildPreOrder();
+    }
+
+    /**
+     * @throws IllegalArgumentException If a component's parent doesn't exist, or the parents form a cycle.
+     */
+    public static HierarchyIndex build(Map<Integer, Component> components) {
+        int size = components.size();
+        var addresses = new int[size];
+        var parentAddresses = new int[size];
+        var addressIndex = new IntLongHashMap(size);
+        int index = 0;
+        for (var component: components.values()) {
+            addresses[index] = component.address();
+            parentAddresses[index] = component.parentAddress();
+            addressIndex.put(component.address(), index++, -1);
+        }
+        return new HierarchyIndex(size, addresses, addressIndex, parentAddresses);
+    }
+
+    public static HierarchyIndex build(ColumnarBlotterFile file) {
+        return build(file.getComponentCount(), file.addresses(), file.parentAddresses());
+    }
+
+    /**
+     * @throws IllegalArgumentException If a component's parent doesn't exist, or the parents form a cycle.
+     * @throws IllegalStateException If an address appears twice.
+     */
+    public static HierarchyIndex build(int count, int[] addresses, int[] parentAddresses) {
+        if (count < 0 || addresses.length < count || parentAddresses.length < count) throw new IllegalArgumentException("Fewer addresses than the count!");
+        var addressIndex = new IntLongHashMap(count);
+        for (int i = 0; i < count; i++) {
+            if (addressIndex.put(addresses[i], i, -1) != -1) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+        }
+        return new HierarchyIndex(count, Arrays.copyOf(addresses, count), addressIndex, parentAddresses);
+    }
+
+    /**
+     * Numbers the components in pre-order, with an explicit stack instead of recursion, since hierarchies can be deeper
+     * than the thread stack.
+     */
+    private void buildPreOrder() {
+        var stack = new int[Math.max(1, size)];
+        int top = 0;
+        int rank = 0;
+        for (int i = childOffsets[size + 1] - 1; i >= childOffsets[size]; i--) {
+            stack[top++] = children[i];
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            preOrderRanks[node] = rank;
+            preOrder[rank++] = node;
+            depths[node] = parents[node] == size ? 0 : depths[parents[node]] + 1;
+            for (int i = childOffsets[node + 1] - 1; i >= childOffsets[node]; i--) {
+                stack[top++] = children[i];
+            }
+        }
+        // Components that aren't reachable from the top level are parents of each other
+        if (rank != size) throw new IllegalArgumentException("Component hierarchy contains a cycle!");
+        for (int i = size - 1; i >= 0; i--) {
+            int node = preOrder[i];
+            subtreeSizes[node]++;
+            if (parents[node] != size) subtreeSizes[parents[node]] += subtreeSizes[node];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The index of the component, or -1 if there's no component with that address.
+     */
+    public int indexOf(int address) {
+        return (int) addressIndex.get(address, -1);
+    }
+
+    public int address(int index) {
+        return addresses[index];
+    }
+
+    /**
+     * @return The index of the parent, or -1 for top level components.
+     */
+    public int parent(int index) {
+        int parent = parents[index];
+        return parent == size ? -1 : parent;
+    }
+
+    public int childCount(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * @return The indices of the children, in input order.
+     */
+    public int[] children(int index) {
+        return Arrays.copyOfRange(children, childOffsets[index], childOffsets[index + 1]);
+    }
+
+    /**
+     * @return The indices of the top level components, in input order.
+     */
+    public int[] topLevel() {
+        return children(size);
+    }
+
+    /**
+     * @return The CSR offsets of the children lists, {@link #size()} + 2 of them. This is the internal array, so it must
+     * not be modified.
+     */
+    public int[] childOffsets() {
+        return childOffsets;
+    }
+
+    /**
+     * @return The children lists, indexed by {@link #childOffsets()}. This is the internal array, so it must not be
+     * modified.
+     */
+    public int[] childIndices() {
+        return children;
+    }
+
+    /**
+     * @return The component indices in pre-order. Parents always come before their children, so this is also a
+     * topological order. This is the internal array, so it must not be modified.
+     */
+    public int[] preOrder() {
+        return preOrder;
+    }
+
+    /**
+     * @return The position of the component in {@link #preOrder()}.
+     */
+    public int preOrderRank(int index) {
+        return preOrderRanks[index];
+    }
+
+    /**
+     * @return The amount of components in the subtree, including the component itself.
+     */
+    public int subtreeSize(int index) {
+        return subtreeSizes[index];
+    }
+
+    /**
+     * @return The amount of ancestors of the component. Top level components have a depth of 0.
+     */
+    public int depth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * @return Whether the first component is a parent, grandparent, etc. of the second one. Components aren't their own
+     * ancestors.
+     */
+    public boolean isAncestor(int ancestor, int descendant) {
+        int rank = preOrderRanks[descendant];
+        return rank > preOrderRanks[ancestor] && rank < preOrderRanks[ancestor] + subtreeSizes[ancestor];
+    }
+
+    /**
+     * @return The indices of the component and everything under it, in pre-order.
+     */
+    public int[] subtree(int index) {
+        int rank = preOrderRanks[index];
+        return Arrays.copyOfRange(preOrder, rank, rank + subtreeSizes[index]);
+    }
+
+    /**
+     * Collects the addresses and parents of streamed components, checking that every component's parent appeared before
+     * it. Feed it to {@link com.github.falsepattern.jblotter.stream.BlotterReader#read} or any other source of visitor
+     * callbacks, then call {@link #build()}.
+     */
+    public static class Builder implements BlotterVisitor {
+        private int count;
+        private int[] addresses = new int[16];
+        private int[] parentAddresses = new int[16];
+        private IntLongHashMap addressIndex = new IntLongHashMap();
+
+        @Override
+        public void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) {
+            count = 0;
+            addresses = new int[Math.max(16, componentCount)];
+            parentAddresses = new int[addresses.length];
+            addressIndex = new IntLongHashMap(componentCount);
+        }
+
+        @Override
+        public void onComponent(ComponentView component) {
+            int address = component.address();
+            int parentAddress = component.parentAddress();
+            if (parentAddress != 0 && !addressIndex.containsKey(parentAddress)) throw new IllegalArgumentException("Parent component with ID " + parentAddress + " not found!");
+            if (addressIndex.containsKey(address)) throw new IllegalStateException("Component address conflict. This is unspecified behaviour, so the deserializer will now fail.");
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+                parentAddresses = Arrays.copyOf(parentAddresses, count * 2);
+            }
+            addresses[count] = address;
+            parentAddresses[count] = parentAddress;
+            addressIndex.put(address, count++, -1);
+        }
+
+        public HierarchyIndex build() {
+            return new HierarchyIndex(count, Arrays.copyOf(addresses, count), addressIndex, parentAddresses);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.falsepattern.jblotter.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map with primitive int keys and long values, using linear probing. Nothing is boxed, and the
+ * whole table lives in two flat arrays.
+ */
+public class IntLongHashMap {
+    private static final int FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    public IntLongHashMap() {
+        this(16);
+    }
+
+    public IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.min(1 << 30, (long) (expectedSize / LOAD_FACTOR) + 1)) - 1) << 1;
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int i = hash(key) & mask;
+        while (keys[i] != key && keys[i] != FREE_KEY) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) return hasFreeKey;
+        return keys[slot(key)] == key;
+    }
+
+    public long get(int key, long defaultValue) {
+        if (key == FREE_KEY) return hasFreeKey ? freeKeyValue : defaultValue;
+        int i = slot(key);
+        return keys[i] == key ? values[i] : defaultValue;
+    }
+
+    /**
+     * @return The previous value associated with the key, or {@code defaultValue} if there was none.
+     */
+    public long put(int key, long value, long defaultValue) {
+        if (key == FREE_KEY) {
+            long previous = hasFreeKey ? freeKeyValue : defaultValue;
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return previous;
+        }
+        int i = slot(key);
+        if (keys[i] == key) {
+            long previous = values[i];
+            values[i] = value;
+            return previous;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * LOAD_FACTOR) rehash(keys.length << 1);
+        return defaultValue;
+    }
+
+    /**
+     * @return The value that was associated with the key, or {@code defaultValue} if there was none.
+     */
+    public long remove(int key, long defaultValue) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) return defaultValue;
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        int i = slot(key);
+        if (keys[i] != key) return defaultValue;
+        long previous = values[i];
+        size--;
+        // Backward-shift deletion, so that lookups never need tombstones
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != FREE_KEY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE_KEY) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
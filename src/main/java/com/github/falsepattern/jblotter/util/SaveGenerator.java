@@ -0,0 +1,347 @@
+package com.github.falsepattern.jblotter.util;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+import com.github.falsepattern.jblotter.stream.BlotterVisitor;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.stream.ComponentView;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic, but structurally valid saves, for testing and benchmarking.<br>
+ * The save is built out of circuit blocks. Every block is a board with its circuit placed on it, and boards are either
+ * top-level or nested on an earlier board. There are three kinds of circuits:
+ * <ul>
+ *     <li>Chains: buffers wired one after another.</li>
+ *     <li>Buses: a driver whose outputs are wired to a row of taps, with every line joining the matching inputs of all
+ *     the taps.</li>
+ *     <li>Fan-outs: a driver with a single output wired to a row of buffers.</li>
+ * </ul>
+ * The mix of circuits is random by default. With a wire density, blocks are picked to keep the wire count close to
+ * the requested amount of wires per component: buses, as wide as {@code maxFanOut} allows, while the save is short on
+ * wires, and chains or bare boards while it has too many.<br>
+ * Circuit state IDs are assigned the same way {@link SignalGraph} does, and the powered states are consistent with the
+ * wiring, so {@link CircuitStateSolver} leaves generated saves unchanged.<br>
+ * Only the layout of the blocks and the powered circuit states are kept in memory. Components and wires are generated
+ * on the fly as they're handed to a {@link BlotterVisitor}, so saves with tens of millions of components can be
+ * streamed straight to disk with {@link #write(Path)}. The same seed and parameters always produce the same save.
+ */
+public class SaveGenerator {
+    public static final int DEFAULT_MAX_FAN_OUT = 16;
+    /**
+     * Wire density that leaves the mix of circuits random.
+     */
+    public static final double RANDOM_WIRE_DENSITY = -1;
+    private static final Version GAME_VERSION = new Version(0, 91, 0, 0);
+    private static final String[] COMPONENT_IDS = {"JBlotter.Board", "JBlotter.Buffer", "JBlotter.Driver", "JBlotter.Tap"};
+    private static final short BOARD = 0;
+    private static final short BUFFER = 1;
+    private static final short DRIVER = 2;
+    private static final short TAP = 3;
+    private static final int MAX_CHAIN_LENGTH = 64;
+    private static final int MAX_BUS_TAPS = 32;
+    private static final byte[] NO_DATA = new byte[0];
+
+    private enum Circuit {
+        NONE, CHAIN, BUS, FAN_OUT
+    }
+
+    /**
+     * @param board The address of the board. The circuit's components follow it directly.
+     * @param length The amount of buffers in a chain or fan-out, or of taps on a bus.
+     * @param width The amount of lines of a bus.
+     */
+    private record Block(Circuit circuit, int board, int length, int width) {
+        int componentCount() {
+            return switch (circuit) {
+                case NONE -> 1;
+                case CHAIN -> 1 + length;
+                case BUS, FAN_OUT -> 2 + length;
+            };
+        }
+
+        int wireCount() {
+            return switch (circuit) {
+                case NONE -> 0;
+                case CHAIN -> length - 1;
+                case BUS -> width * length;
+                case FAN_OUT -> length;
+            };
+        }
+
+        int circuitStateCount() {
+            return switch (circuit) {
+                case NONE -> 0;
+                case CHAIN -> 2 * length;
+                case BUS -> 2 * width;
+                case FAN_OUT -> 1 + 2 * length;
+            };
+        }
+    }
+
+    private final long seed;
+    private final int componentCount;
+    private final boolean world;
+    private final List<Block> blocks = new ArrayList<>();
+    private final int wireCount;
+    private final int circuitStateCount;
+
+    public SaveGenerator(long seed, int componentCount, boolean world) {
+        this(seed, componentCount, world, DEFAULT_MAX_FAN_OUT);
+    }
+
+    /**
+     * @param maxFanOut The maximum amount of lines on a bus, and of buffers driven by a fan-out.
+     */
+    public SaveGenerator(long seed, int componentCount, boolean world, int maxFanOut) {
+        this(seed, componentCount, world, maxFanOut, RANDOM_WIRE_DENSITY);
+    }
+
+    /**
+     * @param maxFanOut The maximum amount of lines on a bus, and of buffers driven by a fan-out.
+     * @param wiresPerComponent The amount of wires to aim for per component, or {@link #RANDOM_WIRE_DENSITY}. Densities
+     *                          above about {@code maxFanOut} can't be reached.
+     */
+    public SaveGenerator(long seed, int componentCount, boolean world, int maxFanOut, double wiresPerComponent) {
+        if (componentCount < 0) throw new IllegalArgumentException("Component count cannot be negative!");
+        if (maxFanOut < 1) throw new IllegalArgumentException("Max fan-out must be at least 1!");
+        if (wiresPerComponent != RANDOM_WIRE_DENSITY && !(wiresPerComponent >= 0)) throw new IllegalArgumentException("Wires per component cannot be negative!");
+        this.seed = seed;
+        this.componentCount = componentCount;
+        this.world = world;
+        var random = new Random(seed);
+        int address = 1;
+        int remaining = componentCount;
+        long wires = 0;
+        long states = 0;
+        while (remaining > 0) {
+            remaining--;
+            // A width of 0 picks a random bus width
+            int width = 0;
+            Circuit circuit;
+            if (remaining == 0) {
+                circuit = Circuit.NONE;
+            } else if (wiresPerComponent == RANDOM_WIRE_DENSITY) {
+                circuit = Circuit.values()[1 + random.nextInt(3)];
+            } else if (wires < wiresPerComponent * (componentCount - remaining)) {
+                // Short on wires: a bus about as dense as requested, or a bit denser to catch up
+                circuit = wiresPerComponent < 1 ? Circuit.FAN_OUT : Circuit.BUS;
+                width = Math.min(maxFanOut, (int) Math.ceil(wiresPerComponent) + random.nextInt(2));
+            } else {
+                circuit = wiresPerComponent < 1 ? Circuit.NONE : Circuit.CHAIN;
+            }
+            if (circuit == Circuit.BUS && remaining < 3 || circuit == Circuit.FAN_OUT && remaining < 2) circuit = Circuit.CHAIN;
+            var block = switch (circuit) {
+                case NONE -> new Block(circuit, address, 0, 0);
+                case CHAIN -> new Block(circuit, address, Math.min(remaining, 2 + random.nextInt(MAX_CHAIN_LENGTH - 1)), 0);
+                case BUS -> new Block(circuit, address, Math.min(remaining - 1, 2 + random.nextInt(MAX_BUS_TAPS - 1)), width == 0 ? 1 + random.nextInt(maxFanOut) : width);
+                case FAN_OUT -> new Block(circuit, address, Math.min(remaining - 1, 1 + random.nextInt(maxFanOut)), 0);
+            };
+            blocks.add(block);
+            remaining -= block.componentCount() - 1;
+            address += block.componentCount();
+            wires += block.wireCount();
+            states += block.circuitStateCount();
+        }
+        this.wireCount = Math.toIntExact(wires);
+        this.circuitStateCount = Math.toIntExact(states);
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int wireCount() {
+        return wireCount;
+    }
+
+    public int circuitStateCount() {
+        return circuitStateCount;
+    }
+
+    public boolean isWorld() {
+        return world;
+    }
+
+    /**
+     * Generates the whole save in memory.
+     */
+    public BlotterFile generate() {
+        var builder = new BlotterFile.Builder();
+        try {
+            generate(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the save to the output. The components and wires are never held in memory.
+     */
+    public void write(DataOutput output) throws IOException {
+        generate(new BlotterWriter(output, componentCount, wireCount).visitor());
+    }
+
+    /**
+     * Writes the save to a file, replacing it if it exists. The components and wires are never held in memory.
+     */
+    public void write(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             var output = new EndianOutputStream(Channels.newOutputStream(channel), true)) {
+            write(output);
+        }
+    }
+
+    /**
+     * Hands every part of the save to the visitor, in file order.
+     */
+    public void generate(BlotterVisitor visitor) throws IOException {
+        visitor.onHeader((byte) 0x05, GAME_VERSION, world, componentCount, wireCount);
+        for (int i = 0; i < COMPONENT_IDS.length; i++) {
+            visitor.onComponentId(i, COMPONENT_IDS[i]);
+        }
+        var random = new Random(~seed);
+        var powered = new BitSet(circuitStateCount);
+        var view = new ComponentView();
+        var boardData = new byte[12];
+        int state = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            var block = blocks.get(i);
+            int top = world ? 0 : 1;
+            int parent = i == 0 ? 0 : random.nextBoolean() ? top : blocks.get(random.nextInt(i)).board;
+            view.set(block.board, parent, BOARD);
+            view.localPosition().set(random.nextFloat() * 64, random.nextFloat() * 4, random.nextFloat() * 64);
+            view.localRotation().identity();
+            view.setInputCount(0);
+            view.setOutputCount(0);
+            random.nextBytes(boardData);
+            view.setCustomData(boardData, 0, boardData.length);
+            visitor.onComponent(view);
+            view.setCustomData(NO_DATA, 0, 0);
+            int member = block.board + 1;
+            switch (block.circuit) {
+                case CHAIN -> {
+                    for (int j = 0; j < block.length; j++) {
+                        place(view, member + j, block.board, BUFFER, j);
+                        view.setInputCount(1);
+                        view.setInputCircuitStateID(0, state);
+                        if (j > 0 && powered.get(state - 1)) powered.set(state);
+                        view.setOutputCount(1);
+                        view.setOutputCircuitStateID(0, state + 1);
+                        powered.set(state + 1, random.nextBoolean());
+                        state += 2;
+                        visitor.onComponent(view);
+                    }
+                }
+                case BUS -> {
+                    int drivers = state;
+                    int lines = state + block.width;
+                    place(view, member, block.board, DRIVER, 0);
+                    view.setInputCount(0);
+                    view.setOutputCount(block.width);
+                    for (int w = 0; w < block.width; w++) {
+                        view.setOutputCircuitStateID(w, drivers + w);
+                        if (random.nextBoolean()) {
+                            powered.set(drivers + w);
+                            powered.set(lines + w);
+                        }
+                    }
+                    visitor.onComponent(view);
+                    for (int j = 0; j < block.length; j++) {
+                        place(view, member + 1 + j, block.board, TAP, j + 1);
+                        view.setInputCount(block.width);
+                        for (int w = 0; w < block.width; w++) {
+                            view.setInputCircuitStateID(w, lines + w);
+                        }
+                        view.setOutputCount(0);
+                        visitor.onComponent(view);
+                    }
+                    state += 2 * block.width;
+                }
+                case FAN_OUT -> {
+                    boolean driverPowered = random.nextBoolean();
+                    place(view, member, block.board, DRIVER, 0);
+                    view.setInputCount(0);
+                    view.setOutputCount(1);
+                    view.setOutputCircuitStateID(0, state);
+                    powered.set(state, driverPowered);
+                    visitor.onComponent(view);
+                    state++;
+                    for (int j = 0; j < block.length; j++) {
+                        place(view, member + 1 + j, block.board, BUFFER, j + 1);
+                        view.setInputCount(1);
+                        view.setInputCircuitStateID(0, state);
+                        powered.set(state, driverPowered);
+                        view.setOutputCount(1);
+                        view.setOutputCircuitStateID(0, state + 1);
+                        powered.set(state + 1, random.nextBoolean());
+                        state += 2;
+                        visitor.onComponent(view);
+                    }
+                }
+            }
+        }
+        generateWires(visitor);
+        if (world) {
+            visitor.onCircuitStates(circuitStateCount, powered, null);
+        } else {
+            var states = powered.stream().toArray();
+            visitor.onCircuitStates(states.length, null, states);
+        }
+        visitor.onEnd();
+    }
+
+    /**
+     * Lays the components of a circuit out in rows on their board.
+     */
+    private static void place(ComponentView view, int address, int board, short componentID, int index) {
+        view.set(address, board, componentID);
+        view.localPosition().set((index % 16) * 0.3f, 0.075f, (index / 16) * 0.3f);
+        view.localRotation().identity();
+    }
+
+    private void generateWires(BlotterVisitor visitor) throws IOException {
+        int state = 0;
+        for (var block: blocks) {
+            int member = block.board + 1;
+            switch (block.circuit) {
+                case CHAIN -> {
+                    for (int j = 0; j + 1 < block.length; j++) {
+                        visitor.onWire(new Wire(new PegAddress(false, member + j, 0), new PegAddress(true, member + j + 1, 0), state + 2 * j + 1, 0));
+                    }
+                }
+                case BUS -> {
+                    int drivers = state;
+                    int lines = state + block.width;
+                    for (int w = 0; w < block.width; w++) {
+                        visitor.onWire(new Wire(new PegAddress(false, member, w), new PegAddress(true, member + 1, w), drivers + w, 0));
+                        for (int j = 0; j + 1 < block.length; j++) {
+                            visitor.onWire(new Wire(new PegAddress(true, member + 1 + j, w), new PegAddress(true, member + 2 + j, w), lines + w, 0));
+                        }
+                    }
+                }
+                case FAN_OUT -> {
+                    for (int j = 0; j < block.length; j++) {
+                        visitor.onWire(new Wire(new PegAddress(false, member, 0), new PegAddress(true, member + 1 + j, 0), state, 0));
+                    }
+                }
+            }
+            state += block.circuitStateCount();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.falsepattern.jblotter.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.github.falsepattern.jblotter.util.json.JsonUtil;
 
 import java.io.DataOutput;
 import java.io.IOException;
@@ -9,4 +11,20 @@ public interface Serializable {
     void serialize(DataOutput output) throws IOException;
     JsonNode toJson();
     JsonNode toEditableJson();
+
+    /**
+     * Streams the same JSON as {@link #toJson()} to the generator. The default builds the node tree and writes that, so
+     * implementations should override it to skip the tree.
+     */
+    default void writeJson(JsonGenerator generator) throws IOException {
+        JsonUtil.writeTree(generator, toJson());
+    }
+
+    /**
+     * Streams the same JSON as {@link #toEditableJson()} to the generator. The default builds the node tree and writes
+     * that, so implementations should override it to skip the tree.
+     */
+    default void writeEditableJson(JsonGenerator generator) throws IOException {
+        JsonUtil.writeTree(generator, toEditableJson());
+    }
 }
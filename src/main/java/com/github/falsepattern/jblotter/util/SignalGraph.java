@@ -0,0 +1,291 @@
+package com.github.falsepattern.jblotter.util;
+
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Assigns circuit state IDs to the pegs and wires of a circuit, and computes which of those circuit states are powered.
+ * <br>
+ * Every peg of every component is given a dense int index, in the order the components were added (inputs first, then
+ * outputs). Inputs joined by wires are merged into a single cluster with a union-find, every output gets a circuit
+ * state of its own, and every wire shares the circuit state of the output it's connected to, or of the input cluster if
+ * it connects two inputs. Circuit state IDs are compact, and are handed out in the order their first peg was added.<br>
+ * An input cluster is powered if any output wired into it is powered. This is resolved in a single worklist pass over
+ * the powered outputs, using a CSR adjacency list from outputs to the inputs they're wired to.<br>
+ * Solving is near-linear in the number of pegs and wires. Components and wires can still be added after solving, but
+ * the results are only updated by the next call to {@link #solve()}.
+ */
+public class SignalGraph {
+    private final IntLongHashMap componentIndices;
+    private int[] componentAddresses;
+    private int[] inputCounts;
+    /**
+     * Index of the first peg of each component. Has one more element than the number of components, the last one being
+     * the total number of pegs.
+     */
+    private int[] pegOffsets;
+    private int componentCount;
+    private final BitSet poweredOutputs = new BitSet();
+    /**
+     * Component address and peg index of both ends of each wire, four ints per wire.
+     */
+    private int[] wireEnds;
+    /**
+     * Whether each end of each wire is an input, two bits per wire.
+     */
+    private final BitSet wireInputs = new BitSet();
+    private int wireCount;
+
+    private int[] pegStates = new int[0];
+    private int[] wireStates = new int[0];
+    private final BitSet poweredStates = new BitSet();
+    private int circuitStateCount;
+
+    public SignalGraph() {
+        this(16, 16);
+    }
+
+    public SignalGraph(int expectedComponents, int expectedWires) {
+        expectedComponents = Math.max(expectedComponents, 1);
+        componentIndices = new IntLongHashMap(expectedComponents);
+        componentAddresses = new int[expectedComponents];
+        inputCounts = new int[expectedComponents];
+        pegOffsets = new int[expectedComponents + 1];
+        wireEnds = new int[Math.max(expectedWires, 1) * 4];
+    }
+
+    /**
+     * Adds the pegs of a component. The outputs start out unpowered.
+     * @return The index of the component, for use with the other component methods.
+     */
+    public int addComponent(int address, int inputCount, int outputCount) {
+        if (inputCount < 0 || outputCount < 0) throw new IllegalArgumentException("Component " + Integer.toUnsignedString(address) + " has a negative peg count!");
+        if (componentIndices.containsKey(address)) throw new IllegalArgumentException("Component address " + Integer.toUnsignedString(address) + " was added twice!");
+        int index = componentCount;
+        if (index == componentAddresses.length) {
+            int capacity = index + (index >> 1) + 1;
+            componentAddresses = Arrays.copyOf(componentAddresses, capacity);
+            inputCounts = Arrays.copyOf(inputCounts, capacity);
+            pegOffsets = Arrays.copyOf(pegOffsets, capacity + 1);
+        }
+        componentIndices.put(address, index, -1);
+        componentAddresses[index] = address;
+        inputCounts[index] = inputCount;
+        pegOffsets[index + 1] = Math.addExact(pegOffsets[index], inputCount + outputCount);
+        componentCount++;
+        return index;
+    }
+
+    public void setPowered(int component, int output, boolean powered) {
+        poweredOutputs.set(outputPeg(component, output), powered);
+    }
+
+    /**
+     * Adds a wire between two pegs. The pegs don't have to exist yet, they are only looked up by {@link #solve()}.
+     * @return The index of the wire, for use with {@link #wireCircuitStateID}.
+     */
+    public int addWire(PegAddress first, PegAddress second) {
+        return addWire(first.input(), first.componentAddress(), first.pegIndex(), second.input(), second.componentAddress(), second.pegIndex());
+    }
+
+    public int addWire(boolean firstInput, int firstAddress, int firstPeg, boolean secondInput, int secondAddress, int secondPeg) {
+        int index = wireCount;
+        int base = index * 4;
+        if (base == wireEnds.length) {
+            wireEnds = Arrays.copyOf(wireEnds, base + (index >> 1) * 4 + 4);
+        }
+        wireEnds[base] = firstAddress;
+        wireEnds[base + 1] = firstPeg;
+        wireEnds[base + 2] = secondAddress;
+        wireEnds[base + 3] = secondPeg;
+        wireInputs.set(index * 2, firstInput);
+        wireInputs.set(index * 2 + 1, secondInput);
+        wireCount++;
+        return index;
+    }
+
+    private int inputPeg(int component, int input) {
+        checkComponent(component);
+        if (input < 0 || input >= inputCounts[component]) throw new IndexOutOfBoundsException("Input index " + input + " out of bounds for input count " + inputCounts[component]);
+        return pegOffsets[component] + input;
+    }
+
+    private int outputPeg(int component, int output) {
+        checkComponent(component);
+        int outputCount = pegOffsets[component + 1] - pegOffsets[component] - inputCounts[component];
+        if (output < 0 || output >= outputCount) throw new IndexOutOfBoundsException("Output index " + output + " out of bounds for output count " + outputCount);
+        return pegOffsets[component] + inputCounts[component] + output;
+    }
+
+    private void checkComponent(int component) {
+        if (component < 0 || component >= componentCount) throw new IndexOutOfBoundsException("Component index " + component + " out of bounds for component count " + componentCount);
+    }
+
+    /**
+     * Resolves one end of a wire to its peg index.
+     * @throws IllegalArgumentException If the peg doesn't exist.
+     */
+    private int resolve(int wire, int end) {
+        boolean input = wireInputs.get(wire * 2 + end);
+        int address = wireEnds[wire * 4 + end * 2];
+        int peg = wireEnds[wire * 4 + end * 2 + 1];
+        int component = (int) componentIndices.get(address, -1);
+        int count = component == -1 ? 0 : input ? inputCounts[component] : pegOffsets[component + 1] - pegOffsets[component] - inputCounts[component];
+        if (peg < 0 || peg >= count) {
+            throw new IllegalArgumentException("Wire " + wire + " is connected to " + (input ? "input " : "output ") + peg + " of component " + Integer.toUnsignedString(address) + ", which does not exist!");
+        }
+        return pegOffsets[component] + (input ? 0 : inputCounts[component]) + peg;
+    }
+
+    private static int find(int[] parents, int peg) {
+        while (parents[peg] != peg) {
+            parents[peg] = parents[parents[peg]];
+            peg = parents[peg];
+        }
+        return peg;
+    }
+
+    /**
+     * Assigns the circuit state IDs and computes the powered states.
+     * @throws IllegalArgumentException If a wire is connected to a peg that doesn't exist.
+     */
+    public void solve() {
+        int pegCount = pegOffsets[componentCount];
+        var ends = new int[wireCount * 2];
+        var parents = new int[pegCount];
+        var sizes = new int[pegCount];
+        for (int i = 0; i < pegCount; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        // Merge the input clusters, and count the wires of each output for the adjacency list
+        var adjacencyOffsets = new int[pegCount + 1];
+        for (int wire = 0; wire < wireCount; wire++) {
+            int a = ends[wire * 2] = resolve(wire, 0);
+            int b = ends[wire * 2 + 1] = resolve(wire, 1);
+            boolean aInput = wireInputs.get(wire * 2);
+            boolean bInput = wireInputs.get(wire * 2 + 1);
+            if (aInput && bInput) {
+                a = find(parents, a);
+                b = find(parents, b);
+                if (a == b) continue;
+                if (sizes[a] < sizes[b]) {
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                parents[b] = a;
+                sizes[a] += sizes[b];
+            } else if (aInput != bInput) {
+                adjacencyOffsets[(aInput ? b : a) + 1]++;
+            }
+        }
+        for (int i = 0; i < pegCount; i++) {
+            adjacencyOffsets[i + 1] += adjacencyOffsets[i];
+        }
+        var adjacency = new int[adjacencyOffsets[pegCount]];
+        var fill = Arrays.copyOf(adjacencyOffsets, pegCount);
+        for (int wire = 0; wire < wireCount; wire++) {
+            boolean aInput = wireInputs.get(wire * 2);
+            if (aInput != wireInputs.get(wire * 2 + 1)) {
+                int output = aInput ? ends[wire * 2 + 1] : ends[wire * 2];
+                int input = aInput ? ends[wire * 2] : ends[wire * 2 + 1];
+                adjacency[fill[output]++] = input;
+            }
+        }
+        // Power every cluster reachable from a powered output
+        var poweredRoots = new BitSet(pegCount);
+        var worklist = new int[poweredOutputs.cardinality()];
+        int pending = 0;
+        for (int output = poweredOutputs.nextSetBit(0); output >= 0; output = poweredOutputs.nextSetBit(output + 1)) {
+            worklist[pending++] = output;
+        }
+        while (pending > 0) {
+            int output = worklist[--pending];
+            poweredRoots.set(output);
+            for (int i = adjacencyOffsets[output]; i < adjacencyOffsets[output + 1]; i++) {
+                poweredRoots.set(find(parents, adjacency[i]));
+            }
+        }
+        // Hand out compact IDs in peg order
+        var rootStates = new int[pegCount];
+        Arrays.fill(rootStates, -1);
+        pegStates = new int[pegCount];
+        poweredStates.clear();
+        int nextState = 0;
+        for (int peg = 0; peg < pegCount; peg++) {
+            int root = find(parents, peg);
+            if (rootStates[root] == -1) {
+                rootStates[root] = nextState;
+                if (poweredRoots.get(root)) poweredStates.set(nextState);
+                nextState++;
+            }
+            pegStates[peg] = rootStates[root];
+        }
+        circuitStateCount = nextState;
+        wireStates = new int[wireCount];
+        for (int wire = 0; wire < wireCount; wire++) {
+            // Wires take the state of the output they're connected to. Output-to-output wires aren't valid in-game, so
+            // those simply use the first output.
+            boolean secondOutput = !wireInputs.get(wire * 2 + 1) && wireInputs.get(wire * 2);
+            wireStates[wire] = pegStates[ends[wire * 2 + (secondOutput ? 1 : 0)]];
+        }
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int componentAddress(int component) {
+        checkComponent(component);
+        return componentAddresses[component];
+    }
+
+    /**
+     * @return The index of the component with the given address, or -1 if there is none.
+     */
+    public int componentIndex(int address) {
+        return (int) componentIndices.get(address, -1);
+    }
+
+    public int wireCount() {
+        return wireCount;
+    }
+
+    public int inputCircuitStateID(int component, int input) {
+        return pegStates[inputPeg(component, input)];
+    }
+
+    public int outputCircuitStateID(int component, int output) {
+        return pegStates[outputPeg(component, output)];
+    }
+
+    public int wireCircuitStateID(int wire) {
+        if (wire < 0 || wire >= wireStates.length) throw new IndexOutOfBoundsException("Wire index " + wire + " out of bounds for solved wire count " + wireStates.length);
+        return wireStates[wire];
+    }
+
+    public int circuitStateCount() {
+        return circuitStateCount;
+    }
+
+    public boolean isPowered(int circuitStateID) {
+        return poweredStates.get(circuitStateID);
+    }
+
+    /**
+     * @return A copy of the powered circuit states, as used by worlds.
+     */
+    public BitSet poweredStates() {
+        return (BitSet) poweredStates.clone();
+    }
+
+    /**
+     * @return The sorted IDs of the powered circuit states, as used by subassemblies.
+     */
+    public int[] poweredStateIDs() {
+        return poweredStates.stream().toArray();
+    }
+}
@@ -1,6 +1,5 @@
 package com.github.falsepattern.jblotter.util;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -8,49 +7,16 @@ import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
 import com.github.falsepattern.jblotter.util.json.JsonParseException;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
+/**
+ * Fills in the circuit state IDs of an editable json save, using a {@link SignalGraph}. The nodes passed in are
+ * modified in place.
+ */
 public class SignalGraphSolver {
-    private final Map<PegAddress, ObjectNode> addressMap = new HashMap<>();
-    private final Map<ObjectNode, PegAddress> reverseMap = new HashMap<>();
-    private final Map<PegAddress, Map<PegAddress, ObjectNode>> wires = new HashMap<>();
-    private final Set<Integer> usedIDs = new HashSet<>();
-    private final Map<Integer, Boolean> idStates = new HashMap<>();
-
-    private void replaceNodeStateID(ObjectNode node, int old, int i) {
-        if (node.has("circuitStateID") && node.get("circuitStateID").intValue() == old) {
-            node.put("circuitStateID", i);
-        }
-    }
-
-    @SuppressWarnings("OptionalGetWithoutIsPresent")
-    private void defragIDs() {
-        int max = usedIDs.stream().max(Integer::compareTo).get();
-        for (int i = 0; i < max; i++) {
-            if (!usedIDs.contains(i)) {
-                usedIDs.add(i);
-                usedIDs.remove(max);
-                for (var node: addressMap.values()) {
-                    replaceNodeStateID(node, max, i);
-                }
-                for (var group: wires.values()) {
-                    for (var node: group.values()) {
-                        replaceNodeStateID(node, max, i);
-                    }
-                }
-                max = usedIDs.stream().max(Integer::compareTo).get();
-            }
-        }
-    }
-
-    private int nextFreeID() {
-        for (int i = 0;;i++) {
-            if (!usedIDs.contains(i)) return i;
-        }
-    }
+    private final SignalGraph graph = new SignalGraph();
+    private final List<ObjectNode> components = new ArrayList<>();
+    private final List<ObjectNode> wires = new ArrayList<>();
 
     public void addComponents(ArrayNode components) {
         for (var component: components) {
@@ -60,142 +26,55 @@ public class SignalGraphSolver {
 
     public void addPegs(ObjectNode component) {
         int componentAddress = (int)component.get("componentAddress").longValue();
-        var inputs = (ArrayNode) component.get("inputs");
-        var outputs = (ArrayNode) component.get("outputs");
-        var inputCount = inputs.size();
-        var outputCount = outputs.size();
-        for (int i = 0; i < inputCount; i++) {
-            var input = (ObjectNode)inputs.get(i);
-            var addr = new PegAddress(true, componentAddress, (byte)i);
-            addressMap.put(addr, input);
-            reverseMap.put(input, addr);
-        }
-        for (int i = 0; i < outputCount; i++) {
-            var output = (ObjectNode)outputs.get(i);
-            var addr = new PegAddress(false, componentAddress, (byte)i);
-            addressMap.put(addr, output);
-            reverseMap.put(output, addr);
+        var outputs = component.get("outputs");
+        int index = graph.addComponent(componentAddress, component.get("inputs").size(), outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            graph.setPowered(index, i, outputs.get(i).get("powered").booleanValue());
         }
+        components.add(component);
     }
 
     public void addWires(ArrayNode wires) throws JsonParseException {
         for (var wire: wires) {
-            var first = (ObjectNode)wire.get("firstPoint");
-            var second = (ObjectNode)wire.get("secondPoint");
-            var start = PegAddress.fromJson(first, true);
-            var end = PegAddress.fromJson(second, true);
-            this.wires.computeIfAbsent(start, (ignored) -> new HashMap<>()).put(end, (ObjectNode) wire);
-            this.wires.computeIfAbsent(end, (ignored) -> new HashMap<>()).put(start, (ObjectNode) wire);
+            var start = PegAddress.fromJson(wire.get("firstPoint"), true);
+            var end = PegAddress.fromJson(wire.get("secondPoint"), true);
+            graph.addWire(start, end);
+            this.wires.add((ObjectNode) wire);
         }
     }
 
-    private void solveNode(ArrayList<ObjectNode> scheduledNodes, ArrayList<ObjectNode> nodesToProcess) throws JsonParseException {
-        var node = scheduledNodes.remove(0);
-        var addr = reverseMap.get(node);
-        var wires = this.wires.getOrDefault(addr, null);
-        if (wires == null) {
-            int id = nextFreeID();
-            node.put("circuitStateID", id);
-            usedIDs.add(id);
-        } else if (!addr.input()){
-            int id = nextFreeID();
-            node.put("circuitStateID", id);
-            usedIDs.add(id);
-            for (var wire: wires.values()) {
-                wire.put("circuitStateID", id);
-            }
-            idStates.put(id, node.get("powered").asBoolean());
-        } else {
-            int id = -1;
-            if (node.has("circuitStateID")) {
-                id = node.get("circuitStateID").intValue();
-            } else {
-                boolean hasID = false;
-                for (var otherAndWire : wires.entrySet()) {
-                    var otherAddr = otherAndWire.getKey();
-                    var other = addressMap.get(otherAddr);
-                    if (!otherAddr.input()) continue;
-                    if (other.has("circuitStateID")) {
-                        if (!hasID) {
-                            hasID = true;
-                            id = other.get("circuitStateID").intValue();
-                        } else {
-                            throw new JsonParseException("Id mapping collision!");
-                        }
-                    }
-                }
-                if (!hasID) {
-                    id = nextFreeID();
-                    usedIDs.add(id);
-                    node.put("circuitStateID", id);
-                }
-            }
-            for (var otherAndWire : wires.entrySet()) {
-                var otherAddr = otherAndWire.getKey();
-                var other = addressMap.get(otherAddr);
-                if (!otherAddr.input()) {
-                    if (other.get("powered").booleanValue()) {
-                        idStates.put(id, true);
-                    }
-                } else if (nodesToProcess.contains(other)) {
-                    scheduledNodes.add(other);
-                    nodesToProcess.remove(other);
-                    other.put("circuitStateID", id);
-                    otherAndWire.getValue().put("circuitStateID", id);
-                }
-            }
+    public void solve(ObjectNode blotterFile, boolean world) throws JsonParseException {
+        try {
+            graph.solve();
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
         }
-    }
-
-    private boolean propagateState() {
-        for (var entry: addressMap.entrySet()) {
-            var addr = entry.getKey();
-            if (!addr.input()) continue;
-            var node = entry.getValue();
-            var csid = node.get("circuitStateID").intValue();
-            if (idStates.getOrDefault(csid, false)) continue;
-            for (var wire: wires.get(addr).values()) {
-
-                if (idStates.getOrDefault(wire.get("circuitStateID").intValue(), false)) {
-                    idStates.put(csid, true);
-                    return true;
-                }
+        for (int c = 0; c < components.size(); c++) {
+            var component = components.get(c);
+            var inputs = component.get("inputs");
+            for (int i = 0; i < inputs.size(); i++) {
+                ((ObjectNode) inputs.get(i)).put("circuitStateID", graph.inputCircuitStateID(c, i));
             }
-        }
-        return false;
-    }
-
-    public void solve(ObjectNode blotterFile, boolean world) throws JsonParseException {
-        var scheduledNodes = new ArrayList<ObjectNode>();
-        var nodesToProcess = new ArrayList<>(addressMap.values());
-        while (!nodesToProcess.isEmpty()) {
-            scheduledNodes.add(nodesToProcess.remove(0));
-            while (!scheduledNodes.isEmpty()) {
-                solveNode(scheduledNodes, nodesToProcess);
+            var outputs = component.get("outputs");
+            for (int i = 0; i < outputs.size(); i++) {
+                var output = (ObjectNode) outputs.get(i);
+                output.remove("powered");
+                output.put("circuitStateID", graph.outputCircuitStateID(c, i));
             }
         }
-        for (var node: addressMap.values()) {
-            if (node.has("powered")) {
-                node.remove("powered");
-            }
+        for (int i = 0; i < wires.size(); i++) {
+            wires.get(i).put("circuitStateID", graph.wireCircuitStateID(i));
         }
+        var arr = new ArrayNode(JsonNodeFactory.instance);
         if (world) {
-            var arr = new ArrayNode(JsonNodeFactory.instance);
-            @SuppressWarnings("OptionalGetWithoutIsPresent") int max = idStates.keySet().stream().max(Integer::compareTo).get();
-            for (int i = 0; i <= max; i++) {
-                arr.add(idStates.containsKey(i) && idStates.get(i));
+            for (int i = 0; i < graph.circuitStateCount(); i++) {
+                arr.add(graph.isPowered(i));
             }
-            blotterFile.set("circuitStates", arr);
         } else {
-            var fields = idStates.keySet().stream().sorted().toList();
-            var arr = new ArrayNode(JsonNodeFactory.instance);
-            for (var field: fields) {
-                arr.add(field);
+            for (int id: graph.poweredStateIDs()) {
+                arr.add(id);
             }
-            blotterFile.set("circuitStates", arr);
         }
-
-        //noinspection StatementWithEmptyBody
-        while (propagateState()){}
+        blotterFile.set("circuitStates", arr);
     }
 }
@@ -0,0 +1,708 @@
+package com.github.falsepattern.jblotter.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Octree over the world space positions of components, for box, radius and nearest neighbour queries.<br>
+ * Components are indexed as points, by address. Every leaf holds up to {@code LEAF_CAPACITY} points, unless it's at the
+ * maximum depth, and empty octants don't have nodes at all. Nodes and points live in flat arrays, with removed nodes
+ * recycled, so the index doesn't allocate per component.<br>
+ * {@link #build(int, int[], float[])} bulk loads the tree: the Morton codes of the points are computed and sorted in
+ * parallel, after which the upper levels of the tree fall out of the sorted codes in a single linear pass.
+ * {@link #insert(int, float, float, float)} and {@link #remove(int)} update it incrementally, splitting leaves that
+ * overflow, merging subtrees that become small, and growing the root when a point lands outside of it.<br>
+ * Queries can run concurrently with each other, but not with modifications.
+ */
+public class SpatialIndex {
+    private static final int LEAF_CAPACITY = 16;
+    private static final int MAX_DEPTH = 21;
+    /**
+     * Bits per axis of the Morton codes used for bulk loading, which also limits the depth built from them. Leaves that
+     * still overflow at that depth are split further one by one.
+     */
+    private static final int MORTON_BITS = 10;
+    /**
+     * Relative amount by which node bounds are widened for pruning, so that points sitting right on a node boundary,
+     * which rounding may have put on either side of it, are never missed.
+     */
+    private static final double SLACK = 0x1p-30;
+
+    private double originX;
+    private double originY;
+    private double originZ;
+    private double extent;
+    private int root = -1;
+
+    /**
+     * 8 child indices per node, -1 for empty octants.
+     */
+    private int[] nodeChildren = new int[8 * 16];
+    private int[] nodeParents = new int[16];
+    /**
+     * The amount of points in the subtree of every node.
+     */
+    private int[] nodeCounts = new int[16];
+    /**
+     * The point slots of every leaf, or null for inner nodes.
+     */
+    private int[][] leafItems = new int[16][];
+    private int nodeCount;
+    private int[] freeNodes = new int[16];
+    private int freeNodeCount;
+
+    private int size;
+    private int[] addresses;
+    private float[] points;
+    private int[] pointLeaves;
+    private int[] leafPositions;
+    private final IntLongHashMap slots;
+
+    public SpatialIndex() {
+        this(16);
+    }
+
+    private SpatialIndex(int capacity) {
+        capacity = Math.max(16, capacity);
+        addresses = new int[capacity];
+        points = new float[capacity * 3];
+        pointLeaves = new int[capacity];
+        leafPositions = new int[capacity];
+        slots = new IntLongHashMap(capacity);
+    }
+
+    /**
+     * Indexes the world position of every component.
+     */
+    public static SpatialIndex build(WorldTransforms transforms) {
+        var addresses = new int[transforms.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = transforms.address(i);
+        }
+        return build(addresses.length, addresses, transforms.positions());
+    }
+
+    /**
+     * @param positions The positions, packed as 3 floats per address.
+     * @throws IllegalArgumentException If an address appears twice, or a position isn't finite.
+     */
+    public static SpatialIndex build(int count, int[] addresses, float[] positions) {
+        if (count < 0 || addresses.length < count || positions.length < count * 3) throw new IllegalArgumentException("Fewer addresses or positions than the count!");
+        var index = new SpatialIndex(count);
+        if (count == 0) return index;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            float x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            checkFinite(addresses[i], x, y, z);
+            if (index.slots.put(addresses[i], i, -1) != -1) throw new IllegalArgumentException("Component with ID " + addresses[i] + " is indexed twice!");
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        System.arraycopy(addresses, 0, index.addresses, 0, count);
+        System.arraycopy(positions, 0, index.points, 0, count * 3);
+        index.size = count;
+        index.originX = minX;
+        index.originY = minY;
+        index.originZ = minZ;
+        index.extent = Math.max(1e-3, Math.max((double) maxX - minX, Math.max((double) maxY - minY, (double) maxZ - minZ)) * (1 + 0x1p-20));
+        var keys = new long[count];
+        double scale = (1 << MORTON_BITS) / index.extent;
+        Arrays.parallelSetAll(keys, (i) -> {
+            long code = morton(index.quantize(positions[i * 3], index.originX, scale), index.quantize(positions[i * 3 + 1], index.originY, scale), index.quantize(positions[i * 3 + 2], index.originZ, scale));
+            return code << 32 | i;
+        });
+        Arrays.parallelSort(keys);
+        index.root = index.buildNode(-1, keys, 0, count, 0, index.originX, index.originY, index.originZ, index.extent);
+        return index;
+    }
+
+    private int quantize(float value, double origin, double scale) {
+        return (int) Math.min((1 << MORTON_BITS) - 1, Math.max(0, (value - origin) * scale));
+    }
+
+    /**
+     * Interleaves the bits of the cell coordinates, x lowest, so that the octant at every level matches
+     * {@link #octant(double, double, double, float, float, float)}.
+     */
+    private static long morton(int x, int y, int z) {
+        long code = 0;
+        for (int bit = 0; bit < MORTON_BITS; bit++) {
+            code |= (long) ((x >>> bit) & 1) << (3 * bit) | (long) ((y >>> bit) & 1) << (3 * bit + 1) | (long) ((z >>> bit) & 1) << (3 * bit + 2);
+        }
+        return code;
+    }
+
+    private static int octant(double centerX, double centerY, double centerZ, float x, float y, float z) {
+        return (x >= centerX ? 1 : 0) | (y >= centerY ? 2 : 0) | (z >= centerZ ? 4 : 0);
+    }
+
+    private static void checkFinite(int address, float x, float y, float z) {
+        if (!Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z)) throw new IllegalArgumentException("Component with ID " + address + " has a position that isn't finite!");
+    }
+
+    /**
+     * Builds the subtree of a range of sorted Morton codes, all of which share the octants above the given depth.
+     */
+    private int buildNode(int parent, long[] keys, int from, int to, int depth, double minX, double minY, double minZ, double nodeExtent) {
+        int node = allocateNode(parent);
+        nodeCounts[node] = to - from;
+        if (to - from <= LEAF_CAPACITY || depth == MORTON_BITS) {
+            var items = new int[Math.max(4, to - from)];
+            for (int i = from; i < to; i++) {
+                int slot = (int) keys[i];
+                items[i - from] = slot;
+                pointLeaves[slot] = node;
+                leafPositions[slot] = i - from;
+            }
+            leafItems[node] = items;
+            if (to - from > LEAF_CAPACITY) split(node, depth, minX, minY, minZ, nodeExtent);
+            return node;
+        }
+        int shift = 32 + 3 * (MORTON_BITS - 1 - depth);
+        double half = nodeExtent / 2;
+        int start = from;
+        while (start < to) {
+            int octant = (int) (keys[start] >>> shift) & 7;
+            int end = start + 1;
+            while (end < to && ((int) (keys[end] >>> shift) & 7) == octant) {
+                end++;
+            }
+            int child = buildNode(node, keys, start, end, depth + 1, minX + ((octant & 1) != 0 ? half : 0), minY + ((octant & 2) != 0 ? half : 0), minZ + ((octant & 4) != 0 ? half : 0), half);
+            nodeChildren[node * 8 + octant] = child;
+            start = end;
+        }
+        return node;
+    }
+
+    private int allocateNode(int parent) {
+        int node;
+        if (freeNodeCount > 0) {
+            node = freeNodes[--freeNodeCount];
+        } else {
+            node = nodeCount++;
+            if (node == nodeParents.length) {
+                int capacity = nodeParents.length * 2;
+                nodeChildren = Arrays.copyOf(nodeChildren, capacity * 8);
+                nodeParents = Arrays.copyOf(nodeParents, capacity);
+                nodeCounts = Arrays.copyOf(nodeCounts, capacity);
+                leafItems = Arrays.copyOf(leafItems, capacity);
+            }
+        }
+        Arrays.fill(nodeChildren, node * 8, node * 8 + 8, -1);
+        nodeParents[node] = parent;
+        nodeCounts[node] = 0;
+        leafItems[node] = null;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        leafItems[node] = null;
+        if (freeNodeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeNodeCount * 2);
+        freeNodes[freeNodeCount++] = node;
+    }
+
+    private int allocateLeaf(int parent) {
+        int node = allocateNode(parent);
+        leafItems[node] = new int[4];
+        return node;
+    }
+
+    private void addToLeaf(int leaf, int slot) {
+        var items = leafItems[leaf];
+        int count = nodeCounts[leaf];
+        if (count == items.length) leafItems[leaf] = items = Arrays.copyOf(items, count * 2);
+        items[count] = slot;
+        pointLeaves[slot] = leaf;
+        leafPositions[slot] = count;
+        nodeCounts[leaf] = count + 1;
+    }
+
+    /**
+     * Turns an overflowing leaf into an inner node, and splits its children further while they overflow.
+     */
+    private void split(int node, int depth, double minX, double minY, double minZ, double nodeExtent) {
+        if (depth >= MAX_DEPTH) return;
+        var items = leafItems[node];
+        int count = nodeCounts[node];
+        leafItems[node] = null;
+        double half = nodeExtent / 2;
+        for (int i = 0; i < count; i++) {
+            int slot = items[i];
+            int octant = octant(minX + half, minY + half, minZ + half, points[slot * 3], points[slot * 3 + 1], points[slot * 3 + 2]);
+            int child = nodeChildren[node * 8 + octant];
+            if (child < 0) {
+                child = allocateLeaf(node);
+                nodeChildren[node * 8 + octant] = child;
+            }
+            addToLeaf(child, slot);
+        }
+        for (int octant = 0; octant < 8; octant++) {
+            int child = nodeChildren[node * 8 + octant];
+            if (child >= 0 && nodeCounts[child] > LEAF_CAPACITY) {
+                split(child, depth + 1, minX + ((octant & 1) != 0 ? half : 0), minY + ((octant & 2) != 0 ? half : 0), minZ + ((octant & 4) != 0 ? half : 0), half);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int address) {
+        return slots.containsKey(address);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the address is already indexed, or the position isn't finite.
+     */
+    public void insert(int address, float x, float y, float z) {
+        checkFinite(address, x, y, z);
+        if (slots.containsKey(address)) throw new IllegalArgumentException("Component with ID " + address + " is already indexed!");
+        if (size == 0) {
+            // Nothing to keep, so the root is moved to the point instead of grown towards it
+            if (root < 0) root = allocateLeaf(-1);
+            originX = x - 0.5;
+            originY = y - 0.5;
+            originZ = z - 0.5;
+            extent = 1;
+        }
+        while (x < originX || y < originY || z < originZ || x > originX + extent || y > originY + extent || z > originZ + extent) {
+            growRoot(x, y, z);
+        }
+        int slot = size++;
+        if (slot == addresses.length) {
+            int capacity = addresses.length * 2;
+            addresses = Arrays.copyOf(addresses, capacity);
+            points = Arrays.copyOf(points, capacity * 3);
+            pointLeaves = Arrays.copyOf(pointLeaves, capacity);
+            leafPositions = Arrays.copyOf(leafPositions, capacity);
+        }
+        addresses[slot] = address;
+        points[slot * 3] = x;
+        points[slot * 3 + 1] = y;
+        points[slot * 3 + 2] = z;
+        slots.put(address, slot, -1);
+        int node = root;
+        int depth = 0;
+        double minX = originX, minY = originY, minZ = originZ, nodeExtent = extent;
+        while (leafItems[node] == null) {
+            nodeCounts[node]++;
+            double half = nodeExtent / 2;
+            int octant = octant(minX + half, minY + half, minZ + half, x, y, z);
+            if ((octant & 1) != 0) minX += half;
+            if ((octant & 2) != 0) minY += half;
+            if ((octant & 4) != 0) minZ += half;
+            nodeExtent = half;
+            depth++;
+            int child = nodeChildren[node * 8 + octant];
+            if (child < 0) {
+                child = allocateLeaf(node);
+                nodeChildren[node * 8 + octant] = child;
+            }
+            node = child;
+        }
+        addToLeaf(node, slot);
+        if (nodeCounts[node] > LEAF_CAPACITY) split(node, depth, minX, minY, minZ, nodeExtent);
+    }
+
+    /**
+     * Doubles the root towards the point, making the old root one of the octants of the new one.
+     */
+    private void growRoot(float x, float y, float z) {
+        int octant = 0;
+        if (x < originX) {
+            originX -= extent;
+            octant |= 1;
+        }
+        if (y < originY) {
+            originY -= extent;
+            octant |= 2;
+        }
+        if (z < originZ) {
+            originZ -= extent;
+            octant |= 4;
+        }
+        extent *= 2;
+        int oldRoot = root;
+        root = allocateNode(-1);
+        nodeCounts[root] = nodeCounts[oldRoot];
+        nodeChildren[root * 8 + octant] = oldRoot;
+        nodeParents[oldRoot] = root;
+    }
+
+    /**
+     * @return Whether the address was indexed.
+     */
+    public boolean remove(int address) {
+        int slot = (int) slots.remove(address, -1);
+        if (slot < 0) return false;
+        int leaf = pointLeaves[slot];
+        var items = leafItems[leaf];
+        int position = leafPositions[slot];
+        int last = nodeCounts[leaf] - 1;
+        items[position] = items[last];
+        leafPositions[items[position]] = position;
+        for (int node = leaf; node >= 0; node = nodeParents[node]) {
+            nodeCounts[node]--;
+        }
+        // Drop the nodes that became empty, then merge the largest subtree that became small enough into a single leaf
+        int node = leaf;
+        while (nodeCounts[node] == 0 && node != root) {
+            int parent = nodeParents[node];
+            for (int i = parent * 8; i < parent * 8 + 8; i++) {
+                if (nodeChildren[i] == node) nodeChildren[i] = -1;
+            }
+            freeNode(node);
+            node = parent;
+        }
+        int merge = -1;
+        for (; node >= 0 && nodeCounts[node] <= LEAF_CAPACITY / 2; node = nodeParents[node]) {
+            if (leafItems[node] == null) merge = node;
+        }
+        if (merge >= 0) merge(merge);
+        // Keep the point slots dense, by moving the last one into the hole
+        int lastSlot = --size;
+        if (slot != lastSlot) {
+            int moved = addresses[lastSlot];
+            addresses[slot] = moved;
+            System.arraycopy(points, lastSlot * 3, points, slot * 3, 3);
+            pointLeaves[slot] = pointLeaves[lastSlot];
+            leafPositions[slot] = leafPositions[lastSlot];
+            leafItems[pointLeaves[slot]][leafPositions[slot]] = slot;
+            slots.put(moved, slot, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Turns an inner node into a leaf holding every point of its subtree.
+     */
+    private void merge(int node) {
+        var items = new int[Math.max(4, nodeCounts[node])];
+        int count = 0;
+        var stack = new int[64];
+        int top = 0;
+        for (int i = 0; i < 8; i++) {
+            if (nodeChildren[node * 8 + i] >= 0) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = nodeChildren[node * 8 + i];
+            }
+            nodeChildren[node * 8 + i] = -1;
+        }
+        while (top > 0) {
+            int current = stack[--top];
+            var currentItems = leafItems[current];
+            if (currentItems != null) {
+                for (int i = 0; i < nodeCounts[current]; i++) {
+                    int slot = currentItems[i];
+                    items[count] = slot;
+                    pointLeaves[slot] = node;
+                    leafPositions[slot] = count++;
+                }
+            } else {
+                for (int i = current * 8; i < current * 8 + 8; i++) {
+                    if (nodeChildren[i] >= 0) {
+                        if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                        stack[top++] = nodeChildren[i];
+                    }
+                }
+            }
+            freeNode(current);
+        }
+        leafItems[node] = items;
+    }
+
+    /**
+     * Moves an indexed point, or inserts it if it's not indexed yet.
+     */
+    public void move(int address, float x, float y, float z) {
+        checkFinite(address, x, y, z);
+        remove(address);
+        insert(address, x, y, z);
+    }
+
+    /**
+     * Hands the address of every point inside the box, including its surface, to the consumer, in no particular order.
+     */
+    public void queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, IntConsumer consumer) {
+        if (root < 0 || size == 0) return;
+        var traversal = new Traversal(this);
+        double slack = extent * SLACK;
+        while (traversal.pop()) {
+            int node = traversal.node;
+            double nodeMinX = traversal.minX - slack, nodeMinY = traversal.minY - slack, nodeMinZ = traversal.minZ - slack;
+            double nodeMaxX = traversal.minX + traversal.extent + slack, nodeMaxY = traversal.minY + traversal.extent + slack, nodeMaxZ = traversal.minZ + traversal.extent + slack;
+            if (nodeMaxX < minX || nodeMaxY < minY || nodeMaxZ < minZ || nodeMinX > maxX || nodeMinY > maxY || nodeMinZ > maxZ) continue;
+            if (nodeMinX >= minX && nodeMinY >= minY && nodeMinZ >= minZ && nodeMaxX <= maxX && nodeMaxY <= maxY && nodeMaxZ <= maxZ) {
+                forEachInSubtree(node, consumer);
+            } else if (leafItems[node] != null) {
+                var items = leafItems[node];
+                for (int i = 0; i < nodeCounts[node]; i++) {
+                    int slot = items[i];
+                    float x = points[slot * 3], y = points[slot * 3 + 1], z = points[slot * 3 + 2];
+                    if (x >= minX && y >= minY && z >= minZ && x <= maxX && y <= maxY && z <= maxZ) consumer.accept(addresses[slot]);
+                }
+            } else {
+                traversal.pushChildren();
+            }
+        }
+    }
+
+    /**
+     * Hands the address of every point within the radius of the center, including the boundary, to the consumer, in no
+     * particular order.
+     */
+    public void queryRadius(float x, float y, float z, float radius, IntConsumer consumer) {
+        if (root < 0 || size == 0 || !(radius >= 0)) return;
+        var traversal = new Traversal(this);
+        double slack = extent * SLACK;
+        double radiusSquared = (double) radius * radius;
+        while (traversal.pop()) {
+            int node = traversal.node;
+            double nodeMinX = traversal.minX - slack, nodeMinY = traversal.minY - slack, nodeMinZ = traversal.minZ - slack;
+            double nodeExtent = traversal.extent + 2 * slack;
+            if (boxDistanceSquared(x, y, z, nodeMinX, nodeMinY, nodeMinZ, nodeExtent) > radiusSquared) continue;
+            double farX = Math.max(Math.abs(x - nodeMinX), Math.abs(nodeMinX + nodeExtent - x));
+            double farY = Math.max(Math.abs(y - nodeMinY), Math.abs(nodeMinY + nodeExtent - y));
+            double farZ = Math.max(Math.abs(z - nodeMinZ), Math.abs(nodeMinZ + nodeExtent - z));
+            if (farX * farX + farY * farY + farZ * farZ <= radiusSquared) {
+                forEachInSubtree(node, consumer);
+            } else if (leafItems[node] != null) {
+                var items = leafItems[node];
+                for (int i = 0; i < nodeCounts[node]; i++) {
+                    int slot = items[i];
+                    if (distanceSquared(slot, x, y, z) <= radiusSquared) consumer.accept(addresses[slot]);
+                }
+            } else {
+                traversal.pushChildren();
+            }
+        }
+    }
+
+    /**
+     * @return The addresses of the (at most) {@code k} points closest to the position, closest first. Ties are broken
+     * arbitrarily.
+     */
+    public int[] nearest(float x, float y, float z, int k) {
+        if (k < 0) throw new IllegalArgumentException("Cannot look for a negative amount of neighbours!");
+        k = Math.min(k, size);
+        if (k == 0) return new int[0];
+        var best = new double[k];
+        var bestSlots = new int[k];
+        int found = 0;
+        var queue = new NodeQueue();
+        double slack = extent * SLACK;
+        queue.push(root, originX, originY, originZ, extent, 0);
+        while (queue.size > 0) {
+            double distance = queue.distances[0];
+            if (found == k && distance > best[0]) break;
+            int node = queue.nodes[0];
+            double minX = queue.bounds[0], minY = queue.bounds[1], minZ = queue.bounds[2], nodeExtent = queue.bounds[3];
+            queue.pop();
+            var items = leafItems[node];
+            if (items != null) {
+                for (int i = 0; i < nodeCounts[node]; i++) {
+                    int slot = items[i];
+                    double candidate = distanceSquared(slot, x, y, z);
+                    if (found < k) {
+                        // Max-heap on the distance, so the worst of the best is always at the top
+                        int j = found++;
+                        while (j > 0 && best[(j - 1) / 2] < candidate) {
+                            best[j] = best[(j - 1) / 2];
+                            bestSlots[j] = bestSlots[(j - 1) / 2];
+                            j = (j - 1) / 2;
+                        }
+                        best[j] = candidate;
+                        bestSlots[j] = slot;
+                    } else if (candidate < best[0]) {
+                        siftDown(best, bestSlots, k, candidate, slot);
+                    }
+                }
+            } else {
+                double half = nodeExtent / 2;
+                for (int octant = 0; octant < 8; octant++) {
+                    int child = nodeChildren[node * 8 + octant];
+                    if (child < 0) continue;
+                    double childX = minX + ((octant & 1) != 0 ? half : 0), childY = minY + ((octant & 2) != 0 ? half : 0), childZ = minZ + ((octant & 4) != 0 ? half : 0);
+                    double childDistance = boxDistanceSquared(x, y, z, childX - slack, childY - slack, childZ - slack, half + 2 * slack);
+                    if (found < k || childDistance <= best[0]) queue.push(child, childX, childY, childZ, half, childDistance);
+                }
+            }
+        }
+        // Empty the max-heap from the back, to get the closest first
+        var result = new int[found];
+        for (int i = found - 1; i >= 0; i--) {
+            result[i] = addresses[bestSlots[0]];
+            siftDown(best, bestSlots, i, best[i], bestSlots[i]);
+        }
+        return result;
+    }
+
+    private static void siftDown(double[] heap, int[] slots, int size, double value, int slot) {
+        int j = 0;
+        while (true) {
+            int child = 2 * j + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= value) break;
+            heap[j] = heap[child];
+            slots[j] = slots[child];
+            j = child;
+        }
+        if (size > 0) {
+            heap[j] = value;
+            slots[j] = slot;
+        }
+    }
+
+    private double distanceSquared(int slot, float x, float y, float z) {
+        double dx = points[slot * 3] - x, dy = points[slot * 3 + 1] - y, dz = points[slot * 3 + 2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double boxDistanceSquared(float x, float y, float z, double minX, double minY, double minZ, double extent) {
+        double dx = Math.max(0, Math.max(minX - x, x - (minX + extent)));
+        double dy = Math.max(0, Math.max(minY - y, y - (minY + extent)));
+        double dz = Math.max(0, Math.max(minZ - z, z - (minZ + extent)));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void forEachInSubtree(int node, IntConsumer consumer) {
+        var stack = new int[64];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            var items = leafItems[current];
+            if (items != null) {
+                for (int i = 0; i < nodeCounts[current]; i++) {
+                    consumer.accept(addresses[items[i]]);
+                }
+                continue;
+            }
+            for (int i = current * 8; i < current * 8 + 8; i++) {
+                if (nodeChildren[i] >= 0) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = nodeChildren[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Depth-first traversal stack, carrying the bounds of every node, since nodes don't store them.
+     */
+    private static final class Traversal {
+        private final SpatialIndex index;
+        private int[] nodes = new int[64];
+        private double[] bounds = new double[64 * 4];
+        private int top;
+        int node;
+        double minX;
+        double minY;
+        double minZ;
+        double extent;
+
+        Traversal(SpatialIndex index) {
+            this.index = index;
+            push(index.root, index.originX, index.originY, index.originZ, index.extent);
+        }
+
+        private void push(int node, double minX, double minY, double minZ, double extent) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+                bounds = Arrays.copyOf(bounds, top * 8);
+            }
+            nodes[top] = node;
+            bounds[top * 4] = minX;
+            bounds[top * 4 + 1] = minY;
+            bounds[top * 4 + 2] = minZ;
+            bounds[top * 4 + 3] = extent;
+            top++;
+        }
+
+        boolean pop() {
+            if (top == 0) return false;
+            top--;
+            node = nodes[top];
+            minX = bounds[top * 4];
+            minY = bounds[top * 4 + 1];
+            minZ = bounds[top * 4 + 2];
+            extent = bounds[top * 4 + 3];
+            return true;
+        }
+
+        /**
+         * Pushes the children of the node that was popped last.
+         */
+        void pushChildren() {
+            double half = extent / 2;
+            for (int octant = 0; octant < 8; octant++) {
+                int child = index.nodeChildren[node * 8 + octant];
+                if (child >= 0) push(child, minX + ((octant & 1) != 0 ? half : 0), minY + ((octant & 2) != 0 ? half : 0), minZ + ((octant & 4) != 0 ? half : 0), half);
+            }
+        }
+    }
+
+    /**
+     * Min-heap of nodes by their distance to the query point, for best-first search.
+     */
+    private static final class NodeQueue {
+        private int[] nodes = new int[64];
+        private double[] distances = new double[64];
+        private double[] bounds = new double[64 * 4];
+        private int size;
+
+        void push(int node, double minX, double minY, double minZ, double extent, double distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+                bounds = Arrays.copyOf(bounds, size * 8);
+            }
+            int j = size++;
+            while (j > 0 && distances[(j - 1) / 2] > distance) {
+                move((j - 1) / 2, j);
+                j = (j - 1) / 2;
+            }
+            set(j, node, minX, minY, minZ, extent, distance);
+        }
+
+        void pop() {
+            int last = --size;
+            if (last == 0) return;
+            int node = nodes[last];
+            double distance = distances[last];
+            double minX = bounds[last * 4], minY = bounds[last * 4 + 1], minZ = bounds[last * 4 + 2], extent = bounds[last * 4 + 3];
+            int j = 0;
+            while (true) {
+                int child = 2 * j + 1;
+                if (child >= size) break;
+                if (child + 1 < size && distances[child + 1] < distances[child]) child++;
+                if (distances[child] >= distance) break;
+                move(child, j);
+                j = child;
+            }
+            set(j, node, minX, minY, minZ, extent, distance);
+        }
+
+        private void move(int from, int to) {
+            nodes[to] = nodes[from];
+            distances[to] = distances[from];
+            System.arraycopy(bounds, from * 4, bounds, to * 4, 4);
+        }
+
+        private void set(int i, int node, double minX, double minY, double minZ, double extent, double distance) {
+            nodes[i] = node;
+            distances[i] = distance;
+            bounds[i * 4] = minX;
+            bounds[i * 4 + 1] = minY;
+            bounds[i * 4 + 2] = minZ;
+            bounds[i * 4 + 3] = extent;
+        }
+    }
+}
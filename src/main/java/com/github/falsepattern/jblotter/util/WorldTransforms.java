@@ -0,0 +1,257 @@
+package com.github.falsepattern.jblotter.util;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The world space position and rotation of every component, computed from the local transforms along the parent
+ * chains.<br>
+ * Components are numbered like in the {@link HierarchyIndex} the transforms are computed over, which is by their
+ * position in the component map, and the transforms are packed into float arrays by that index: 3 floats per position,
+ * and 4 per rotation (x, y, z, w). A component's world transform is its parent's world transform applied to its local
+ * transform, and top level components are already in world space.<br>
+ * Everything is computed in a single sweep over the components in pre-order, so every parent is done before its
+ * children, without walking any parent chain. Subtrees don't depend on each other, so large ones are swept in parallel
+ * on a {@link ForkJoinPool}. After a component's local transform is changed with
+ * {@link #setLocalTransform(int, Vector3f, Quaternionf)}, only its own subtree is swept again.<br>
+ * The hierarchy itself is fixed once computed, so moving a component to another parent needs a new instance.
+ * Not thread safe.
+ */
+public class WorldTransforms {
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final HierarchyIndex hierarchy;
+    private final int size;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] preOrder;
+    private final float[] localPositions;
+    private final float[] localRotations;
+    private final float[] positions;
+    private final float[] rotations;
+
+    private WorldTransforms(HierarchyIndex hierarchy, Map<Integer, Component> components, ForkJoinPool pool) {
+        this.pool = pool;
+        this.hierarchy = hierarchy;
+        size = hierarchy.size();
+        chunkSize = Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 8));
+        childOffsets = hierarchy.childOffsets();
+        children = hierarchy.childIndices();
+        preOrder = hierarchy.preOrder();
+        localPositions = new float[size * 3];
+        localRotations = new float[size * 4];
+        for (int index = 0; index < size; index++) {
+            int address = hierarchy.address(index);
+            var component = components instanceof ComponentTable table ? table.get(address) : components.get(address);
+            if (component == null) throw new IllegalArgumentException("Component with ID " + address + " not found!");
+            var position = component.localPosition();
+            var rotation = component.localRotation();
+            localPositions[index * 3] = position.x;
+            localPositions[index * 3 + 1] = position.y;
+            localPositions[index * 3 + 2] = position.z;
+            localRotations[index * 4] = rotation.x;
+            localRotations[index * 4 + 1] = rotation.y;
+            localRotations[index * 4 + 2] = rotation.z;
+            localRotations[index * 4 + 3] = rotation.w;
+        }
+        positions = new float[size * 3];
+        rotations = new float[size * 4];
+    }
+
+    public static WorldTransforms compute(BlotterFile file) {
+        return compute(file.components(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool The pool used to sweep large subtrees in parallel, both now and when local transforms are changed.
+     * @throws IllegalArgumentException If a component's parent doesn't exist, or the parents form a cycle.
+     */
+    public static WorldTransforms compute(Map<Integer, Component> components, ForkJoinPool pool) {
+        return compute(HierarchyIndex.build(components), components, pool);
+    }
+
+    /**
+     * Computes the transforms over an already built hierarchy, numbering the components like it does.
+     * @throws IllegalArgumentException If a component of the hierarchy isn't in the map.
+     */
+    public static WorldTransforms compute(HierarchyIndex hierarchy, Map<Integer, Component> components, ForkJoinPool pool) {
+        var transforms = new WorldTransforms(hierarchy, components, pool);
+        transforms.sweep(transforms.children, transforms.childOffsets[transforms.size], transforms.childOffsets[transforms.size + 1]);
+        return transforms;
+    }
+
+    /**
+     * Sweeps the subtrees of the given siblings, which make up a contiguous range of the pre-order.
+     */
+    private void sweep(int[] siblings, int from, int to) {
+        if (from >= to) return;
+        int last = siblings[to - 1];
+        int start = hierarchy.preOrderRank(siblings[from]);
+        int end = hierarchy.preOrderRank(last) + hierarchy.subtreeSize(last);
+        if (end - start <= chunkSize) {
+            sweepRange(start, end);
+        } else {
+            pool.invoke(new SweepTask(siblings, from, to));
+        }
+    }
+
+    private void sweepRange(int start, int end) {
+        for (int i = start; i < end; i++) {
+            computeNode(preOrder[i]);
+        }
+    }
+
+    private void computeNode(int node) {
+        int parent = hierarchy.parent(node);
+        int p = node * 3;
+        int r = node * 4;
+        float lx = localPositions[p], ly = localPositions[p + 1], lz = localPositions[p + 2];
+        float qx = localRotations[r], qy = localRotations[r + 1], qz = localRotations[r + 2], qw = localRotations[r + 3];
+        if (parent < 0) {
+            positions[p] = lx;
+            positions[p + 1] = ly;
+            positions[p + 2] = lz;
+            rotations[r] = qx;
+            rotations[r + 1] = qy;
+            rotations[r + 2] = qz;
+            rotations[r + 3] = qw;
+            return;
+        }
+        int pp = parent * 3;
+        int pr = parent * 4;
+        float x = rotations[pr], y = rotations[pr + 1], z = rotations[pr + 2], w = rotations[pr + 3];
+        // Rotation by a unit quaternion, without the allocations: v + w * t + q x t, with t = 2 * (q x v)
+        float tx = 2 * (y * lz - z * ly);
+        float ty = 2 * (z * lx - x * lz);
+        float tz = 2 * (x * ly - y * lx);
+        positions[p] = positions[pp] + lx + w * tx + (y * tz - z * ty);
+        positions[p + 1] = positions[pp + 1] + ly + w * ty + (z * tx - x * tz);
+        positions[p + 2] = positions[pp + 2] + lz + w * tz + (x * ty - y * tx);
+        // Same as Quaternionf.mul(Quaternionf): parent * local
+        rotations[r] = w * qx + x * qw + y * qz - z * qy;
+        rotations[r + 1] = w * qy - x * qz + y * qw + z * qx;
+        rotations[r + 2] = w * qz + x * qy - y * qx + z * qw;
+        rotations[r + 3] = w * qw - x * qx - y * qy - z * qz;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The index of the component, or -1 if there's no component with that address.
+     */
+    public int indexOf(int address) {
+        return hierarchy.indexOf(address);
+    }
+
+    public int address(int index) {
+        return hierarchy.address(index);
+    }
+
+    public HierarchyIndex hierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * @return The world positions, 3 floats per component index. This is the internal array, so it must not be modified.
+     */
+    public float[] positions() {
+        return positions;
+    }
+
+    /**
+     * @return The world rotations, 4 floats per component index. This is the internal array, so it must not be modified.
+     */
+    public float[] rotations() {
+        return rotations;
+    }
+
+    public Vector3f position(int index, Vector3f dest) {
+        return dest.set(positions[index * 3], positions[index * 3 + 1], positions[index * 3 + 2]);
+    }
+
+    public Quaternionf rotation(int index, Quaternionf dest) {
+        return dest.set(rotations[index * 4], rotations[index * 4 + 1], rotations[index * 4 + 2], rotations[index * 4 + 3]);
+    }
+
+    /**
+     * Changes the local transform of a component, and recomputes the world transforms of it and everything under it.
+     * @throws IllegalArgumentException If there's no component with that address.
+     */
+    public void setLocalTransform(int address, Vector3f localPosition, Quaternionf localRotation) {
+        int index = indexOf(address);
+        if (index < 0) throw new IllegalArgumentException("Component with ID " + address + " not found!");
+        localPositions[index * 3] = localPosition.x;
+        localPositions[index * 3 + 1] = localPosition.y;
+        localPositions[index * 3 + 2] = localPosition.z;
+        localRotations[index * 4] = localRotation.x;
+        localRotations[index * 4 + 1] = localRotation.y;
+        localRotations[index * 4 + 2] = localRotation.z;
+        localRotations[index * 4 + 3] = localRotation.w;
+        sweep(new int[]{index}, 0, 1);
+    }
+
+    /**
+     * Sweeps the subtrees of a range of siblings. Ranges that are too large are split in halves at a sibling boundary,
+     * and a single subtree that's too large is split into its root and the subtrees of its children.
+     */
+    private class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] siblings;
+        private final int from;
+        private final int to;
+
+        SweepTask(int[] siblings, int from, int to) {
+            this.siblings = siblings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            var siblings = this.siblings;
+            int from = this.from;
+            int to = this.to;
+            while (true) {
+                int last = siblings[to - 1];
+                int start = hierarchy.preOrderRank(siblings[from]);
+                int end = hierarchy.preOrderRank(last) + hierarchy.subtreeSize(last);
+                if (end - start <= chunkSize) {
+                    sweepRange(start, end);
+                    return;
+                }
+                if (to - from > 1) break;
+                // A single large subtree, which is split into its root and its children, without recursing down chains
+                int node = siblings[from];
+                computeNode(node);
+                siblings = children;
+                from = childOffsets[node];
+                to = childOffsets[node + 1];
+            }
+            // Siblings are in pre-order, so their ranks are sorted, and the middle of the range can be searched for
+            int middle = (hierarchy.preOrderRank(siblings[from]) + hierarchy.preOrderRank(siblings[to - 1]) + hierarchy.subtreeSize(siblings[to - 1])) >>> 1;
+            int low = from + 1;
+            int high = to - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (hierarchy.preOrderRank(siblings[mid]) < middle) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            invokeAll(new SweepTask(siblings, from, low), new SweepTask(siblings, low, to));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.falsepattern.jblotter.util.json;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
@@ -11,10 +13,12 @@ import com.github.falsepattern.jblotter.util.json.rule.ObjectRule;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.function.Function;
 
 public class JsonUtil {
+    private static final ObjectMapper TREE_WRITER = new ObjectMapper();
 
 
     public static <T> ArrayNode jsonifyArray(T[] array, Jsonifier<T> converter) {
@@ -58,6 +62,43 @@ public class JsonUtil {
         return result;
     }
 
+    public static void writeByteArray(JsonGenerator generator, byte[] array) throws IOException {
+        generator.writeStartArray();
+        for (byte b: array) {
+            generator.writeNumber(Byte.toUnsignedInt(b));
+        }
+        generator.writeEndArray();
+    }
+
+    public static void writeVector3f(JsonGenerator generator, Vector3f vector) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("x", vector.x);
+        generator.writeNumberField("y", vector.y);
+        generator.writeNumberField("z", vector.z);
+        generator.writeEndObject();
+    }
+
+    public static void writeQuaternionf(JsonGenerator generator, Quaternionf quaternion) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("x", quaternion.x);
+        generator.writeNumberField("y", quaternion.y);
+        generator.writeNumberField("z", quaternion.z);
+        generator.writeNumberField("w", quaternion.w);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes an already built node tree to the generator. Generators without a codec, like the ones created straight
+     * from a {@link com.fasterxml.jackson.core.JsonFactory}, are written through a shared {@link ObjectMapper}.
+     */
+    public static void writeTree(JsonGenerator generator, JsonNode node) throws IOException {
+        if (generator.getCodec() != null) {
+            generator.writeTree(node);
+        } else {
+            TREE_WRITER.writeTree(generator, node);
+        }
+    }
+
     public static <T> T[] parseArrayNoVerify(JsonNode node, int inputOffset, int outputOffset, Function<Integer, T[]> arrayConstructor, JsonParser<T> parser) throws JsonParseException {
         if (node.size() < inputOffset) throw new JsonParseException("Json array size smaller than offset! Array size: " + node.size() + ", offset: " + inputOffset + ". Array:\n" + node.toPrettyString());
         if (node.size() == inputOffset) return arrayConstructor.apply(0);
@@ -0,0 +1,43 @@
+package com.github.falsepattern.jblotter.util.json.rule;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.falsepattern.jblotter.util.json.JsonParseException;
+
+import java.util.function.Predicate;
+
+/**
+ * A {@link NodeRule} compiled into a plain predicate, see {@link NodeRule#compile()}.<br>
+ * The predicate only answers whether a node is valid, without building any exceptions or paths, and without allocating.
+ * Only when it rejects a node is the source rule run, to produce the exact same error as verifying with the source rule
+ * would.
+ */
+public final class CompiledRule implements NodeRule {
+    private final NodeRule source;
+    private final Predicate<JsonNode> test;
+
+    public CompiledRule(NodeRule source, Predicate<JsonNode> test) {
+        this.source = source;
+        this.test = test;
+    }
+
+    public boolean test(JsonNode node) {
+        return test.test(node);
+    }
+
+    @Override
+    public void verify(JsonNode node) throws JsonParseException {
+        if (test.test(node)) return;
+        source.verify(node);
+        throw new IllegalStateException("Compiled rule rejected a node that its source rule accepts!");
+    }
+
+    @Override
+    public JsonNode asJsonRepresentation() {
+        return source.asJsonRepresentation();
+    }
+
+    @Override
+    public CompiledRule compile() {
+        return this;
+    }
+}
@@ -25,6 +25,19 @@ public class DynamicArrayRule implements NodeRule {
         }
     }
 
+    @Override
+    public CompiledRule compile() {
+        var subRule = this.subRule.compile();
+        return new CompiledRule(this, (node) -> {
+            if (!node.isArray()) return false;
+            int length = node.size();
+            for (int i = 0; i < length; i++) {
+                if (!subRule.test(node.get(i))) return false;
+            }
+            return true;
+        });
+    }
+
     @Override
     public JsonNode asJsonRepresentation() {
         var result = new ObjectNode(JsonNodeFactory.instance);
@@ -7,4 +7,21 @@ public interface NodeRule {
     void verify(JsonNode node) throws JsonParseException;
 
     JsonNode asJsonRepresentation();
+
+    /**
+     * Compiles this rule, and all of its sub-rules, into a {@link CompiledRule} that accepts and rejects the same nodes
+     * with the same errors, but only builds those errors when a node is actually rejected.<br>
+     * The default implementation just catches the errors of {@link #verify}, rules should override it with a
+     * specialized check.
+     */
+    default CompiledRule compile() {
+        return new CompiledRule(this, (node) -> {
+            try {
+                verify(node);
+                return true;
+            } catch (JsonParseException e) {
+                return false;
+            }
+        });
+    }
 }
@@ -46,6 +46,31 @@ public class ObjectRule implements NodeRule{
         }
     }
 
+    /**
+     * The fields and their compiled rules are laid out in arrays, so no map is involved. As every field is required, a
+     * strict object that has all of them is free of extraneous fields exactly when it has no more fields than the rule.
+     */
+    @Override
+    public CompiledRule compile() {
+        var fields = new String[subRules.size()];
+        var fieldRules = new CompiledRule[fields.length];
+        int i = 0;
+        for (var entry: subRules.entrySet()) {
+            fields[i] = entry.getKey();
+            fieldRules[i] = entry.getValue().compile();
+            i++;
+        }
+        boolean strict = this.strict;
+        return new CompiledRule(this, (node) -> {
+            if (!node.isObject() || strict && node.size() != fields.length) return false;
+            for (int j = 0; j < fields.length; j++) {
+                var field = node.get(fields[j]);
+                if (field == null || !fieldRules[j].test(field)) return false;
+            }
+            return true;
+        });
+    }
+
     public static ObjectRule join(ObjectRule a, ObjectRule b, boolean strict) {
         var rules = new HashMap<String, NodeRule>();
         for (var entry: a.subRules.entrySet()) {
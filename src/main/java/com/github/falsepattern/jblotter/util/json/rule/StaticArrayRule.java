@@ -29,6 +29,21 @@ public class StaticArrayRule implements NodeRule {
         }
     }
 
+    @Override
+    public CompiledRule compile() {
+        var subRules = new CompiledRule[length];
+        for (int i = 0; i < length; i++) {
+            subRules[i] = this.subRules[i].compile();
+        }
+        return new CompiledRule(this, (node) -> {
+            if (!node.isArray() || node.size() != subRules.length) return false;
+            for (int i = 0; i < subRules.length; i++) {
+                if (!subRules[i].test(node.get(i))) return false;
+            }
+            return true;
+        });
+    }
+
     public JsonNode asJsonRepresentation() {
         var result = new ObjectNode(JsonNodeFactory.instance);
         result.put("nodeType", "STATIC_ARRAY");
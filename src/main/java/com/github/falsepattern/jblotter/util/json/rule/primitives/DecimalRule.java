@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import com.github.falsepattern.jblotter.util.json.rule.CompiledRule;
 import com.github.falsepattern.jblotter.util.json.rule.NodeRule;
 
 import java.math.BigDecimal;
@@ -16,6 +17,11 @@ public class DecimalRule implements NodeRule {
         if (!node.isNumber()) throw new JsonParseException("Expected NUMBER, got " + node.getNodeType().name() + "!");
     }
 
+    @Override
+    public CompiledRule compile() {
+        return new CompiledRule(this, JsonNode::isNumber);
+    }
+
     @Override
     public JsonNode asJsonRepresentation() {
         var result = new ObjectNode(JsonNodeFactory.instance);
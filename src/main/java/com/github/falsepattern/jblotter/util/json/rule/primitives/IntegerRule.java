@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import com.github.falsepattern.jblotter.util.json.rule.CompiledRule;
 import com.github.falsepattern.jblotter.util.json.rule.NodeRule;
 
 import java.math.BigInteger;
@@ -29,6 +30,28 @@ public class IntegerRule implements NodeRule {
         if (val.compareTo(min) < 0 || val.compareTo(max) > 0) throw new JsonParseException("Expected integer between <" + min + ", " + max + ">, got " + val + "!");
     }
 
+    /**
+     * Bounds that fit in a long are checked without any {@link BigInteger} conversions. Integers that don't fit in a
+     * long are out of those bounds anyway.
+     */
+    @Override
+    public CompiledRule compile() {
+        if (min.bitLength() >= Long.SIZE || max.bitLength() >= Long.SIZE) {
+            return new CompiledRule(this, (node) -> {
+                if (!node.isIntegralNumber()) return false;
+                var val = node.bigIntegerValue();
+                return val.compareTo(min) >= 0 && val.compareTo(max) <= 0;
+            });
+        }
+        long min = this.min.longValue();
+        long max = this.max.longValue();
+        return new CompiledRule(this, (node) -> {
+            if (!node.isIntegralNumber() || !node.canConvertToLong()) return false;
+            long val = node.longValue();
+            return val >= min && val <= max;
+        });
+    }
+
     @Override
     public JsonNode asJsonRepresentation() {
         var result = new ObjectNode(JsonNodeFactory.instance);
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.falsepattern.jblotter.util.json.JsonParseException;
+import com.github.falsepattern.jblotter.util.json.rule.CompiledRule;
 import com.github.falsepattern.jblotter.util.json.rule.NodeRule;
 
 public class TextRule implements NodeRule {
@@ -14,6 +15,11 @@ public class TextRule implements NodeRule {
         if (!node.isTextual()) throw new JsonParseException("Expected STRING, got " + node.getNodeType().name() + "!");
     }
 
+    @Override
+    public CompiledRule compile() {
+        return new CompiledRule(this, JsonNode::isTextual);
+    }
+
     @Override
     public JsonNode asJsonRepresentation() {
         var result = new ObjectNode(JsonNodeFactory.instance);
@@ -0,0 +1,23 @@
+package com.github.falsepattern.jblotter.util.serialization;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * A {@link DataInput} that can decode runs of primitives in a single call, instead of going through the per-value
+ * methods. Use {@link SerializationUtil#readInts(DataInput, int[], int, int)} and
+ * {@link SerializationUtil#readFloats(DataInput, float[], int, int)} to take advantage of it when available.
+ */
+public interface BulkDataInput extends DataInput {
+    void readInts(int[] b, int off, int len) throws IOException;
+
+    void readFloats(float[] b, int off, int len) throws IOException;
+
+    default void readInts(int[] b) throws IOException {
+        readInts(b, 0, b.length);
+    }
+
+    default void readFloats(float[] b) throws IOException {
+        readFloats(b, 0, b.length);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.falsepattern.jblotter.util.serialization;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link DataOutput} that can encode runs of primitives in a single call, instead of going through the per-value
+ * methods. Use {@link SerializationUtil#writeInts(DataOutput, int[], int, int)} and
+ * {@link SerializationUtil#writeFloats(DataOutput, float[], int, int)} to take advantage of it when available.
+ */
+public interface BulkDataOutput extends DataOutput {
+    void writeInts(int[] b, int off, int len) throws IOException;
+
+    void writeFloats(float[] b, int off, int len) throws IOException;
+
+    default void writeInts(int[] b) throws IOException {
+        writeInts(b, 0, b.length);
+    }
+
+    default void writeFloats(float[] b) throws IOException {
+        writeFloats(b, 0, b.length);
+    }
+}
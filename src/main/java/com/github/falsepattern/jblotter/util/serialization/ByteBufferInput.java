@@ -0,0 +1,143 @@
+package com.github.falsepattern.jblotter.util.serialization;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link java.io.DataInput} that decodes straight out of a {@link ByteBuffer} (usually a memory-mapped file), without
+ * any stream layers in between. The byte order of the buffer is used for all multibyte values, so it should be set to
+ * little-endian for Blotter files.
+ */
+public class ByteBufferInput implements BulkDataInput {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    public void position(int position) {
+        buffer.position(position);
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Returns a view of the next {@code length} bytes without copying them, and skips past them.
+     */
+    public ByteBuffer slice(int length) throws EOFException {
+        require(length);
+        var result = buffer.slice(buffer.position(), length).order(buffer.order());
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+
+    private void require(long n) throws EOFException {
+        if (n < 0) throw new IllegalArgumentException("Tried to read negative amount of bytes from buffer: " + n);
+        if (buffer.remaining() < n) throw new EOFException("Tried to read " + n + " bytes from buffer, but only " + buffer.remaining() + " bytes were left!");
+    }
+
+    @Override
+    public void readFully(byte[] b) throws EOFException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws EOFException {
+        require(len);
+        buffer.get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        n = Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + n);
+        return n;
+    }
+
+    @Override
+    public boolean readBoolean() throws EOFException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws EOFException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws EOFException {
+        return readByte() & 0xff;
+    }
+
+    @Override
+    public short readShort() throws EOFException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws EOFException {
+        return readShort() & 0xffff;
+    }
+
+    @Override
+    public char readChar() throws EOFException {
+        require(Character.BYTES);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws EOFException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws EOFException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws EOFException {
+        require(Float.BYTES);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws EOFException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public void readInts(int[] b, int off, int len) throws EOFException {
+        require((long) len * Integer.BYTES);
+        buffer.asIntBuffer().get(b, off, len);
+        buffer.position(buffer.position() + len * Integer.BYTES);
+    }
+
+    @Override
+    public void readFloats(float[] b, int off, int len) throws EOFException {
+        require((long) len * Float.BYTES);
+        buffer.asFloatBuffer().get(b, off, len);
+        buffer.position(buffer.position() + len * Float.BYTES);
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("Standard readLine is not implemented for Blot files!");
+    }
+
+    @Override
+    public String readUTF() {
+        throw new UnsupportedOperationException("Standard readUTF is not implemented for Blot files!");
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.falsepattern.jblotter.util.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * {@link java.io.DataOutput} that encodes straight into a heap {@link ByteBuffer}, growing it when it fills up. Multibyte
+ * values use the byte order of the buffer, which is little-endian unless a buffer with another order is passed in.
+ */
+public class ByteBufferOutput implements BulkDataOutput {
+    /**
+     * Some VMs can't allocate arrays quite as large as {@link Integer#MAX_VALUE}.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private ByteBuffer buffer;
+
+    public ByteBufferOutput(int initialCapacity) {
+        this(ByteBuffer.allocate(initialCapacity).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * @param buffer The buffer to write into, starting at its current position. If it fills up, it's replaced by a larger
+     *               copy, so {@link #toByteBuffer()} should be used to get the written data.
+     */
+    public ByteBufferOutput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private void ensure(long n) {
+        if (n < 0) throw new IllegalArgumentException("Tried to write negative amount of bytes to buffer: " + n);
+        if (buffer.remaining() >= n) return;
+        long required = buffer.position() + n;
+        if (required > MAX_CAPACITY) throw new OutOfMemoryError("Tried to grow buffer to " + required + " bytes, which is more than a buffer can hold!");
+        int capacity = (int) Math.min(MAX_CAPACITY, Math.max(required, buffer.capacity() + (buffer.capacity() >> 1) + 16L));
+        var grown = ByteBuffer.allocate(capacity).order(buffer.order());
+        grown.put(buffer.flip());
+        buffer = grown;
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * @return A view of everything written so far, positioned at the start of the data.
+     */
+    public ByteBuffer toByteBuffer() {
+        return buffer.duplicate().flip().order(buffer.order());
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensure(len);
+        buffer.put(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        write(v ? 0x01 : 0x00);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        write(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        ensure(2);
+        buffer.putShort((short) v);
+    }
+
+    @Override
+    public void writeChar(int v) {
+        ensure(2);
+        buffer.putChar((char) v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        ensure(4);
+        buffer.putInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) {
+        ensure(8);
+        buffer.putLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        ensure(4);
+        buffer.putFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        ensure(8);
+        buffer.putDouble(v);
+    }
+
+    @Override
+    public void writeInts(int[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensure((long) len * Integer.BYTES);
+        buffer.asIntBuffer().put(b, off, len);
+        buffer.position(buffer.position() + len * Integer.BYTES);
+    }
+
+    @Override
+    public void writeFloats(float[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensure((long) len * Float.BYTES);
+        buffer.asFloatBuffer().put(b, off, len);
+        buffer.position(buffer.position() + len * Float.BYTES);
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        throw new UnsupportedOperationException("Standard writeBytes is not implemented for Blot files!");
+    }
+
+    @Override
+    public void writeChars(String s) {
+        throw new UnsupportedOperationException("Standard writeChars is not implemented for Blot files!");
+    }
+
+    @Override
+    public void writeUTF(String s) {
+        throw new UnsupportedOperationException("Standard writeUTF is not implemented for Blot files!");
+    }
+}
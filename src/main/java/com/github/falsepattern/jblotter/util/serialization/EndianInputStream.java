@@ -1,16 +1,47 @@
 package com.github.falsepattern.jblotter.util.serialization;
 
-import java.io.DataInput;
 import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Buffered {@link java.io.DataInput} with switchable endianness.<br>
+ * Primitives are decoded straight out of an internal refill buffer, so the wrapped stream only sees large block reads.
+ * Because of this, the wrapped stream must not be read from directly while this stream is in use.
+ */
+public class EndianInputStream extends FilterInputStream implements BulkDataInput {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle FLOAT_LE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle FLOAT_BE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
 
-public class EndianInputStream extends FilterInputStream implements DataInput {
     private boolean littleEndian;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
     public EndianInputStream(InputStream in, boolean littleEndian) {
+        this(in, littleEndian, new byte[DEFAULT_BUFFER_SIZE]);
+    }
+
+    /**
+     * @param buffer The refill buffer to use. Must be at least 8 bytes long, and must not be shared with another live
+     *               stream.
+     */
+    public EndianInputStream(InputStream in, boolean littleEndian, byte[] buffer) {
         super(in);
+        if (buffer.length < Long.BYTES) throw new IllegalArgumentException("Buffer must be at least " + Long.BYTES + " bytes long!");
         this.littleEndian = littleEndian;
+        this.buffer = buffer;
     }
 
     public void setEndianness(boolean littleEndian) {
@@ -25,6 +56,83 @@ public class EndianInputStream extends FilterInputStream implements DataInput {
         return !littleEndian;
     }
 
+    /**
+     * Makes sure that at least {@code n} bytes are available in the buffer, starting at {@link #position}.
+     */
+    private void require(int n) throws IOException {
+        if (limit - position >= n) return;
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        while (limit < n) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) throw new EOFException("Tried to read " + n + " bytes from stream, but only got " + limit + " bytes before EOF!");
+            limit += read;
+        }
+    }
+
+    private boolean refill() throws IOException {
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !refill()) return -1;
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int buffered = limit - position;
+        if (buffered == 0) {
+            if (len >= buffer.length) return in.read(b, off, len);
+            if (!refill()) return -1;
+            buffered = limit;
+        }
+        int n = Math.min(buffered, len);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        int buffered = limit - position;
+        if (buffered >= n) {
+            position += (int) n;
+            return n;
+        }
+        position = limit;
+        return buffered + in.skip(n - buffered);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (limit - position) + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset is not supported by buffered endian streams!");
+    }
+
     @Override
     public void readFully(byte[] b) throws IOException {
         readFully(b, 0, b.length);
@@ -61,50 +169,46 @@ public class EndianInputStream extends FilterInputStream implements DataInput {
 
     @Override
     public short readShort() throws IOException {
-        return (short) readUnsignedShort();
+        require(Short.BYTES);
+        var result = (short) (littleEndian ? SHORT_LE : SHORT_BE).get(buffer, position);
+        position += Short.BYTES;
+        return result;
     }
 
     @Override
     public int readUnsignedShort() throws IOException {
-        //noinspection IfStatementWithIdenticalBranches
-        if (littleEndian) {
-            return readUnsignedByte() | (readUnsignedByte() << 8);
-        } else {
-            return (readUnsignedByte() << 8) | readUnsignedByte();
-        }
+        return readShort() & 0xffff;
     }
 
     @Override
     public char readChar() throws IOException {
-        return (char)((readUnsignedByte() << 8) | readUnsignedByte());
+        require(Character.BYTES);
+        var result = (char) (short) SHORT_BE.get(buffer, position);
+        position += Character.BYTES;
+        return result;
     }
 
     public int readInt() throws IOException {
-        return littleEndian
-                ?
-                readUnsignedByte() | (readUnsignedByte() << 8) | (readUnsignedByte() << 16) | (readUnsignedByte() << 24)
-                :
-                (readUnsignedByte() << 24) | (readUnsignedByte() << 16) | (readUnsignedByte() << 8) | readUnsignedByte()
-                ;
+        require(Integer.BYTES);
+        var result = (int) (littleEndian ? INT_LE : INT_BE).get(buffer, position);
+        position += Integer.BYTES;
+        return result;
     }
 
     @Override
     public long readLong() throws IOException {
-        return littleEndian
-                ?
-                ((long)readUnsignedByte()) | (((long)readUnsignedByte()) << 8) | (((long)readUnsignedByte()) << 16)
-                | (((long)readUnsignedByte()) << 24) | (((long)readUnsignedByte()) << 32) | (((long)readUnsignedByte()) << 40)
-                | (((long)readUnsignedByte()) << 48) | (((long)readUnsignedByte()) << 56)
-                :
-                (((long)readUnsignedByte()) << 56) | (((long)readUnsignedByte()) << 48) | (((long)readUnsignedByte()) << 40)
-                | (((long)readUnsignedByte()) << 32) | (((long)readUnsignedByte()) << 24) | (((long)readUnsignedByte()) << 16)
-                | (((long)readUnsignedByte()) << 8) | ((long)readUnsignedByte())
-                ;
+        require(Long.BYTES);
+        var result = (long) (littleEndian ? LONG_LE : LONG_BE).get(buffer, position);
+        position += Long.BYTES;
+        return result;
     }
 
     @Override
     public float readFloat() throws IOException {
-        return Float.intBitsToFloat(readInt());
+        require(Float.BYTES);
+        var result = (float) (littleEndian ? FLOAT_LE : FLOAT_BE).get(buffer, position);
+        position += Float.BYTES;
+        return result;
     }
 
     @Override
@@ -112,6 +216,34 @@ public class EndianInputStream extends FilterInputStream implements DataInput {
         return Double.longBitsToDouble(readLong());
     }
 
+    @Override
+    public void readInts(int[] b, int off, int len) throws IOException {
+        var handle = littleEndian ? INT_LE : INT_BE;
+        while (len > 0) {
+            require(Integer.BYTES);
+            int n = Math.min(len, (limit - position) / Integer.BYTES);
+            for (int i = 0; i < n; i++, position += Integer.BYTES) {
+                b[off + i] = (int) handle.get(buffer, position);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void readFloats(float[] b, int off, int len) throws IOException {
+        var handle = littleEndian ? FLOAT_LE : FLOAT_BE;
+        while (len > 0) {
+            require(Float.BYTES);
+            int n = Math.min(len, (limit - position) / Float.BYTES);
+            for (int i = 0; i < n; i++, position += Float.BYTES) {
+                b[off + i] = (float) handle.get(buffer, position);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
     @Override
     public String readLine() {
         throw new UnsupportedOperationException("Standard readLine is not implemented for Blot files!");
@@ -1,18 +1,47 @@
 package com.github.falsepattern.jblotter.util.serialization;
 
-import java.io.DataOutput;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Buffered {@link java.io.DataOutput} with switchable endianness.<br>
+ * Primitives are encoded straight into an internal buffer, so the wrapped stream only sees large block writes. Call
+ * {@link #flush()} or {@link #close()} once done, otherwise the tail of the data stays in the buffer.
+ */
+public class EndianOutputStream extends FilterOutputStream implements BulkDataOutput {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle FLOAT_LE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle FLOAT_BE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
 
-public class EndianOutputStream extends FilterOutputStream implements DataOutput {
     private boolean littleEndian;
+    private final byte[] buffer;
+    private int position;
+
     public EndianOutputStream(OutputStream out, boolean littleEndian) {
+        this(out, littleEndian, new byte[DEFAULT_BUFFER_SIZE]);
+    }
+
+    /**
+     * @param buffer The encode buffer to use. Must be at least 8 bytes long, and must not be shared with another live
+     *               stream.
+     */
+    public EndianOutputStream(OutputStream out, boolean littleEndian, byte[] buffer) {
         super(out);
+        if (buffer.length < Long.BYTES) throw new IllegalArgumentException("Buffer must be at least " + Long.BYTES + " bytes long!");
         this.littleEndian = littleEndian;
+        this.buffer = buffer;
     }
 
-
     public void setEndianness(boolean littleEndian) {
         this.littleEndian = littleEndian;
     }
@@ -25,6 +54,44 @@ public class EndianOutputStream extends FilterOutputStream implements DataOutput
         return !littleEndian;
     }
 
+    /**
+     * Makes sure that at least {@code n} bytes are free in the buffer, starting at {@link #position}.
+     */
+    private void require(int n) throws IOException {
+        if (buffer.length - position < n) drain();
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        require(1);
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len >= buffer.length) {
+            drain();
+            out.write(b, off, len);
+            return;
+        }
+        require(len);
+        System.arraycopy(b, off, buffer, position, len);
+        position += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
     @Override
     public void writeBoolean(boolean v) throws IOException {
         write(v ? 0x01 : 0x00);
@@ -37,67 +104,35 @@ public class EndianOutputStream extends FilterOutputStream implements DataOutput
 
     @Override
     public void writeShort(int v) throws IOException {
-        if (littleEndian) {
-            write(v & 0xff);
-            write ((v >> 8) & 0xff);
-        } else {
-            write ((v >> 8) & 0xff);
-            write(v & 0xff);
-        }
+        require(Short.BYTES);
+        (littleEndian ? SHORT_LE : SHORT_BE).set(buffer, position, (short) v);
+        position += Short.BYTES;
     }
 
     @Override
     public void writeChar(int v) throws IOException {
-        if (littleEndian) {
-            write(v & 0xff);
-            write ((v >> 8) & 0xff);
-        } else {
-            write ((v >> 8) & 0xff);
-            write(v & 0xff);
-        }
+        writeShort(v);
     }
 
     @Override
     public void writeInt(int v) throws IOException {
-        if (littleEndian) {
-            write(v & 0xff);
-            write ((v >> 8) & 0xff);
-            write ((v >> 16) & 0xff);
-            write ((v >> 24) & 0xff);
-        } else {
-            write ((v >> 24) & 0xff);
-            write ((v >> 16) & 0xff);
-            write ((v >> 8) & 0xff);
-            write(v & 0xff);
-        }
+        require(Integer.BYTES);
+        (littleEndian ? INT_LE : INT_BE).set(buffer, position, v);
+        position += Integer.BYTES;
     }
 
     @Override
     public void writeLong(long v) throws IOException {
-        if (littleEndian) {
-            write((int) (v & 0xff));
-            write ((int) ((v >> 8) & 0xff));
-            write ((int) ((v >> 16) & 0xff));
-            write ((int) ((v >> 24) & 0xff));
-            write ((int) ((v >> 32) & 0xff));
-            write ((int) ((v >> 40) & 0xff));
-            write ((int) ((v >> 48) & 0xff));
-            write ((int) ((v >> 56) & 0xff));
-        } else {
-            write ((int) ((v >> 56) & 0xff));
-            write ((int) ((v >> 48) & 0xff));
-            write ((int) ((v >> 40) & 0xff));
-            write ((int) ((v >> 32) & 0xff));
-            write ((int) ((v >> 24) & 0xff));
-            write ((int) ((v >> 16) & 0xff));
-            write ((int) ((v >> 8) & 0xff));
-            write((int) (v & 0xff));
-        }
+        require(Long.BYTES);
+        (littleEndian ? LONG_LE : LONG_BE).set(buffer, position, v);
+        position += Long.BYTES;
     }
 
     @Override
     public void writeFloat(float v) throws IOException {
-        writeInt(Float.floatToIntBits(v));
+        require(Float.BYTES);
+        (littleEndian ? FLOAT_LE : FLOAT_BE).set(buffer, position, v);
+        position += Float.BYTES;
     }
 
     @Override
@@ -105,6 +140,34 @@ public class EndianOutputStream extends FilterOutputStream implements DataOutput
         writeLong(Double.doubleToLongBits(v));
     }
 
+    @Override
+    public void writeInts(int[] b, int off, int len) throws IOException {
+        var handle = littleEndian ? INT_LE : INT_BE;
+        while (len > 0) {
+            require(Integer.BYTES);
+            int n = Math.min(len, (buffer.length - position) / Integer.BYTES);
+            for (int i = 0; i < n; i++, position += Integer.BYTES) {
+                handle.set(buffer, position, b[off + i]);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void writeFloats(float[] b, int off, int len) throws IOException {
+        var handle = littleEndian ? FLOAT_LE : FLOAT_BE;
+        while (len > 0) {
+            require(Float.BYTES);
+            int n = Math.min(len, (buffer.length - position) / Float.BYTES);
+            for (int i = 0; i < n; i++, position += Float.BYTES) {
+                handle.set(buffer, position, b[off + i]);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
     @Override
     public void writeBytes(String s) {
         throw new UnsupportedOperationException("Standard writeBytes is not implemented for Blot files!");
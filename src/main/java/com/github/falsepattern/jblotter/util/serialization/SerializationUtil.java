@@ -7,8 +7,13 @@ import org.joml.Vector3f;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
 
 public class SerializationUtil {
     public static Vector3f deserializeVector3f(DataInput input) throws IOException {
@@ -42,11 +47,100 @@ public class SerializationUtil {
         }
     }
 
+    public static void readInts(DataInput input, int[] b, int off, int len) throws IOException {
+        if (input instanceof BulkDataInput bulk) {
+            bulk.readInts(b, off, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                b[off + i] = input.readInt();
+            }
+        }
+    }
+
+    public static void readFloats(DataInput input, float[] b, int off, int len) throws IOException {
+        if (input instanceof BulkDataInput bulk) {
+            bulk.readFloats(b, off, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                b[off + i] = input.readFloat();
+            }
+        }
+    }
+
+    public static void writeInts(DataOutput output, int[] b, int off, int len) throws IOException {
+        if (output instanceof BulkDataOutput bulk) {
+            bulk.writeInts(b, off, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                output.writeInt(b[off + i]);
+            }
+        }
+    }
+
+    public static void writeFloats(DataOutput output, float[] b, int off, int len) throws IOException {
+        if (output instanceof BulkDataOutput bulk) {
+            bulk.writeFloats(b, off, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                output.writeFloat(b[off + i]);
+            }
+        }
+    }
+
+    public static void skipFully(DataInput input, long n) throws IOException {
+        if (n < 0) throw new IllegalArgumentException("Tried to skip a negative amount of bytes: " + n);
+        while (n > 0) {
+            int skipped = input.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                input.readByte();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    /**
+     * Reads a little-endian bitset of {@code byteCount} bytes. When reading from a {@link ByteBufferInput}, the bits are
+     * decoded straight from the underlying buffer, without an intermediate byte array.
+     */
+    public static BitSet readBitSet(DataInput input, int byteCount) throws IOException {
+        if (input instanceof ByteBufferInput buffer) {
+            return BitSet.valueOf(buffer.slice(byteCount));
+        } else {
+            var raw = new byte[byteCount];
+            input.readFully(raw);
+            return BitSet.valueOf(raw);
+        }
+    }
+
+    /**
+     * Maps the entire file into memory read-only, in little-endian byte order. The mapping stays valid after this method
+     * returns, and is released by the garbage collector once the buffer is no longer referenced.
+     */
+    public static MappedByteBuffer mapFile(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("File " + path + " is too large to be memory-mapped (" + size + " bytes)!");
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string. Strings are pooled in {@link StringPool#SHARED}, and when reading from a
+     * {@link ByteBufferInput}, a string that's already pooled is matched straight in the buffer, without copying or
+     * decoding anything.
+     */
     public static String deserializeString(DataInput input) throws IOException {
         var utf8Bytes = input.readInt();
+        if (utf8Bytes < 0) throw new IllegalArgumentException("Negative string length " + utf8Bytes + "!");
+        if (input instanceof ByteBufferInput buffer) {
+            return StringPool.SHARED.get(buffer.slice(utf8Bytes), utf8Bytes);
+        }
         var buffer = new byte[utf8Bytes];
         input.readFully(buffer, 0, utf8Bytes);
-        return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(buffer)).toString();
+        return StringPool.SHARED.get(buffer, 0, utf8Bytes);
     }
 
     public static void serializeString(DataOutput output, String str) throws IOException {
@@ -0,0 +1,171 @@
+package com.github.falsepattern.jblotter.util.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Thread-safe pool of strings, keyed by their UTF-8 encoding.<br>
+ * The only strings in a save are mod names and component IDs, and the same few hundred of them show up in every save a
+ * program loads, so {@link #SHARED} is used to give all of them a single instance. A pooled string is looked up straight
+ * from the encoded bytes, without decoding them or copying them out of the buffer first. Once the pool holds
+ * {@code maxSize} strings, it's emptied before the next one is added, so a stream of unique names can neither grow it
+ * without bound, nor lock the common names out of it.
+ */
+public final class StringPool {
+    public static final StringPool SHARED = new StringPool(4096);
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int maxSize;
+    private byte[][] keys;
+    private String[] values;
+    private int mask;
+    private int size;
+
+    public StringPool(int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Max size cannot be negative!");
+        this.maxSize = maxSize;
+        keys = new byte[16][];
+        values = new String[16];
+        mask = 15;
+    }
+
+    /**
+     * Decodes UTF-8, with a fast path for pure ASCII, which is copied straight into the string.
+     */
+    public static String decode(byte[] utf8, int off, int len) {
+        for (int i = off, end = off + len; i < end; i++) {
+            if (utf8[i] < 0) return new String(utf8, off, len, StandardCharsets.UTF_8);
+        }
+        return new String(utf8, off, len, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int hash(byte[] utf8, int off, int len) {
+        int h = 1;
+        for (int i = off, end = off + len; i < end; i++) {
+            h = 31 * h + utf8[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(ByteBuffer buffer, int off, int len) {
+        int h = 1;
+        for (int i = off, end = off + len; i < end; i++) {
+            h = 31 * h + buffer.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(byte[] key, ByteBuffer buffer, int off, int len) {
+        if (key.length != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (key[i] != buffer.get(off + i)) return false;
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The pooled string encoded by the bytes, pooling it first if needed.
+     */
+    public synchronized String get(byte[] utf8, int off, int len) {
+        int i = hash(utf8, off, len) & mask;
+        for (byte[] key; (key = keys[i]) != null; i = (i + 1) & mask) {
+            if (Arrays.equals(key, 0, key.length, utf8, off, off + len)) return values[i];
+        }
+        var value = decode(utf8, off, len);
+        insert(i, Arrays.copyOfRange(utf8, off, off + len), value);
+        return value;
+    }
+
+    /**
+     * Like {@link #get(byte[], int, int)}, but reads the {@code len} bytes at the position of the buffer, and moves the
+     * position past them. The bytes are only copied if the string isn't pooled yet.
+     */
+    public String get(ByteBuffer buffer, int len) {
+        if (buffer.hasArray()) {
+            var result = get(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.position() + len);
+            return result;
+        }
+        int off = buffer.position();
+        String value;
+        synchronized (this) {
+            int i = hash(buffer, off, len) & mask;
+            for (byte[] key; (key = keys[i]) != null; i = (i + 1) & mask) {
+                if (equals(key, buffer, off, len)) {
+                    buffer.position(off + len);
+                    return values[i];
+                }
+            }
+            var utf8 = new byte[len];
+            buffer.get(off, utf8);
+            value = decode(utf8, 0, len);
+            insert(i, utf8, value);
+        }
+        buffer.position(off + len);
+        return value;
+    }
+
+    /**
+     * @return The pooled instance of the string, pooling it first if needed. Strings with unpaired surrogates aren't
+     * pooled, since UTF-8 can't encode them, and they'd share a key with the string their encoding decodes to.
+     */
+    public String intern(String value) {
+        var utf8 = value.getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            int i = hash(utf8, 0, utf8.length) & mask;
+            for (byte[] key; (key = keys[i]) != null; i = (i + 1) & mask) {
+                if (Arrays.equals(key, utf8)) return values[i].equals(value) ? values[i] : value;
+            }
+            if (isWellFormed(value)) insert(i, utf8, value);
+        }
+        return value;
+    }
+
+    private static boolean isWellFormed(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int slot, byte[] key, String value) {
+        if (size >= maxSize) {
+            if (maxSize == 0) return;
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+            slot = hash(key, 0, key.length) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) rehash();
+    }
+
+    private void rehash() {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            var key = oldKeys[j];
+            if (key == null) continue;
+            int i = hash(key, 0, key.length) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+}
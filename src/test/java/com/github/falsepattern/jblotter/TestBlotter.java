@@ -1,13 +1,26 @@
 package com.github.falsepattern.jblotter;
 
 import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
 import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
 import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 public class TestBlotter {
 
@@ -29,6 +42,91 @@ public class TestBlotter {
         });
     }
 
+    private void testMapped(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            for (int i = 0; i < 32; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var out = new ByteArrayOutputStream();
+                var data = new EndianOutputStream(out, true);
+                file.serialize(data);
+                data.flush();
+                Files.write(path, out.toByteArray());
+                var deserializedFile = BlotterFile.open(path);
+                Assertions.assertEquals(file, deserializedFile);
+                Assertions.assertEquals(file.hashCode(), deserializedFile.hashCode());
+            }
+        });
+    }
+
+    private void testParallel(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            for (int i = 0; i < 32; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var out = new ByteArrayOutputStream();
+                var data = new EndianOutputStream(out, true);
+                file.serialize(data);
+                data.flush();
+                Files.write(path, out.toByteArray());
+                var deserializedFile = BlotterFile.openParallel(path);
+                Assertions.assertEquals(file, deserializedFile);
+                Assertions.assertEquals(file.hashCode(), deserializedFile.hashCode());
+            }
+        });
+    }
+
+    private void testParallelSerialize(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            var narrowPool = Executors.newFixedThreadPool(2);
+            for (int i = 0; i < 32; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var out = new ByteArrayOutputStream();
+                var data = new EndianOutputStream(out, true);
+                file.serialize(data);
+                data.flush();
+                var bytes = out.toByteArray();
+                var parallelOut = new ByteArrayOutputStream();
+                file.serializeParallel(Channels.newChannel(parallelOut), ForkJoinPool.commonPool());
+                Assertions.assertArrayEquals(bytes, parallelOut.toByteArray());
+                try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    file.serializeParallel(channel, ForkJoinPool.commonPool());
+                }
+                Assertions.assertArrayEquals(bytes, Files.readAllBytes(path));
+                parallelOut.reset();
+                file.serializeParallel(Channels.newChannel(parallelOut), narrowPool);
+                Assertions.assertArrayEquals(bytes, parallelOut.toByteArray());
+            }
+            narrowPool.shutdown();
+        });
+    }
+
+    private void testLazy(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            for (int i = 0; i < 32; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var out = new ByteArrayOutputStream();
+                var data = new EndianOutputStream(out, true);
+                file.serialize(data);
+                data.flush();
+                Files.write(path, out.toByteArray());
+                var lazyFile = BlotterFile.openLazy(path, 16);
+                Assertions.assertEquals(file.getComponentCount(), lazyFile.getComponentCount());
+                for (var component: file.components().values()) {
+                    Assertions.assertEquals(component, lazyFile.getComponentByID(component.address()));
+                    Assertions.assertEquals(component, lazyFile.getComponentByID(component.address()));
+                }
+                Assertions.assertNull(lazyFile.getComponentByID(-1));
+                for (int j = 0; j < file.wires().length; j++) {
+                    Assertions.assertEquals(file.wires()[j], lazyFile.getWire(j));
+                }
+                Assertions.assertEquals(file, lazyFile.toBlotterFile());
+            }
+        });
+    }
+
     @Test
     public void testWorlds() {
         test(true);
@@ -38,4 +136,66 @@ public class TestBlotter {
     public void testSubassembly() {
         test(false);
     }
+
+    @Test
+    public void testMappedWorlds(@TempDir Path directory) {
+        testMapped(true, directory);
+    }
+
+    @Test
+    public void testMappedSubassembly(@TempDir Path directory) {
+        testMapped(false, directory);
+    }
+
+    @Test
+    public void testParallelWorlds(@TempDir Path directory) {
+        testParallel(true, directory);
+    }
+
+    @Test
+    public void testParallelSubassembly(@TempDir Path directory) {
+        testParallel(false, directory);
+    }
+
+    @Test
+    public void testParallelSerializeWorlds(@TempDir Path directory) {
+        testParallelSerialize(true, directory);
+    }
+
+    @Test
+    public void testParallelSerializeSubassembly(@TempDir Path directory) {
+        testParallelSerialize(false, directory);
+    }
+
+    /**
+     * Component bytes with a valid header, followed by the given length fields.
+     */
+    private static ByteBufferInput corruptComponent(int... lengths) {
+        var buffer = ByteBuffer.allocate(Component.FIXED_HEADER_BYTES + lengths.length * Integer.BYTES + 64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(Component.FIXED_HEADER_BYTES);
+        for (int length: lengths) {
+            buffer.putInt(length);
+        }
+        return new ByteBufferInput(buffer.position(0));
+    }
+
+    @Test
+    public void testSkipCorrupt() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Component.skip(corruptComponent(-1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Component.skip(corruptComponent(0, -2)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Component.skip(corruptComponent(0, 0, -5)));
+        // 4 * (2^30 + 1) wraps around to 4 bytes in int arithmetic
+        Assertions.assertThrows(EOFException.class, () -> Component.skip(corruptComponent((1 << 30) + 1)));
+        Assertions.assertDoesNotThrow(() -> Component.skip(corruptComponent(0, 0, -1)));
+    }
+
+    @Test
+    public void testLazyWorlds(@TempDir Path directory) {
+        testLazy(true, directory);
+    }
+
+    @Test
+    public void testLazySubassembly(@TempDir Path directory) {
+        testLazy(false, directory);
+    }
 }
@@ -0,0 +1,49 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.ColumnarBlotterFile;
+import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class TestColumnar {
+    private void test(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 64; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var columnar = ColumnarBlotterFile.fromBlotterFile(file);
+                Assertions.assertEquals(file, columnar.toBlotterFile());
+                for (var component: file.components().values()) {
+                    Assertions.assertEquals(component, columnar.getComponent(columnar.indexOf(component.address())));
+                }
+
+                var out = new ByteArrayOutputStream();
+                var data = new EndianOutputStream(out, true);
+                file.serialize(data);
+                data.flush();
+                var bytes = out.toByteArray();
+                var deserialized = ColumnarBlotterFile.deserialize(new EndianInputStream(new ByteArrayInputStream(bytes), true));
+                Assertions.assertEquals(file, deserialized.toBlotterFile());
+
+                var columnarOut = new ByteArrayOutputStream();
+                var columnarData = new EndianOutputStream(columnarOut, true);
+                deserialized.serialize(columnarData);
+                columnarData.flush();
+                Assertions.assertArrayEquals(bytes, columnarOut.toByteArray());
+            }
+        });
+    }
+
+    @Test
+    public void testWorlds() {
+        test(true);
+    }
+
+    @Test
+    public void testSubassembly() {
+        test(false);
+    }
+}
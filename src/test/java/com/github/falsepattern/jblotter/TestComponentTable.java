@@ -0,0 +1,56 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+public class TestComponentTable {
+    private static Component component(int address) {
+        return new Component(address, 0, (short) 0, new Vector3f(), new Quaternionf(), new Input[0], new Output[0], new byte[0]);
+    }
+
+    private void test(boolean sparse) {
+        var random = new Random(sparse ? 2 : 1);
+        var table = new ComponentTable();
+        var expected = new LinkedHashMap<Integer, Component>();
+        for (int i = 0; i < 100000; i++) {
+            int address = sparse ? random.nextInt() : random.nextInt(4096);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(address), table.remove(address));
+            } else {
+                var component = component(address);
+                Assertions.assertEquals(expected.put(address, component), table.put(component));
+            }
+            Assertions.assertEquals(expected.size(), table.size());
+        }
+        Assertions.assertEquals(!sparse, table.isDense());
+        Assertions.assertEquals(expected, table);
+        Assertions.assertEquals(table, expected);
+        Assertions.assertEquals(expected.hashCode(), table.hashCode());
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(table.keySet()));
+        Assertions.assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(table.values()));
+        for (var address: expected.keySet()) {
+            Assertions.assertTrue(table.containsKey((int) address));
+            Assertions.assertSame(expected.get(address), table.get((int) address));
+        }
+    }
+
+    @Test
+    public void testDense() {
+        test(false);
+    }
+
+    @Test
+    public void testSparse() {
+        test(true);
+    }
+}
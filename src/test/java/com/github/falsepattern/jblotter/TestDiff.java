@@ -0,0 +1,177 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterDiff;
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Random;
+
+public class TestDiff {
+    private static byte[] serialize(BlotterFile file) throws IOException {
+        var out = new ByteArrayOutputStream();
+        var data = new EndianOutputStream(out, true);
+        file.serialize(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private static void assertRoundTrip(BlotterFile base, BlotterFile target) throws IOException {
+        var patch = BlotterDiff.compute(base, target);
+        var result = BlotterDiff.apply(base, patch);
+        Assertions.assertEquals(target, result);
+        Assertions.assertArrayEquals(serialize(target), serialize(result));
+    }
+
+    /**
+     * Removes, modifies and adds a few components and wires, and flips a few circuit states.
+     */
+    private static BlotterFile edit(BlotterFile file, Random random) {
+        var components = new ComponentTable(file.components());
+        var addresses = new ArrayList<>(components.keySet());
+        var parents = new BitSet();
+        for (var component: components.values()) {
+            parents.set(component.parentAddress());
+        }
+        for (int i = 0; i < 10; i++) {
+            int address = addresses.get(random.nextInt(addresses.size()));
+            var component = components.get(address);
+            if (component == null) continue;
+            if (parents.get(address)) {
+                components.put(new Component(address, component.parentAddress(), component.componentID(), new Vector3f(random.nextFloat(), 0, 0), component.localRotation(), component.inputs(), component.outputs(), component.customData()));
+            } else {
+                components.remove(address);
+            }
+        }
+        int next = addresses.stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        for (int i = 0; i < 5; i++) {
+            int parent = addresses.isEmpty() ? 0 : addresses.get(0);
+            components.put(new Component(next + i, parent, (short) 0, new Vector3f(i, i, i), new Quaternionf(), new Input[0], new Output[0], new byte[]{(byte) i}));
+        }
+        var wires = new ArrayList<>(Arrays.asList(file.wires()));
+        for (int i = 0; i < 10 && !wires.isEmpty(); i++) {
+            int index = random.nextInt(wires.size());
+            if (random.nextBoolean()) {
+                wires.remove(index);
+            } else {
+                var wire = wires.get(index);
+                wires.set(index, new Wire(wire.firstPoint(), wire.secondPoint(), wire.circuitStateID(), random.nextFloat()));
+            }
+        }
+        if (!wires.isEmpty()) {
+            var wire = wires.get(0);
+            wires.add(new Wire(wire.secondPoint(), wire.firstPoint(), wire.circuitStateID(), 1));
+        }
+        var componentIDs = file.componentIDs().clone();
+        if (componentIDs.length > 0) componentIDs[0] = "Edited." + componentIDs[0];
+        BitSet world = null;
+        int[] subassembly = null;
+        if (file.isWorld()) {
+            world = (BitSet) file.worldCircuitStates().clone();
+            for (int i = 0; i < 10 && file.circuitStateCount() > 0; i++) {
+                world.flip(random.nextInt(file.circuitStateCount()));
+            }
+        } else {
+            var states = new BitSet();
+            Arrays.stream(file.subassemblyCircuitStates()).forEach(states::set);
+            for (int i = 0; i < 10; i++) {
+                states.flip(random.nextInt(file.circuitStateCount() + 10));
+            }
+            subassembly = states.stream().toArray();
+        }
+        return new BlotterFile(file.saveFormatVersion(), file.gameVersion(), file.mods(), file.isWorld(), componentIDs, components, wires.toArray(new Wire[0]), file.circuitStateCount(), world, subassembly);
+    }
+
+    private void testEdits(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            var random = new Random(world ? 1 : 2);
+            var base = new SaveGenerator(7, 100000, world).generate();
+            Assertions.assertTrue(BlotterDiff.compute(base, base).length < 128);
+            assertRoundTrip(base, base);
+            var target = base;
+            for (int i = 0; i < 8; i++) {
+                var edited = edit(target, random);
+                var patch = BlotterDiff.compute(target, edited);
+                Assertions.assertTrue(patch.length < 4096, () -> "Patch is " + patch.length + " bytes");
+                assertRoundTrip(target, edited);
+                assertRoundTrip(edited, target);
+                target = edited;
+            }
+            assertRoundTrip(base, target);
+        });
+    }
+
+    private void testUnrelated(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 32; i++) {
+                var a = RandomSaveGenerator.generateSave(world);
+                var b = RandomSaveGenerator.generateSave(i % 2 == 0 == world);
+                assertRoundTrip(a, b);
+                assertRoundTrip(b, a);
+                assertRoundTrip(a, edit(a, new Random(i)));
+            }
+        });
+    }
+
+    @Test
+    public void testEditsWorlds() {
+        testEdits(true);
+    }
+
+    @Test
+    public void testEditsSubassembly() {
+        testEdits(false);
+    }
+
+    @Test
+    public void testUnrelatedWorlds() {
+        testUnrelated(true);
+    }
+
+    @Test
+    public void testUnrelatedSubassembly() {
+        testUnrelated(false);
+    }
+
+    @Test
+    public void testReordered() {
+        Assertions.assertDoesNotThrow(() -> {
+            var base = new SaveGenerator(3, 5000, true).generate();
+            var wires = new ArrayList<>(Arrays.asList(base.wires()));
+            Collections.shuffle(wires, new Random(3));
+            var shuffled = new BlotterFile(base.saveFormatVersion(), base.gameVersion(), base.mods(), base.isWorld(), base.componentIDs(), base.components(), wires.toArray(new Wire[0]), base.circuitStateCount(), base.worldCircuitStates(), null);
+            assertRoundTrip(base, shuffled);
+            var duplicated = Arrays.copyOf(base.wires(), base.wires().length + 2);
+            duplicated[duplicated.length - 2] = base.wires()[0];
+            duplicated[duplicated.length - 1] = base.wires()[0];
+            var duplicates = new BlotterFile(base.saveFormatVersion(), base.gameVersion(), base.mods(), base.isWorld(), base.componentIDs(), base.components(), duplicated, base.circuitStateCount(), base.worldCircuitStates(), null);
+            assertRoundTrip(base, duplicates);
+            assertRoundTrip(duplicates, base);
+        });
+    }
+
+    @Test
+    public void testWrongBase() {
+        var a = new SaveGenerator(1, 1000, true).generate();
+        var b = new SaveGenerator(2, 1001, true).generate();
+        var patch = BlotterDiff.compute(a, edit(a, new Random(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BlotterDiff.apply(b, patch));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BlotterDiff.apply(a, Arrays.copyOf(patch, patch.length + 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BlotterDiff.apply(a, new byte[16]));
+    }
+}
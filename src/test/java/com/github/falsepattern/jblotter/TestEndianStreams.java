@@ -0,0 +1,207 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferOutput;
+import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestEndianStreams {
+    /**
+     * Hands out at most a few bytes per read, to exercise the refill logic at every possible buffer boundary.
+     */
+    private static InputStream trickle(byte[] data, Random random) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+            }
+        };
+    }
+
+    @Test
+    public void testReadBigEndian() {
+        Assertions.assertDoesNotThrow(() -> {
+            var random = new Random(1);
+            for (int i = 0; i < 64; i++) {
+                var data = new byte[1024 + random.nextInt(4096)];
+                random.nextBytes(data);
+                var expected = new DataInputStream(new ByteArrayInputStream(data));
+                var actual = new EndianInputStream(trickle(data, random), false, new byte[8 + random.nextInt(64)]);
+                int remaining = data.length;
+                while (remaining >= 8) {
+                    switch (random.nextInt(6)) {
+                        case 0 -> Assertions.assertEquals(expected.readByte(), actual.readByte());
+                        case 1 -> Assertions.assertEquals(expected.readShort(), actual.readShort());
+                        case 2 -> Assertions.assertEquals(expected.readChar(), actual.readChar());
+                        case 3 -> Assertions.assertEquals(expected.readInt(), actual.readInt());
+                        case 4 -> Assertions.assertEquals(expected.readLong(), actual.readLong());
+                        case 5 -> Assertions.assertEquals(Float.floatToRawIntBits(expected.readFloat()), Float.floatToRawIntBits(actual.readFloat()));
+                    }
+                    remaining = expected.available();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testReadLittleEndianBulk() {
+        Assertions.assertDoesNotThrow(() -> {
+            var random = new Random(2);
+            for (int i = 0; i < 64; i++) {
+                var data = new byte[1024 + random.nextInt(4096)];
+                random.nextBytes(data);
+                var expected = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                var actual = new EndianInputStream(trickle(data, random), true, new byte[8 + random.nextInt(64)]);
+                while (expected.remaining() >= 64) {
+                    int count = random.nextInt(expected.remaining() / 4 / 4);
+                    switch (random.nextInt(4)) {
+                        case 0 -> {
+                            var ints = new int[count];
+                            actual.readInts(ints);
+                            for (int value : ints) Assertions.assertEquals(expected.getInt(), value);
+                        }
+                        case 1 -> {
+                            var floats = new float[count];
+                            actual.readFloats(floats);
+                            for (float value : floats) Assertions.assertEquals(Float.floatToRawIntBits(expected.getFloat()), Float.floatToRawIntBits(value));
+                        }
+                        case 2 -> {
+                            var bytes = new byte[count];
+                            actual.readFully(bytes);
+                            var expectedBytes = new byte[count];
+                            expected.get(expectedBytes);
+                            Assertions.assertArrayEquals(expectedBytes, bytes);
+                        }
+                        case 3 -> Assertions.assertEquals(expected.getShort() & 0xffff, actual.readUnsignedShort());
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testByteBufferBulkOverflow() {
+        var input = new ByteBufferInput(ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN));
+        // 4 * (2^30 + 1) wraps around to 4 bytes in int arithmetic
+        Assertions.assertThrows(EOFException.class, () -> input.readInts(new int[4], 0, (1 << 30) + 1));
+        Assertions.assertThrows(EOFException.class, () -> input.readFloats(new float[4], 0, (1 << 30) + 1));
+        Assertions.assertEquals(16, input.remaining());
+        var output = new ByteBufferOutput(16);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> output.writeInts(new int[4], 0, (1 << 30) + 1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> output.writeFloats(new float[4], 0, (1 << 30) + 1));
+        Assertions.assertEquals(0, output.position());
+    }
+
+    @Test
+    public void testWriteBigEndian() {
+        Assertions.assertDoesNotThrow(() -> {
+            var random = new Random(3);
+            for (int i = 0; i < 64; i++) {
+                var expectedOut = new ByteArrayOutputStream();
+                var expected = new DataOutputStream(expectedOut);
+                var actualOut = new ByteArrayOutputStream();
+                var actual = new EndianOutputStream(actualOut, false, new byte[8 + random.nextInt(64)]);
+                for (int j = 0; j < 1024; j++) {
+                    switch (random.nextInt(7)) {
+                        case 0 -> {
+                            int value = random.nextInt();
+                            expected.writeByte(value);
+                            actual.writeByte(value);
+                        }
+                        case 1 -> {
+                            int value = random.nextInt();
+                            expected.writeShort(value);
+                            actual.writeShort(value);
+                        }
+                        case 2 -> {
+                            int value = random.nextInt();
+                            expected.writeChar(value);
+                            actual.writeChar(value);
+                        }
+                        case 3 -> {
+                            int value = random.nextInt();
+                            expected.writeInt(value);
+                            actual.writeInt(value);
+                        }
+                        case 4 -> {
+                            long value = random.nextLong();
+                            expected.writeLong(value);
+                            actual.writeLong(value);
+                        }
+                        case 5 -> {
+                            float value = random.nextFloat();
+                            expected.writeFloat(value);
+                            actual.writeFloat(value);
+                        }
+                        case 6 -> {
+                            var bytes = new byte[random.nextInt(128)];
+                            random.nextBytes(bytes);
+                            expected.write(bytes);
+                            actual.write(bytes);
+                        }
+                    }
+                }
+                actual.flush();
+                Assertions.assertArrayEquals(expectedOut.toByteArray(), actualOut.toByteArray());
+            }
+        });
+    }
+
+    @Test
+    public void testWriteLittleEndianBulk() {
+        Assertions.assertDoesNotThrow(() -> {
+            var random = new Random(4);
+            for (int i = 0; i < 64; i++) {
+                var expected = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                var actualOut = new ByteArrayOutputStream();
+                var actual = new EndianOutputStream(actualOut, true, new byte[8 + random.nextInt(64)]);
+                var bufferOutput = new ByteBufferOutput(16);
+                for (int j = 0; j < 256; j++) {
+                    int count = random.nextInt(64);
+                    switch (random.nextInt(3)) {
+                        case 0 -> {
+                            var ints = new int[count];
+                            for (int k = 0; k < count; k++) ints[k] = random.nextInt();
+                            for (int value : ints) expected.putInt(value);
+                            actual.writeInts(ints);
+                            bufferOutput.writeInts(ints);
+                        }
+                        case 1 -> {
+                            var floats = new float[count];
+                            for (int k = 0; k < count; k++) floats[k] = random.nextFloat();
+                            for (float value : floats) expected.putFloat(value);
+                            actual.writeFloats(floats);
+                            bufferOutput.writeFloats(floats);
+                        }
+                        case 2 -> {
+                            short value = (short) random.nextInt();
+                            expected.putShort(value);
+                            actual.writeShort(value);
+                            bufferOutput.writeShort(value);
+                        }
+                    }
+                }
+                actual.flush();
+                var expectedBytes = Arrays.copyOf(expected.array(), expected.position());
+                Assertions.assertArrayEquals(expectedBytes, actualOut.toByteArray());
+                var buffered = bufferOutput.toByteBuffer();
+                var bufferedBytes = new byte[buffered.remaining()];
+                buffered.get(bufferedBytes);
+                Assertions.assertArrayEquals(expectedBytes, bufferedBytes);
+            }
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.ColumnarBlotterFile;
+import com.github.falsepattern.jblotter.stream.BlotterReader;
+import com.github.falsepattern.jblotter.util.HierarchyIndex;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+public class TestHierarchy {
+    /**
+     * Checks the index against the parent links of the file, walking them the slow way.
+     */
+    private static void assertMatches(BlotterFile file, HierarchyIndex hierarchy) {
+        var components = file.components();
+        Assertions.assertEquals(components.size(), hierarchy.size());
+        var children = new HashMap<Integer, List<Integer>>();
+        int index = 0;
+        for (var component: components.values()) {
+            Assertions.assertEquals(component.address(), hierarchy.address(index));
+            Assertions.assertEquals(index, hierarchy.indexOf(component.address()));
+            children.computeIfAbsent(component.parentAddress(), (key) -> new ArrayList<>()).add(index++);
+        }
+        Assertions.assertArrayEquals(children.getOrDefault(0, List.of()).stream().mapToInt(Integer::intValue).toArray(), hierarchy.topLevel());
+        var seen = new boolean[hierarchy.size()];
+        for (int rank = 0; rank < hierarchy.size(); rank++) {
+            int i = hierarchy.preOrder()[rank];
+            Assertions.assertEquals(rank, hierarchy.preOrderRank(i));
+            int parent = hierarchy.parent(i);
+            Assertions.assertTrue(parent < 0 || seen[parent]);
+            seen[i] = true;
+            var component = components.get(hierarchy.address(i));
+            Assertions.assertEquals(component.parentAddress() == 0 ? -1 : hierarchy.indexOf(component.parentAddress()), parent);
+            Assertions.assertArrayEquals(children.getOrDefault(component.address(), List.of()).stream().mapToInt(Integer::intValue).toArray(), hierarchy.children(i));
+            Assertions.assertEquals(hierarchy.children(i).length, hierarchy.childCount(i));
+            int depth = 0;
+            for (int ancestor = parent; ancestor >= 0; ancestor = hierarchy.parent(ancestor)) {
+                Assertions.assertTrue(hierarchy.isAncestor(ancestor, i));
+                Assertions.assertFalse(hierarchy.isAncestor(i, ancestor));
+                depth++;
+            }
+            Assertions.assertEquals(depth, hierarchy.depth(i));
+            Assertions.assertFalse(hierarchy.isAncestor(i, i));
+            var subtree = hierarchy.subtree(i);
+            Assertions.assertEquals(hierarchy.subtreeSize(i), subtree.length);
+            Assertions.assertEquals(i, subtree[0]);
+            int descendants = 0;
+            for (int child: hierarchy.children(i)) {
+                descendants += hierarchy.subtreeSize(child);
+            }
+            Assertions.assertEquals(subtree.length, descendants + 1);
+        }
+    }
+
+    @Test
+    public void testGenerated() {
+        for (int i = 0; i < 4; i++) {
+            var file = new SaveGenerator(i, 1 + i * 3000, i % 2 == 0).generate();
+            assertMatches(file, HierarchyIndex.build(file.components()));
+            assertMatches(file, HierarchyIndex.build(ColumnarBlotterFile.fromBlotterFile(file)));
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        for (int i = 0; i < 16; i++) {
+            var file = RandomSaveGenerator.generateSave(i % 2 == 0);
+            assertMatches(file, HierarchyIndex.build(file.components()));
+        }
+    }
+
+    @Test
+    public void testStreamed(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(5, 20000, true).write(path);
+            var builder = new HierarchyIndex.Builder();
+            BlotterReader.read(path, builder);
+            assertMatches(BlotterFile.open(path), builder.build());
+        });
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HierarchyIndex.build(2, new int[]{1, 2}, new int[]{0, 3}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HierarchyIndex.build(3, new int[]{1, 2, 3}, new int[]{0, 3, 2}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HierarchyIndex.build(1, new int[]{1}, new int[]{1}));
+        Assertions.assertThrows(IllegalStateException.class, () -> HierarchyIndex.build(2, new int[]{1, 1}, new int[]{0, 0}));
+        var random = new Random(1);
+        int count = 100000;
+        var addresses = new int[count];
+        var parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            addresses[i] = i + 1;
+            parents[i] = i == 0 ? 0 : 1 + random.nextInt(i);
+        }
+        var tree = HierarchyIndex.build(count, addresses, parents);
+        Assertions.assertEquals(count, tree.subtreeSize(0));
+        Assertions.assertEquals(0, tree.preOrderRank(0));
+    }
+}
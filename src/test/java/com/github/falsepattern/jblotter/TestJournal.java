@@ -0,0 +1,235 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.JournaledBlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.objects.component.pegs.PegAddress;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+public class TestJournal {
+    private static final int FIRST_ADDRESS = 1 << 20;
+
+    /**
+     * Adds a chain of components wired together, moves, rewires and removes some of them, and flips circuit states.
+     */
+    private static void edit(JournaledBlotterFile file, int round) throws Exception {
+        int id = file.componentID("JBlotter.Journal" + round % 3);
+        int base = FIRST_ADDRESS + round * 16;
+        for (int i = 0; i < 8; i++) {
+            file.addComponent(new Component(base + i, i == 0 ? 0 : base + i - 1, (short) id, new Vector3f(i, round, 0), new Quaternionf(), new Input[]{new Input(i), new Input(i + 1)}, new Output[]{new Output(i)}, new byte[]{(byte) round}));
+        }
+        for (int i = 1; i < 8; i++) {
+            file.addWire(new Wire(new PegAddress(false, base + i - 1, 0), new PegAddress(true, base + i, i % 2), round, i));
+        }
+        file.moveComponent(base + 7, base, new Vector3f(1, 2, 3), new Quaternionf().rotateY(round));
+        file.removeWire(new PegAddress(false, base + 6, 0), new PegAddress(true, base + 7, 1));
+        file.removeComponent(base + 7);
+        file.addWire(new Wire(new PegAddress(false, base, 0), new PegAddress(true, base + 1, 1), round + 1, 0.5f));
+        file.setCircuitState(round * 3, true);
+        file.setCircuitState(round * 3 + 1, round % 2 == 0);
+        file.setCircuitState(1, false);
+    }
+
+    private void testReplay(Path directory, boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(world ? 1 : 2, 2000, world).write(path);
+            var original = BlotterFile.open(path);
+            BlotterFile expected;
+            try (var file = JournaledBlotterFile.open(path)) {
+                Assertions.assertEquals(original, file.snapshot());
+                for (int i = 0; i < 20; i++) {
+                    edit(file, i);
+                }
+                expected = file.snapshot();
+                Assertions.assertNotEquals(original, expected);
+            }
+            Assertions.assertEquals(original, BlotterFile.open(path));
+            try (var file = JournaledBlotterFile.open(path, 0, JournaledBlotterFile.DEFAULT_COMPACTION_THRESHOLD)) {
+                Assertions.assertEquals(expected, file.snapshot());
+                file.compact();
+                Assertions.assertEquals(expected, file.snapshot());
+                edit(file, 20);
+                expected = file.snapshot();
+            }
+            try (var file = JournaledBlotterFile.open(path)) {
+                Assertions.assertEquals(expected, file.snapshot());
+            }
+        });
+    }
+
+    @Test
+    public void testReplayWorld(@TempDir Path directory) {
+        testReplay(directory, true);
+    }
+
+    @Test
+    public void testReplaySubassembly(@TempDir Path directory) {
+        testReplay(directory, false);
+    }
+
+    @Test
+    public void testBackgroundCompaction(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(3, 1000, true).write(path);
+            BlotterFile expected;
+            var sizePath = directory.resolve("size.blotter");
+            new SaveGenerator(3, 1000, true).write(sizePath);
+            long editSize;
+            try (var file = JournaledBlotterFile.open(sizePath)) {
+                long size = file.journalSize();
+                edit(file, 0);
+                editSize = file.journalSize() - size;
+            }
+            try (var file = JournaledBlotterFile.open(path, 1, 4096)) {
+                // Edits racing the background compactions, which end up in the journal of the new base
+                for (int i = 0; i < 50; i++) {
+                    edit(file, i);
+                }
+                file.awaitCompaction();
+                for (int i = 50; i < 100; i++) {
+                    edit(file, i);
+                    file.awaitCompaction();
+                }
+                expected = file.snapshot();
+                file.sync();
+            }
+            Assertions.assertTrue(Files.size(JournaledBlotterFile.journalPath(path)) <= 4096 + editSize);
+            try (var file = JournaledBlotterFile.open(path)) {
+                Assertions.assertEquals(expected, file.snapshot());
+            }
+        });
+    }
+
+    @Test
+    public void testTornTail(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(4, 1000, true).write(path);
+            BlotterFile expected;
+            long intactSize;
+            try (var file = JournaledBlotterFile.open(path)) {
+                edit(file, 0);
+                expected = file.snapshot();
+                intactSize = file.journalSize();
+                file.setCircuitState(12345, true);
+            }
+            var journalPath = JournaledBlotterFile.journalPath(path);
+            try (var channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(Files.size(journalPath) - 1);
+            }
+            try (var file = JournaledBlotterFile.open(path)) {
+                Assertions.assertEquals(expected, file.snapshot());
+                Assertions.assertEquals(intactSize, file.journalSize());
+                Assertions.assertEquals(intactSize, Files.size(journalPath));
+                edit(file, 1);
+                file.setCircuitState(1, true);
+                expected = file.snapshot();
+            }
+            var corrupted = Files.readAllBytes(journalPath);
+            corrupted[corrupted.length - 2] ^= 1;
+            Files.write(journalPath, corrupted);
+            try (var file = JournaledBlotterFile.open(path)) {
+                var snapshot = file.snapshot();
+                Assertions.assertFalse(snapshot.worldCircuitStates().get(1));
+                Assertions.assertNotEquals(expected, snapshot);
+            }
+        });
+    }
+
+    @Test
+    public void testStaleJournal(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(5, 1000, true).write(path);
+            try (var file = JournaledBlotterFile.open(path)) {
+                edit(file, 0);
+            }
+            new SaveGenerator(6, 1000, true).write(path);
+            try (var file = JournaledBlotterFile.open(path)) {
+                Assertions.assertEquals(BlotterFile.open(path), file.snapshot());
+            }
+        });
+    }
+
+    @Test
+    public void testFailedOpen(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(8, 100, true).write(path);
+            JournaledBlotterFile.open(path).close();
+            // A record with a valid checksum, but an unknown operation
+            var payload = new byte[]{99};
+            var crc = new CRC32C();
+            crc.update(payload);
+            var record = ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN).putInt(1).putInt((int) crc.getValue()).put(payload).flip();
+            try (var channel = FileChannel.open(JournaledBlotterFile.journalPath(path), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(record);
+            }
+            Assertions.assertThrows(IllegalArgumentException.class, () -> JournaledBlotterFile.open(path, 1, JournaledBlotterFile.DEFAULT_COMPACTION_THRESHOLD));
+            var threadName = "JournaledBlotterFile " + path.getFileName();
+            for (var thread: Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals(threadName)) {
+                    thread.join(10000);
+                    Assertions.assertFalse(thread.isAlive());
+                }
+            }
+            // The journal channel must be closed as well, which can only be observed where open files are listed
+            var descriptors = Path.of("/proc/self/fd");
+            if (Files.isDirectory(descriptors)) {
+                var journalPath = JournaledBlotterFile.journalPath(path).toRealPath();
+                try (var links = Files.list(descriptors)) {
+                    Assertions.assertTrue(links.noneMatch((link) -> {
+                        try {
+                            return Files.readSymbolicLink(link).equals(journalPath);
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    }));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidEdits(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            new SaveGenerator(7, 100, false).write(path);
+            try (var file = JournaledBlotterFile.open(path)) {
+                edit(file, 0);
+                var expected = file.snapshot();
+                long size = file.journalSize();
+                var empty = new Input[0];
+                Assertions.assertThrows(IllegalStateException.class, () -> file.removeComponent(FIRST_ADDRESS));
+                Assertions.assertThrows(IllegalStateException.class, () -> file.removeComponent(FIRST_ADDRESS + 6));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.removeComponent(FIRST_ADDRESS + 7));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.addComponent(new Component(FIRST_ADDRESS, 0, (short) 0, new Vector3f(), new Quaternionf(), empty, new Output[0], new byte[0])));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.addComponent(new Component(FIRST_ADDRESS - 1, FIRST_ADDRESS - 2, (short) 0, new Vector3f(), new Quaternionf(), empty, new Output[0], new byte[0])));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.moveComponent(FIRST_ADDRESS, FIRST_ADDRESS + 3, new Vector3f(), new Quaternionf()));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.addWire(new Wire(new PegAddress(true, FIRST_ADDRESS, 2), new PegAddress(true, FIRST_ADDRESS + 1, 0), 0, 0)));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> file.removeWire(new PegAddress(true, FIRST_ADDRESS, 0), new PegAddress(true, FIRST_ADDRESS + 1, 0)));
+                Assertions.assertEquals(expected, file.snapshot());
+                Assertions.assertEquals(size, file.journalSize());
+            }
+        });
+    }
+}
@@ -1,11 +1,19 @@
 package com.github.falsepattern.jblotter;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.json.async.NonBlockingJsonParser;
 import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.IntNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.Serializable;
 import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
 import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
 import org.junit.jupiter.api.Assertions;
@@ -13,6 +21,10 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.util.List;
+import java.util.function.Consumer;
+import java.nio.charset.StandardCharsets;
 
 public class TestJson {
     private void test(boolean world) {
@@ -35,6 +47,96 @@ public class TestJson {
         });
     }
 
+    private void testStreaming(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            var mapper = new ObjectMapper();
+            for (int i = 0; i < 256; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var output = new ByteArrayOutputStream();
+                file.writeJson(output);
+                Assertions.assertEquals(mapper.writeValueAsString(file.toJson()), output.toString(StandardCharsets.UTF_8));
+                output.reset();
+                file.writeEditableJson(output);
+                Assertions.assertEquals(mapper.writeValueAsString(file.toEditableJson()), output.toString(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private void testReading(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            var mapper = new ObjectMapper();
+            for (int i = 0; i < 32; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var json = mapper.writeValueAsString(file.toJson());
+                Assertions.assertEquals(file, BlotterFile.readJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+                var editableJson = file.toEditableJson();
+                var editable = mapper.writeValueAsString(editableJson);
+                Assertions.assertEquals(BlotterFile.fromJson(editableJson), BlotterFile.readJson(new ByteArrayInputStream(editable.getBytes(StandardCharsets.UTF_8))));
+            }
+        });
+    }
+
+    private static String messages(Throwable e) {
+        var result = new StringBuilder();
+        for (; e != null; e = e.getCause()) {
+            result.append(e.getClass().getSimpleName()).append(": ").append(e.getMessage()).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Breaks a valid save in one place, and checks that both json readers fail the same way.
+     */
+    private static void assertSameFault(ObjectNode json, Consumer<ObjectNode> breaker) throws Exception {
+        var mapper = new ObjectMapper();
+        var broken = json.deepCopy();
+        breaker.accept(broken);
+        var text = mapper.writeValueAsString(broken);
+        var expected = Assertions.assertThrows(Exception.class, () -> BlotterFile.fromJson(mapper.readTree(text)));
+        var actual = Assertions.assertThrows(Exception.class, () -> BlotterFile.readJson(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals(messages(expected), messages(actual));
+    }
+
+    private static ObjectNode component(ObjectNode json, int index) {
+        return (ObjectNode) json.get("components").get(index);
+    }
+
+    private void testReadingFaults(boolean world) throws Exception {
+        var file = new SaveGenerator(1, 200, world).generate();
+        for (var json: List.of(file.toJson(), file.toEditableJson())) {
+            assertSameFault(json, (node) -> node.remove("saveType"));
+            assertSameFault(json, (node) -> node.put("saveFormatVersion", 4));
+            assertSameFault(json, (node) -> node.put("saveType", 3));
+            assertSameFault(json, (node) -> node.put("editFriendly", "yes"));
+            assertSameFault(json, (node) -> ((ArrayNode) node.get("gameVersion")).add(1));
+            assertSameFault(json, (node) -> ((ArrayNode) node.get("gameVersion")).set(2, new TextNode("1")));
+            assertSameFault(json, (node) -> ((ArrayNode) node.get("mods")).addObject().put("name", "mod"));
+            assertSameFault(json, (node) -> component(node, 3).put("componentAddress", -1));
+            assertSameFault(json, (node) -> component(node, 3).put("parentAddress", 1.5));
+            assertSameFault(json, (node) -> component(node, 3).put("componentID", true));
+            assertSameFault(json, (node) -> component(node, 3).put("extra", 0));
+            assertSameFault(json, (node) -> component(node, 3).remove("customData"));
+            assertSameFault(json, (node) -> ((ObjectNode) component(node, 3).get("localRotation")).remove("w"));
+            assertSameFault(json, (node) -> ((ArrayNode) component(node, 3).get("customData")).add(256));
+            assertSameFault(json, (node) -> ((ArrayNode) component(node, 3).get("outputs")).addObject());
+            assertSameFault(json, (node) -> ((ArrayNode) component(node, 3).get("inputs")).addObject().put("circuitStateID", -1));
+            assertSameFault(json, (node) -> component(node, 4).put("componentAddress", component(node, 3).get("componentAddress").longValue()));
+            assertSameFault(json, (node) -> ((ObjectNode) node.get("wires").get(0)).remove("rotation"));
+            assertSameFault(json, (node) -> ((ObjectNode) node.get("wires").get(0)).put("circuitStateID", "0"));
+            assertSameFault(json, (node) -> node.put("components", 0));
+        }
+        var json = file.toJson();
+        assertSameFault(json, (node) -> component(node, 3).put("componentID", "JBlotter.Board"));
+        assertSameFault(json, (node) -> node.remove("circuitStates"));
+        assertSameFault(json, (node) -> ((ArrayNode) node.get("circuitStates")).add(world ? new IntNode(1) : BooleanNode.TRUE));
+        var editable = file.toEditableJson();
+        assertSameFault(editable, (node) -> node.putArray("circuitStates"));
+        assertSameFault(editable, (node) -> component(node, 3).put("componentID", 0));
+        assertSameFault(editable, (node) -> ((ObjectNode) component(node, 3).get("outputs").get(0)).put("powered", 1));
+        assertSameFault(editable, (node) -> ((ObjectNode) node.get("wires").get(0)).put("circuitStateID", 0));
+        assertSameFault(editable, (node) -> ((ObjectNode) node.get("wires").get(0).get("firstPoint")).put("pegIndex", 1000));
+    }
+
     @Test
     public void testWorlds() {
         test(true);
@@ -44,4 +146,69 @@ public class TestJson {
     public void testSubassembly() {
         test(false);
     }
+
+    @Test
+    public void testStreamingWorlds() {
+        testStreaming(true);
+    }
+
+    @Test
+    public void testStreamingSubassembly() {
+        testStreaming(false);
+    }
+
+    /**
+     * Implementations that only build node trees still stream, through the default methods.
+     */
+    @Test
+    public void testDefaultStreaming() {
+        Assertions.assertDoesNotThrow(() -> {
+            var serializable = new Serializable() {
+                @Override
+                public void serialize(DataOutput output) {
+                }
+
+                @Override
+                public JsonNode toJson() {
+                    return JsonNodeFactory.instance.objectNode().put("value", 1);
+                }
+
+                @Override
+                public JsonNode toEditableJson() {
+                    return JsonNodeFactory.instance.arrayNode().add("value");
+                }
+            };
+            var mapper = new ObjectMapper();
+            for (var factory: List.of(new JsonFactory(), mapper.getFactory())) {
+                var out = new ByteArrayOutputStream();
+                try (var generator = factory.createGenerator(out)) {
+                    generator.writeStartArray();
+                    serializable.writeJson(generator);
+                    serializable.writeEditableJson(generator);
+                    generator.writeEndArray();
+                }
+                Assertions.assertEquals(mapper.createArrayNode().add(serializable.toJson()).add(serializable.toEditableJson()), mapper.readTree(out.toByteArray()));
+            }
+        });
+    }
+
+    @Test
+    public void testReadingWorlds() {
+        testReading(true);
+    }
+
+    @Test
+    public void testReadingSubassembly() {
+        testReading(false);
+    }
+
+    @Test
+    public void testReadingFaultsWorlds() throws Exception {
+        testReadingFaults(true);
+    }
+
+    @Test
+    public void testReadingFaultsSubassembly() throws Exception {
+        testReadingFaults(false);
+    }
 }
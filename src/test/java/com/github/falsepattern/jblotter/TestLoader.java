@@ -0,0 +1,134 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.BlotterLoader;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestLoader {
+    private static List<Path> generate(Path directory, int count) throws Exception {
+        var paths = new ArrayList<Path>();
+        for (int i = 0; i < count; i++) {
+            var path = directory.resolve("save" + i + ".blotter");
+            new SaveGenerator(i, 1 + i * 37 % 500, i % 3 == 0).write(path);
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    @Test
+    public void testCallback(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var paths = generate(directory, 100);
+            var corrupt = directory.resolve("corrupt.blotter");
+            Files.write(corrupt, new byte[]{1, 2, 3});
+            paths.add(50, corrupt);
+            var results = new BlotterLoader.Result[paths.size()];
+            var concurrent = new AtomicInteger();
+            try (var loader = new BlotterLoader(4)) {
+                loader.load(paths, (result) -> {
+                    Assertions.assertEquals(1, concurrent.incrementAndGet());
+                    Assertions.assertNull(results[result.index()]);
+                    results[result.index()] = result;
+                    concurrent.decrementAndGet();
+                });
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                var result = results[i];
+                Assertions.assertEquals(paths.get(i), result.path());
+                if (i == 50) {
+                    Assertions.assertFalse(result.isSuccess());
+                    Assertions.assertNull(result.file());
+                } else {
+                    Assertions.assertTrue(result.isSuccess(), () -> String.valueOf(result.error()));
+                    Assertions.assertEquals(BlotterFile.open(result.path()), result.file());
+                    Assertions.assertSame(results[0].file().componentIDs()[1], result.file().componentIDs()[1]);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCallbackFailure(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var paths = generate(directory, 20);
+            var calls = new AtomicInteger();
+            try (var loader = new BlotterLoader(2)) {
+                var e = Assertions.assertThrows(IllegalStateException.class, () -> loader.load(paths, (result) -> {
+                    if (calls.incrementAndGet() == 3) throw new IllegalStateException("Stop");
+                }));
+                Assertions.assertEquals("Stop", e.getMessage());
+            }
+            Assertions.assertEquals(3, calls.get());
+        });
+    }
+
+    @Test
+    public void testBackpressure(@TempDir Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var paths = generate(directory, 50);
+            try (var loader = new BlotterLoader(8)) {
+                var done = new CountDownLatch(1);
+                var received = new ArrayList<BlotterLoader.Result>();
+                var failures = new ArrayList<Throwable>();
+                loader.publish(paths).subscribe(new Flow.Subscriber<>() {
+                    private Flow.Subscription subscription;
+                    private int outstanding;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        outstanding = 2;
+                        subscription.request(2);
+                    }
+
+                    @Override
+                    public void onNext(BlotterLoader.Result item) {
+                        if (--outstanding < 0) failures.add(new AssertionError("Received more results than requested"));
+                        received.add(item);
+                        if (outstanding == 0) {
+                            outstanding = 1 + received.size() % 3;
+                            subscription.request(outstanding);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        failures.add(throwable);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        done.countDown();
+                    }
+                });
+                Assertions.assertTrue(done.await(1, TimeUnit.MINUTES));
+                Assertions.assertEquals(List.of(), failures);
+                Assertions.assertEquals(paths.size(), received.size());
+                Assertions.assertEquals(paths.size(), received.stream().mapToInt(BlotterLoader.Result::index).distinct().count());
+                Assertions.assertTrue(received.stream().allMatch(BlotterLoader.Result::isSuccess));
+            }
+        });
+    }
+
+    @Test
+    public void testEmpty() {
+        Assertions.assertDoesNotThrow(() -> {
+            try (var loader = new BlotterLoader()) {
+                loader.load(List.of(), (result) -> Assertions.fail());
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.falsepattern.jblotter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.json.rule.NodeRule;
+import com.github.falsepattern.jblotter.util.json.rule.primitives.IntegerRule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.function.Consumer;
+
+public class TestRules {
+    private static String verify(NodeRule rule, JsonNode node) {
+        try {
+            rule.verify(node);
+            return null;
+        } catch (Exception e) {
+            var result = new StringBuilder();
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                result.append(t.getClass().getSimpleName()).append(": ").append(t.getMessage()).append('\n');
+            }
+            return result.toString();
+        }
+    }
+
+    private static void assertSame(NodeRule rule, JsonNode node) {
+        var compiled = rule.compile();
+        var expected = verify(rule, node);
+        Assertions.assertEquals(expected, verify(compiled, node));
+        Assertions.assertEquals(expected == null, compiled.test(node));
+    }
+
+    private static void assertSame(NodeRule rule, JsonNode node, Consumer<ObjectNode> breaker) {
+        var broken = (ObjectNode) node.deepCopy();
+        breaker.accept(broken);
+        assertSame(rule, broken);
+    }
+
+    @Test
+    public void testIntegers() throws Exception {
+        var mapper = new ObjectMapper();
+        var huge = new IntegerRule(BigInteger.ONE.shiftLeft(70).negate(), BigInteger.ONE.shiftLeft(70));
+        for (var text: new String[]{"0", "1", "-1", "255", "256", "65535", "2147483647", "2147483648", "4294967295", "4294967296", "9223372036854775807", "9223372036854775808", "-9223372036854775809", "1180591620717411303424", "1180591620717411303425", "1.0", "0.5", "true", "\"1\"", "null", "[]", "{}"}) {
+            var node = mapper.readTree(text);
+            for (var rule: new NodeRule[]{IntegerRule.UNSIGNED_BYTE, IntegerRule.UNSIGNED_SHORT, IntegerRule.UNSIGNED_INT, IntegerRule.POSITIVE_SIGNED_INT, huge}) {
+                assertSame(rule, node);
+            }
+        }
+    }
+
+    @Test
+    public void testSaves() {
+        for (boolean world: new boolean[]{true, false}) {
+            for (int i = 0; i < 16; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var json = file.toJson();
+                assertSame(Version.RULE, json.get("gameVersion"));
+                for (var component: json.get("components")) {
+                    assertSame(Component.RULE, component);
+                }
+                for (var wire: json.get("wires")) {
+                    assertSame(Wire.RULE, wire);
+                }
+                var editable = file.toEditableJson();
+                for (var component: editable.get("components")) {
+                    assertSame(Component.EDITABLE_RULE, component);
+                    assertSame(Component.RULE, component);
+                }
+                for (var wire: editable.get("wires")) {
+                    assertSame(Wire.EDITABLE_RULE, wire);
+                    assertSame(Wire.RULE, wire);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFaults() {
+        var file = RandomSaveGenerator.generateSave(true);
+        var component = file.toJson().get("components").get(0);
+        assertSame(Component.RULE, component, (node) -> node.put("extra", 1));
+        assertSame(Component.RULE, component, (node) -> node.remove("inputs"));
+        assertSame(Component.RULE, component, (node) -> {
+            node.remove("inputs");
+            node.put("extra", 1);
+        });
+        assertSame(Component.RULE, component, (node) -> node.put("componentID", 65536));
+        assertSame(Component.RULE, component, (node) -> node.put("componentAddress", -1L));
+        assertSame(Component.RULE, component, (node) -> node.put("parentAddress", "0"));
+        assertSame(Component.RULE, component, (node) -> ((ObjectNode) node.get("localPosition")).put("y", "0"));
+        assertSame(Component.RULE, component, (node) -> ((ObjectNode) node.get("localPosition")).put("extra", "0"));
+        assertSame(Component.RULE, component, (node) -> ((ObjectNode) node.get("localRotation")).remove("w"));
+        assertSame(Component.RULE, component, (node) -> ((ArrayNode) node.get("customData")).add(-1));
+        assertSame(Component.RULE, component, (node) -> ((ArrayNode) node.get("outputs")).addObject().put("powered", true));
+        assertSame(Component.RULE, component, (node) -> ((ArrayNode) node.get("inputs")).addObject().put("circuitStateID", 1.5));
+        assertSame(Component.RULE, component, (node) -> node.putArray("customData").add(1).addArray());
+        var gameVersion = file.toJson().get("gameVersion");
+        assertSame(Version.RULE, ((ArrayNode) gameVersion.deepCopy()).add(1));
+        var shortVersion = (ArrayNode) gameVersion.deepCopy();
+        shortVersion.remove(0);
+        assertSame(Version.RULE, shortVersion);
+        var brokenVersion = (ArrayNode) gameVersion.deepCopy();
+        brokenVersion.set(3, new ObjectMapper().createObjectNode());
+        assertSame(Version.RULE, brokenVersion);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.util.CircuitStateSolver;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+public class TestSaveGenerator {
+    private void test(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            for (int componentCount: new int[]{0, 1, 2, 3, 17, 1000, 50000}) {
+                var generator = new SaveGenerator(componentCount, componentCount, world);
+                var file = generator.generate();
+                Assertions.assertEquals(componentCount, file.getComponentCount());
+                Assertions.assertEquals(generator.wireCount(), file.wires().length);
+                Assertions.assertEquals(file, new SaveGenerator(componentCount, componentCount, world).generate());
+                Assertions.assertEquals(file, CircuitStateSolver.solve(file));
+                generator.write(path);
+                Assertions.assertEquals(file, BlotterFile.open(path));
+            }
+        });
+    }
+
+    @Test
+    public void testWireDensity() {
+        for (double density: new double[]{0, 0.3, 0.9, 2, 7.5}) {
+            var generator = new SaveGenerator(1, 50000, true, SaveGenerator.DEFAULT_MAX_FAN_OUT, density);
+            var file = generator.generate();
+            Assertions.assertEquals(50000, file.getComponentCount());
+            Assertions.assertEquals(generator.wireCount(), file.wires().length);
+            Assertions.assertEquals(density, (double) file.wires().length / file.getComponentCount(), 0.05 + density * 0.05);
+            Assertions.assertEquals(file, CircuitStateSolver.solve(file));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SaveGenerator(1, 10, true, 4, -0.5));
+    }
+
+    @Test
+    public void testWorlds(@TempDir Path directory) {
+        test(true, directory);
+    }
+
+    @Test
+    public void testSubassembly(@TempDir Path directory) {
+        test(false, directory);
+    }
+}
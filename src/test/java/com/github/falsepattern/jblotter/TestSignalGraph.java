@@ -0,0 +1,120 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.util.CircuitStateSolver;
+import com.github.falsepattern.jblotter.util.SignalGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestSignalGraph {
+    private static boolean isPowered(BlotterFile file, int circuitStateID) {
+        if (file.isWorld()) return file.worldCircuitStates().get(circuitStateID);
+        for (int state: file.subassemblyCircuitStates()) {
+            if (state == circuitStateID) return true;
+        }
+        return false;
+    }
+
+    private static int stateOf(BlotterFile file, boolean input, int address, int peg) {
+        var component = file.components().get(address);
+        return input ? component.inputs()[peg].circuitStateID() : component.outputs()[peg].circuitStateID();
+    }
+
+    private void test(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 16; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var solved = BlotterFile.fromJson(file.toEditableJson());
+                for (var component: file.components().values()) {
+                    var solvedComponent = solved.components().get(component.address());
+                    for (int j = 0; j < component.outputs().length; j++) {
+                        Assertions.assertEquals(isPowered(file, component.outputs()[j].circuitStateID()), isPowered(solved, solvedComponent.outputs()[j].circuitStateID()));
+                    }
+                }
+                for (Wire wire: solved.wires()) {
+                    var first = wire.firstPoint();
+                    var second = wire.secondPoint();
+                    int firstState = stateOf(solved, first.input(), first.componentAddress(), first.pegIndex());
+                    int secondState = stateOf(solved, second.input(), second.componentAddress(), second.pegIndex());
+                    if (first.input() && second.input()) {
+                        Assertions.assertEquals(firstState, secondState);
+                        Assertions.assertEquals(firstState, wire.circuitStateID());
+                    } else if (first.input() != second.input()) {
+                        int output = first.input() ? secondState : firstState;
+                        int input = first.input() ? firstState : secondState;
+                        Assertions.assertEquals(output, wire.circuitStateID());
+                        if (isPowered(solved, output)) Assertions.assertTrue(isPowered(solved, input));
+                    }
+                }
+                // Solving is deterministic, so an already solved file must come back unchanged
+                Assertions.assertEquals(solved, BlotterFile.fromJson(solved.toEditableJson()));
+            }
+        });
+    }
+
+    @Test
+    public void testWorlds() {
+        test(true);
+    }
+
+    @Test
+    public void testSubassembly() {
+        test(false);
+    }
+
+    private void testTyped(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 4; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var solved = CircuitStateSolver.solve(file);
+                var solvedJson = BlotterFile.fromJson(file.toEditableJson());
+                for (var component: solved.components().values()) {
+                    var jsonComponent = solvedJson.components().get(component.address());
+                    Assertions.assertArrayEquals(jsonComponent.inputs(), component.inputs());
+                    Assertions.assertArrayEquals(jsonComponent.outputs(), component.outputs());
+                }
+                Assertions.assertArrayEquals(solvedJson.wires(), solved.wires());
+                Assertions.assertEquals(solvedJson.worldCircuitStates(), solved.worldCircuitStates());
+                Assertions.assertArrayEquals(solvedJson.subassemblyCircuitStates(), solved.subassemblyCircuitStates());
+                Assertions.assertEquals(solved, CircuitStateSolver.solve(solved));
+            }
+        });
+    }
+
+    @Test
+    public void testTypedWorlds() {
+        testTyped(true);
+    }
+
+    @Test
+    public void testTypedSubassembly() {
+        testTyped(false);
+    }
+
+    @Test
+    public void testCircuit() {
+        var graph = new SignalGraph();
+        int source = graph.addComponent(1, 0, 2);
+        int a = graph.addComponent(2, 2, 0);
+        int b = graph.addComponent(3, 1, 1);
+        graph.setPowered(source, 1, true);
+        int toA = graph.addWire(false, 1, 1, true, 2, 0);
+        int aToB = graph.addWire(true, 2, 0, true, 3, 0);
+        int bToA = graph.addWire(false, 3, 0, true, 2, 1);
+        graph.solve();
+        Assertions.assertEquals(0, graph.outputCircuitStateID(source, 0));
+        Assertions.assertEquals(1, graph.outputCircuitStateID(source, 1));
+        Assertions.assertEquals(2, graph.inputCircuitStateID(a, 0));
+        Assertions.assertEquals(3, graph.inputCircuitStateID(a, 1));
+        Assertions.assertEquals(2, graph.inputCircuitStateID(b, 0));
+        Assertions.assertEquals(4, graph.outputCircuitStateID(b, 0));
+        Assertions.assertEquals(1, graph.wireCircuitStateID(toA));
+        Assertions.assertEquals(2, graph.wireCircuitStateID(aToB));
+        Assertions.assertEquals(4, graph.wireCircuitStateID(bToA));
+        Assertions.assertEquals(5, graph.circuitStateCount());
+        Assertions.assertArrayEquals(new int[]{1, 2}, graph.poweredStateIDs());
+        graph.addWire(true, 2, 2, true, 3, 0);
+        Assertions.assertThrows(IllegalArgumentException.class, graph::solve);
+    }
+}
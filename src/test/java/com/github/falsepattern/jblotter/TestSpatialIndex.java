@@ -0,0 +1,144 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.SpatialIndex;
+import com.github.falsepattern.jblotter.util.WorldTransforms;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestSpatialIndex {
+    /**
+     * Points spread over a large area, with dense clusters and exact duplicates mixed in.
+     */
+    private static float[] randomPoint(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> new float[]{random.nextFloat() * 1000 - 500, random.nextFloat() * 10, random.nextFloat() * 1000 - 500};
+            case 1 -> new float[]{random.nextFloat() * 0.01f, random.nextFloat() * 0.01f, random.nextFloat() * 0.01f};
+            case 2 -> new float[]{3, 3, 3};
+            default -> new float[]{random.nextInt(100), random.nextInt(3), random.nextInt(100)};
+        };
+    }
+
+    private static void assertQueriesMatch(Map<Integer, float[]> points, SpatialIndex index, Random random) {
+        Assertions.assertEquals(points.size(), index.size());
+        for (int q = 0; q < 50; q++) {
+            var center = randomPoint(random);
+            float radius = random.nextFloat() * (q % 2 == 0 ? 1 : 300);
+            var expected = points.entrySet().stream().filter((entry) -> {
+                var p = entry.getValue();
+                return p[0] >= center[0] - radius && p[1] >= center[1] - radius && p[2] >= center[2] - radius && p[0] <= center[0] + radius && p[1] <= center[1] + radius && p[2] <= center[2] + radius;
+            }).mapToInt(Map.Entry::getKey).sorted().toArray();
+            var actual = new int[points.size()];
+            var count = new int[1];
+            index.queryBox(center[0] - radius, center[1] - radius, center[2] - radius, center[0] + radius, center[1] + radius, center[2] + radius, (address) -> actual[count[0]++] = address);
+            var found = Arrays.copyOf(actual, count[0]);
+            Arrays.sort(found);
+            Assertions.assertArrayEquals(expected, found);
+
+            double radiusSquared = (double) radius * radius;
+            expected = points.entrySet().stream().filter((entry) -> distanceSquared(entry.getValue(), center) <= radiusSquared).mapToInt(Map.Entry::getKey).sorted().toArray();
+            count[0] = 0;
+            index.queryRadius(center[0], center[1], center[2], radius, (address) -> actual[count[0]++] = address);
+            found = Arrays.copyOf(actual, count[0]);
+            Arrays.sort(found);
+            Assertions.assertArrayEquals(expected, found);
+
+            int k = 1 + random.nextInt(20);
+            var distances = points.values().stream().mapToDouble((p) -> distanceSquared(p, center)).sorted().limit(k).toArray();
+            var nearest = index.nearest(center[0], center[1], center[2], k);
+            Assertions.assertEquals(distances.length, nearest.length);
+            for (int i = 0; i < nearest.length; i++) {
+                Assertions.assertEquals(distances[i], distanceSquared(points.get(nearest[i]), center));
+            }
+        }
+    }
+
+    private static double distanceSquared(float[] p, float[] center) {
+        double dx = p[0] - center[0], dy = p[1] - center[1], dz = p[2] - center[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Test
+    public void testBuild() {
+        var random = new Random(1);
+        for (int count: new int[]{0, 1, 17, 5000}) {
+            var points = new HashMap<Integer, float[]>();
+            var addresses = new int[count];
+            var positions = new float[count * 3];
+            for (int i = 0; i < count; i++) {
+                var point = randomPoint(random);
+                addresses[i] = i * 7 + 1;
+                System.arraycopy(point, 0, positions, i * 3, 3);
+                points.put(addresses[i], point);
+            }
+            assertQueriesMatch(points, SpatialIndex.build(count, addresses, positions), random);
+        }
+    }
+
+    @Test
+    public void testIncremental() {
+        var random = new Random(2);
+        var points = new HashMap<Integer, float[]>();
+        var index = new SpatialIndex();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                int address = random.nextInt(3000);
+                var point = randomPoint(random);
+                if (points.containsKey(address)) {
+                    if (random.nextBoolean()) {
+                        Assertions.assertTrue(index.remove(address));
+                        points.remove(address);
+                    } else {
+                        index.move(address, point[0], point[1], point[2]);
+                        points.put(address, point);
+                    }
+                } else {
+                    Assertions.assertFalse(index.remove(address));
+                    index.insert(address, point[0], point[1], point[2] * (round + 1));
+                    points.put(address, new float[]{point[0], point[1], point[2] * (round + 1)});
+                }
+            }
+            assertQueriesMatch(points, index, random);
+        }
+        for (var address: points.keySet().toArray(new Integer[0])) {
+            Assertions.assertTrue(index.remove(address));
+        }
+        Assertions.assertEquals(0, index.size());
+        index.insert(1, 1e6f, 0, 0);
+        Assertions.assertArrayEquals(new int[]{1}, index.nearest(0, 0, 0, 5));
+    }
+
+    @Test
+    public void testWorld() {
+        var file = new SaveGenerator(3, 100000, true).generate();
+        var transforms = WorldTransforms.compute(file);
+        var index = SpatialIndex.build(transforms);
+        var random = new Random(3);
+        var points = new HashMap<Integer, float[]>();
+        for (int i = 0; i < transforms.size(); i++) {
+            points.put(transforms.address(i), Arrays.copyOfRange(transforms.positions(), i * 3, i * 3 + 3));
+        }
+        Assertions.assertEquals(points.size(), index.size());
+        for (int i = 0; i < 10; i++) {
+            var point = points.get(1 + random.nextInt(points.size()));
+            var nearest = index.nearest(point[0], point[1], point[2], 1);
+            Assertions.assertEquals(0, distanceSquared(points.get(nearest[0]), point));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpatialIndex.build(2, new int[]{1, 1}, new float[6]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpatialIndex.build(1, new int[]{1}, new float[]{Float.NaN, 0, 0}));
+        var index = new SpatialIndex();
+        index.insert(1, 0, 0, 0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.insert(1, 1, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.insert(2, Float.POSITIVE_INFINITY, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.nearest(0, 0, 0, -1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.Version;
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.Wire;
+import com.github.falsepattern.jblotter.stream.BlotterReader;
+import com.github.falsepattern.jblotter.stream.BlotterVisitor;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.stream.ComponentView;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class TestStreaming {
+    private static byte[] serialize(BlotterFile file) throws IOException {
+        var out = new ByteArrayOutputStream();
+        var data = new EndianOutputStream(out, true);
+        file.serialize(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private void testVisitor(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int i = 0; i < 64; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                var components = new ArrayList<>();
+                var wires = new ArrayList<Wire>();
+                var ended = new boolean[1];
+                BlotterReader.read(Channels.newChannel(new ByteArrayInputStream(serialize(file))), new BlotterVisitor() {
+                    @Override
+                    public void onHeader(byte saveFormatVersion, Version gameVersion, boolean isWorld, int componentCount, int wireCount) {
+                        Assertions.assertEquals(file.gameVersion(), gameVersion);
+                        Assertions.assertEquals(file.getComponentCount(), componentCount);
+                        Assertions.assertEquals(file.wires().length, wireCount);
+                    }
+
+                    @Override
+                    public void onComponentId(int id, String name) {
+                        Assertions.assertEquals(file.componentIDs()[id], name);
+                    }
+
+                    @Override
+                    public void onComponent(ComponentView component) {
+                        components.add(component.toComponent());
+                    }
+
+                    @Override
+                    public void onWire(Wire wire) {
+                        wires.add(wire);
+                    }
+
+                    @Override
+                    public void onCircuitStates(int circuitStateCount, BitSet worldCircuitStates, int[] subassemblyCircuitStates) {
+                        Assertions.assertEquals(file.worldCircuitStates(), worldCircuitStates);
+                        Assertions.assertArrayEquals(file.subassemblyCircuitStates(), subassemblyCircuitStates);
+                    }
+
+                    @Override
+                    public void onEnd() {
+                        ended[0] = true;
+                    }
+                });
+                Assertions.assertEquals(new ArrayList<>(file.components().values()), components);
+                Assertions.assertArrayEquals(file.wires(), wires.toArray());
+                Assertions.assertTrue(ended[0]);
+            }
+        });
+    }
+
+    private void testWriter(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            var view = new ComponentView();
+            for (int i = 0; i < 64; i++) {
+                var file = RandomSaveGenerator.generateSave(world);
+                try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    var writer = new BlotterWriter(channel);
+                    writer.writeHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.mods(), file.componentIDs());
+                    for (var component: file.components().values()) {
+                        view.set(component);
+                        writer.writeComponent(view);
+                    }
+                    writer.writeWires(Arrays.asList(file.wires()).iterator());
+                    if (world) {
+                        writer.writeCircuitStates(file.circuitStateCount(), file.worldCircuitStates());
+                    } else {
+                        writer.writeCircuitStates(file.subassemblyCircuitStates());
+                    }
+                    writer.finish();
+                }
+                Assertions.assertArrayEquals(serialize(file), Files.readAllBytes(path));
+            }
+        });
+    }
+
+    @Test
+    public void testWriterDeclaredCounts() {
+        var file = RandomSaveGenerator.generateSave(true);
+        var writer = new BlotterWriter(new EndianOutputStream(new ByteArrayOutputStream(), true), file.getComponentCount() + 1, file.wires().length);
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            writer.writeHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.mods(), file.componentIDs());
+            writer.writeComponents(file.components().values().iterator());
+            writer.writeWires(Arrays.asList(file.wires()).iterator());
+        });
+        var skipping = new BlotterWriter(new EndianOutputStream(new ByteArrayOutputStream(), true), file.getComponentCount(), file.wires().length);
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            skipping.writeHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.mods(), file.componentIDs());
+            skipping.skipComponents(file.getComponentCount());
+            skipping.skipWires(file.wires().length + 1);
+        });
+    }
+
+    @Test
+    public void testViewCustomDataLength() {
+        Assertions.assertDoesNotThrow(() -> {
+            for (int length: new int[]{-1, 0, 3, -5}) {
+                var buffer = ByteBuffer.allocate(Component.FIXED_HEADER_BYTES + 3 * Integer.BYTES + 3).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.position(Component.FIXED_HEADER_BYTES).putInt(0).putInt(0).putInt(length);
+                var view = new ComponentView();
+                if (length < -1) {
+                    Assertions.assertThrows(IllegalArgumentException.class, () -> view.read(new ByteBufferInput(buffer.position(0))));
+                    Assertions.assertThrows(RuntimeException.class, () -> Component.deserialize(new ByteBufferInput(buffer.position(0))));
+                } else {
+                    view.read(new ByteBufferInput(buffer.position(0)));
+                    Assertions.assertEquals(Math.max(0, length), view.customDataLength());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWriterWorlds(@TempDir Path directory) {
+        testWriter(true, directory);
+    }
+
+    @Test
+    public void testWriterSubassembly(@TempDir Path directory) {
+        testWriter(false, directory);
+    }
+
+    @Test
+    public void testVisitorWorlds() {
+        testVisitor(true);
+    }
+
+    @Test
+    public void testVisitorSubassembly() {
+        testVisitor(false);
+    }
+}
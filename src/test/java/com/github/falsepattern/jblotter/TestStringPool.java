@@ -0,0 +1,119 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferInput;
+import com.github.falsepattern.jblotter.util.serialization.EndianInputStream;
+import com.github.falsepattern.jblotter.util.serialization.EndianOutputStream;
+import com.github.falsepattern.jblotter.util.serialization.SerializationUtil;
+import com.github.falsepattern.jblotter.util.serialization.StringPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestStringPool {
+    private static final String[] NAMES = {"", "MHG.CircuitBoard", "JBlotter.Buffer", "\u00dcn\u00efc\u00f6d\u00e9.Peg", "\u65e5\u672c\u8a9e", "emoji \ud83d\ude00"};
+
+    @Test
+    public void testDecode() {
+        for (var name: NAMES) {
+            var utf8 = ("xx" + name + "yy").getBytes(StandardCharsets.UTF_8);
+            Assertions.assertEquals(name, StringPool.decode(utf8, 2, utf8.length - 4));
+        }
+    }
+
+    @Test
+    public void testDeserialize() {
+        Assertions.assertDoesNotThrow(() -> {
+            var out = new ByteArrayOutputStream();
+            var data = new EndianOutputStream(out, true);
+            for (var name: NAMES) {
+                SerializationUtil.serializeString(data, name);
+            }
+            data.flush();
+            var bytes = out.toByteArray();
+            var direct = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN).put(bytes).flip();
+            var stream = new EndianInputStream(new ByteArrayInputStream(bytes), true);
+            var heap = new ByteBufferInput(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+            var mapped = new ByteBufferInput(direct);
+            for (var name: NAMES) {
+                var first = SerializationUtil.deserializeString(stream);
+                Assertions.assertEquals(name, first);
+                Assertions.assertSame(first, SerializationUtil.deserializeString(heap));
+                Assertions.assertSame(first, SerializationUtil.deserializeString(mapped));
+                Assertions.assertSame(first, StringPool.SHARED.intern(new String(name)));
+            }
+            Assertions.assertEquals(0, heap.remaining());
+            Assertions.assertEquals(0, mapped.remaining());
+        });
+    }
+
+    @Test
+    public void testLoneSurrogate() {
+        var pool = new StringPool(100);
+        var question = pool.intern("?");
+        Assertions.assertEquals("\ud800", pool.intern("\ud800"));
+        Assertions.assertEquals("a\udc00b", pool.intern("a\udc00b"));
+        Assertions.assertSame(question, pool.intern(new String("?")));
+        // Pooled the other way around, the lone surrogate mustn't take the slot of the string it encodes to
+        var other = new StringPool(100);
+        Assertions.assertEquals("\ud800", other.intern("\ud800"));
+        Assertions.assertEquals(0, other.size());
+        var utf8 = "?".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals("?", other.get(utf8, 0, utf8.length));
+        Assertions.assertEquals("emoji \ud83d\ude00", other.intern("emoji \ud83d\ude00"));
+        Assertions.assertEquals(2, other.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        var pool = new StringPool(100);
+        for (int i = 0; i < 1000; i++) {
+            var name = "Mod" + i;
+            var utf8 = name.getBytes(StandardCharsets.UTF_8);
+            var pooled = pool.get(utf8, 0, utf8.length);
+            Assertions.assertEquals(name, pooled);
+            Assertions.assertSame(pooled, pool.get(utf8, 0, utf8.length));
+            Assertions.assertEquals(i % 100 + 1, pool.size());
+        }
+    }
+
+    @Test
+    public void testConcurrent() {
+        Assertions.assertDoesNotThrow(() -> {
+            var pool = new StringPool(Integer.MAX_VALUE);
+            var executor = Executors.newFixedThreadPool(4);
+            try {
+                var results = new ArrayList<Future<String[]>>();
+                for (int t = 0; t < 8; t++) {
+                    results.add(executor.submit(() -> {
+                        var strings = new String[2000];
+                        for (int i = 0; i < strings.length; i++) {
+                            var utf8 = ("Component" + i).getBytes(StandardCharsets.UTF_8);
+                            strings[i] = pool.get(ByteBuffer.allocateDirect(utf8.length).put(utf8).flip(), utf8.length);
+                        }
+                        return strings;
+                    }));
+                }
+                var expected = results.get(0).get();
+                for (var result: results) {
+                    var actual = result.get();
+                    for (int i = 0; i < expected.length; i++) {
+                        Assertions.assertSame(expected[i], actual[i]);
+                    }
+                }
+                Assertions.assertEquals(expected.length, pool.size());
+            } finally {
+                executor.shutdown();
+                Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.BlotterFile;
+import com.github.falsepattern.jblotter.objects.BlotterValidator;
+import com.github.falsepattern.jblotter.objects.BlotterValidator.FaultType;
+import com.github.falsepattern.jblotter.stream.BlotterWriter;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.serialization.ByteBufferOutput;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class TestValidator {
+    /**
+     * A serialized save, along with the offsets of its components and of its wire section.
+     */
+    private record Save(byte[] bytes, int[] componentOffsets, int wireOffset) {
+        byte[] with(int offset, int value) {
+            var copy = bytes.clone();
+            ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+            return copy;
+        }
+    }
+
+    private static Save serialize(BlotterFile file) throws IOException {
+        var output = new ByteBufferOutput(1024);
+        var writer = new BlotterWriter(output, file.getComponentCount(), file.wires().length);
+        writer.writeHeader(file.saveFormatVersion(), file.gameVersion(), file.isWorld(), file.mods(), file.componentIDs());
+        var componentOffsets = new int[file.getComponentCount()];
+        int i = 0;
+        for (var component: file.components().values()) {
+            componentOffsets[i++] = output.position();
+            writer.writeComponent(component);
+        }
+        int wireOffset = output.position();
+        for (var wire: file.wires()) {
+            writer.writeWire(wire);
+        }
+        if (file.isWorld()) {
+            writer.writeCircuitStates(file.circuitStateCount(), file.worldCircuitStates());
+        } else {
+            writer.writeCircuitStates(file.subassemblyCircuitStates());
+        }
+        writer.finish();
+        var buffer = output.toByteBuffer();
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new Save(bytes, componentOffsets, wireOffset);
+    }
+
+    private static BlotterValidator.Report validate(byte[] bytes) throws IOException {
+        return BlotterValidator.validate(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    private static void assertFault(byte[] bytes, FaultType type, long offset) throws IOException {
+        var report = validate(bytes);
+        Assertions.assertFalse(report.isValid());
+        Assertions.assertTrue(report.faults().stream().anyMatch((fault) -> fault.type() == type && fault.offset() == offset), () -> "Expected " + type + " at " + offset + ", got " + report.faults());
+    }
+
+    private void testValid(boolean world, Path directory) {
+        Assertions.assertDoesNotThrow(() -> {
+            var path = directory.resolve("save.blotter");
+            for (int componentCount: new int[]{0, 1, 17, 1000, 50000}) {
+                var generator = new SaveGenerator(componentCount, componentCount, world);
+                generator.write(path);
+                var report = BlotterValidator.validate(path);
+                Assertions.assertTrue(report.isValid(), report.faults()::toString);
+                Assertions.assertEquals(Files.size(path), report.bytesRead());
+                Assertions.assertTrue(validate(serialize(generator.generate()).bytes).isValid());
+            }
+        });
+    }
+
+    private void testFaults(boolean world) {
+        Assertions.assertDoesNotThrow(() -> {
+            var file = new SaveGenerator(1234, 1000, world).generate();
+            var save = serialize(file);
+            var bytes = save.bytes;
+            int length = bytes.length;
+            int member = save.componentOffsets[1];
+            int wire = save.wireOffset;
+
+            var header = bytes.clone();
+            header[3] ^= 1;
+            var report = validate(header);
+            Assertions.assertEquals(1, report.faults().size());
+            assertFault(header, FaultType.HEADER, 0);
+
+            var footer = bytes.clone();
+            footer[length - 1] ^= 1;
+            assertFault(footer, FaultType.FOOTER, length - 16);
+
+            var truncated = Arrays.copyOf(bytes, length - 5);
+            assertFault(truncated, FaultType.STRUCTURE, length - 16);
+            Assertions.assertEquals(length - 16, validate(truncated).bytesRead());
+            assertFault(Arrays.copyOf(bytes, length + 1), FaultType.STRUCTURE, length);
+
+            assertFault(save.with(member + 4, 12345678), FaultType.PARENT, member + 4);
+            assertFault(save.with(member, file.components().keySet().iterator().next()), FaultType.ADDRESS_CONFLICT, member);
+            assertFault(save.with(member + 8, 77), FaultType.COMPONENT_ID, member + 8);
+            assertFault(save.with(member + 38, -1), FaultType.STRUCTURE, member + 38);
+            assertFault(save.with(wire + 5, 1000), FaultType.PEG_REFERENCE, wire);
+            assertFault(save.with(wire + 10, 12345678), FaultType.PEG_REFERENCE, wire + 9);
+            assertFault(save.with(wire + 18, -1), FaultType.CIRCUIT_STATE, wire + 18);
+            if (world) assertFault(save.with(wire + 18, Integer.MAX_VALUE), FaultType.CIRCUIT_STATE, wire + 18);
+
+            var many = bytes.clone();
+            var buffer = ByteBuffer.wrap(many).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < file.wires().length; i++) {
+                buffer.putInt(wire + i * 26 + 18, -1);
+            }
+            report = validate(many);
+            Assertions.assertEquals(BlotterValidator.MAX_FAULTS, report.faults().size());
+            Assertions.assertEquals(file.wires().length - BlotterValidator.MAX_FAULTS, report.omittedFaults());
+            Assertions.assertEquals(length, report.bytesRead());
+        });
+    }
+
+    @Test
+    public void testValidWorlds(@TempDir Path directory) {
+        testValid(true, directory);
+    }
+
+    @Test
+    public void testValidSubassembly(@TempDir Path directory) {
+        testValid(false, directory);
+    }
+
+    @Test
+    public void testFaultsWorlds() {
+        testFaults(true);
+    }
+
+    @Test
+    public void testFaultsSubassembly() {
+        testFaults(false);
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.falsepattern.jblotter;
+
+import com.github.falsepattern.jblotter.objects.component.Component;
+import com.github.falsepattern.jblotter.objects.component.ComponentTable;
+import com.github.falsepattern.jblotter.objects.component.pegs.Input;
+import com.github.falsepattern.jblotter.objects.component.pegs.Output;
+import com.github.falsepattern.jblotter.util.SaveGenerator;
+import com.github.falsepattern.jblotter.util.WorldTransforms;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestWorldTransforms {
+    private static final float EPSILON = 1e-3f;
+
+    private static Quaternionf randomRotation(Random random) {
+        return new Quaternionf().rotateXYZ(random.nextFloat() * 7, random.nextFloat() * 7, random.nextFloat() * 7);
+    }
+
+    /**
+     * The components of a generated save, with every component randomly rotated.
+     */
+    private static ComponentTable rotatedComponents(long seed, int componentCount) {
+        var random = new Random(seed);
+        var components = new ComponentTable(componentCount);
+        for (var component: new SaveGenerator(seed, componentCount, true).generate().components().values()) {
+            components.put(new Component(component.address(), component.parentAddress(), component.componentID(), component.localPosition(), randomRotation(random), component.inputs(), component.outputs(), component.customData()));
+        }
+        return components;
+    }
+
+    private static void assertMatches(Map<Integer, Component> components, WorldTransforms transforms) {
+        assertMatches(components, transforms, EPSILON);
+    }
+
+    /**
+     * Walks the parent chain of every component with JOML.
+     */
+    private static void assertMatches(Map<Integer, Component> components, WorldTransforms transforms, float epsilon) {
+        Assertions.assertEquals(components.size(), transforms.size());
+        var position = new Vector3f();
+        var rotation = new Quaternionf();
+        var actualPosition = new Vector3f();
+        var actualRotation = new Quaternionf();
+        for (var component: components.values()) {
+            position.set(component.localPosition());
+            rotation.set(component.localRotation());
+            for (var parent = components.get(component.parentAddress()); parent != null; parent = components.get(parent.parentAddress())) {
+                parent.localRotation().transform(position).add(parent.localPosition());
+                rotation.premul(parent.localRotation());
+            }
+            int index = transforms.indexOf(component.address());
+            Assertions.assertEquals(component.address(), transforms.address(index));
+            transforms.position(index, actualPosition);
+            transforms.rotation(index, actualRotation);
+            Assertions.assertTrue(position.equals(actualPosition, epsilon * Math.max(1, position.length())), () -> position + " != " + actualPosition);
+            Assertions.assertTrue(Math.abs(rotation.dot(actualRotation)) > 1 - epsilon, () -> rotation + " != " + actualRotation);
+        }
+    }
+
+    @Test
+    public void testCompute() {
+        var pool = new ForkJoinPool(4);
+        try {
+            for (int count: new int[]{0, 1, 100, 200000}) {
+                var components = rotatedComponents(count, count);
+                assertMatches(components, WorldTransforms.compute(components, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeepChain() {
+        var components = new ComponentTable();
+        var random = new Random(1);
+        for (int i = 1; i <= 10000; i++) {
+            components.put(new Component(i, i - 1, (short) 0, new Vector3f(0.01f, 0, 0), new Quaternionf().rotateY(random.nextFloat() * 0.01f), new Input[0], new Output[0], new byte[0]));
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            // Rounding errors pile up along the chain, in a different order than when walking it upwards
+            assertMatches(components, WorldTransforms.compute(components, pool), 5e-2f);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSetLocalTransform() {
+        var pool = new ForkJoinPool(4);
+        try {
+            var random = new Random(2);
+            var components = rotatedComponents(3, 100000);
+            var transforms = WorldTransforms.compute(components, pool);
+            for (int i = 0; i < 50; i++) {
+                int address = 1 + random.nextInt(components.size());
+                var component = components.get(address);
+                var position = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+                var rotation = randomRotation(random);
+                components.put(new Component(address, component.parentAddress(), component.componentID(), position, rotation, component.inputs(), component.outputs(), component.customData()));
+                transforms.setLocalTransform(address, position, rotation);
+            }
+            transforms.setLocalTransform(1, new Vector3f(1000, 0, 0), new Quaternionf().rotateZ(1));
+            components.put(new Component(1, 0, (short) 0, new Vector3f(1000, 0, 0), new Quaternionf().rotateZ(1), new Input[0], new Output[0], new byte[0]));
+            assertMatches(components, transforms);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> transforms.setLocalTransform(-1, new Vector3f(), new Quaternionf()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidHierarchy() {
+        var missing = new ComponentTable();
+        missing.put(new Component(1, 2, (short) 0, new Vector3f(), new Quaternionf(), new Input[0], new Output[0], new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> WorldTransforms.compute(missing, ForkJoinPool.commonPool()));
+        var cycle = new ComponentTable();
+        cycle.put(new Component(1, 0, (short) 0, new Vector3f(), new Quaternionf(), new Input[0], new Output[0], new byte[0]));
+        cycle.put(new Component(2, 3, (short) 0, new Vector3f(), new Quaternionf(), new Input[0], new Output[0], new byte[0]));
+        cycle.put(new Component(3, 2, (short) 0, new Vector3f(), new Quaternionf(), new Input[0], new Output[0], new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> WorldTransforms.compute(cycle, ForkJoinPool.commonPool()));
+    }
+}